@@ -0,0 +1,89 @@
+package com.sunnyday.lychat.analysis;
+
+/**
+ * 一个评分模型对一篇文档的评分结果
+ *
+ * 维度①-⑤取值0-1，越高越像人类写作；模板相似度取值0-1，越高越像AI模板；aiLike为加权后的AI率（0-1）
+ */
+public final class AiScoreCard {
+
+    private final double languageComplexity;
+    private final double burstiness;
+    private final double topicEntropy;
+    private final double reasoningComplexity;
+    private final double emotionVariance;
+    private final double templateSimilarity;
+    private final double aiLike;
+
+    public AiScoreCard(double languageComplexity, double burstiness, double topicEntropy, double reasoningComplexity,
+                       double emotionVariance, double templateSimilarity, double aiLike) {
+        this.languageComplexity = languageComplexity;
+        this.burstiness = burstiness;
+        this.topicEntropy = topicEntropy;
+        this.reasoningComplexity = reasoningComplexity;
+        this.emotionVariance = emotionVariance;
+        this.templateSimilarity = templateSimilarity;
+        this.aiLike = aiLike;
+    }
+
+    /**
+     * ① 语言复杂度（4-gram熵）
+     */
+    public double languageComplexity() {
+        return languageComplexity;
+    }
+
+    /**
+     * ② 句式波动（句长变异系数）
+     */
+    public double burstiness() {
+        return burstiness;
+    }
+
+    /**
+     * ③ 主题熵（2-gram熵）
+     */
+    public double topicEntropy() {
+        return topicEntropy;
+    }
+
+    /**
+     * ④ 推理复杂度（逻辑词密度）
+     */
+    public double reasoningComplexity() {
+        return reasoningComplexity;
+    }
+
+    /**
+     * ⑤ 情绪起伏（每句情绪分的方差）
+     */
+    public double emotionVariance() {
+        return emotionVariance;
+    }
+
+    /**
+     * ⑥ 模板相似度（与最相似模板的3-gram余弦相似度，越高越像AI）
+     */
+    public double templateSimilarity() {
+        return templateSimilarity;
+    }
+
+    public double aiLike() {
+        return aiLike;
+    }
+
+    /**
+     * AI率（0-100的整数）
+     */
+    public int aiScore() {
+        return (int) Math.round(aiLike * 100.0);
+    }
+
+    /**
+     * 按维度顺序返回6个维度值（与 AiScorers.DIMENSIONS 对应）
+     */
+    public double[] dimensions() {
+        return new double[]{languageComplexity, burstiness, topicEntropy, reasoningComplexity, emotionVariance,
+                templateSimilarity};
+    }
+}
@@ -0,0 +1,21 @@
+package com.sunnyday.lychat.analysis;
+
+/**
+ * AI痕迹评分模型：由同一份文本统计量（TextStatistics）计算6个维度和AI率
+ *
+ * 各版本只在维度映射曲线和权重上不同，统计量由 StreamingTextAnalyzer / DraftDocument 预先算好，
+ * 因此线上版本与影子版本可以对同一篇文档的同一份统计量分别打分而不重复扫描文本。
+ * 实现必须是无状态、线程安全的。
+ */
+public interface AiScorer {
+
+    /**
+     * 版本名（配置 lychat.scoring.production-version / shadow-versions 时使用）
+     */
+    String version();
+
+    /**
+     * 计算6个维度和AI率
+     */
+    AiScoreCard score(TextStatistics statistics);
+}
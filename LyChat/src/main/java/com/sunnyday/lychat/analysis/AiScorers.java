@@ -0,0 +1,52 @@
+package com.sunnyday.lychat.analysis;
+
+import java.util.List;
+
+/**
+ * 内置评分模型版本
+ *
+ * v1：线性映射与均匀权重
+ * v2：平滑映射（logistic / x/(x+c)），逻辑词与情绪的基准分为0.3
+ * v3：平滑映射与调整后的权重，即当前线上公式，逻辑词与情绪的基准分为0.4
+ *
+ * 三个版本统一使用线上的统计量（词库、模板库、断句与n-gram规则）；最初的独立实验实现已删除，需要时查阅git历史。
+ */
+public final class AiScorers {
+
+    public static final String V1 = "v1";
+    public static final String V2 = "v2";
+    public static final String V3 = "v3";
+
+    /** 维度名称（日志与统计使用），与 AiScoreCard.dimensions() 的顺序一致 */
+    public static final List<String> DIMENSIONS = List.of("languageComplexity", "burstiness", "topicEntropy",
+            "reasoningComplexity", "emotionVariance", "templateSimilarity");
+
+    private AiScorers() {
+    }
+
+    public static List<AiScorer> builtIn() {
+        return List.of(new LinearAiScorer(V1),
+                new SmoothAiScorer(V2, 0.3, 0.5, new double[]{0.20, 0.15, 0.15, 0.20, 0.10, 0.20}),
+                new SmoothAiScorer(V3, 0.4, 0.45, new double[]{0.30, 0.20, 0.25, 0.05, 0.05, 0.15}));
+    }
+
+    /**
+     * 按 语言复杂度、句式波动、主题熵、推理复杂度、情绪起伏、模板相似度 的顺序加权，
+     * 前5项取 1 - 分数（越低越像AI），模板相似度直接计入
+     */
+    static AiScoreCard combine(double[] weights, double languageComplexity, double burstiness, double topicEntropy,
+                               double reasoningComplexity, double emotionVariance, double templateSimilarity) {
+        double aiLike = weights[0] * (1 - languageComplexity)
+                + weights[1] * (1 - burstiness)
+                + weights[2] * (1 - topicEntropy)
+                + weights[3] * (1 - reasoningComplexity)
+                + weights[4] * (1 - emotionVariance)
+                + weights[5] * templateSimilarity;
+        return new AiScoreCard(languageComplexity, burstiness, topicEntropy, reasoningComplexity, emotionVariance,
+                templateSimilarity, clamp(aiLike));
+    }
+
+    static double clamp(double v) {
+        return Math.max(0.0, Math.min(1.0, v));
+    }
+}
@@ -0,0 +1,334 @@
+package com.sunnyday.lychat.analysis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 草稿文档的增量分析状态（同一篇志望理由书的多次修改稿）
+ *
+ * 按段落保存上一版的统计量，新版本上传时按段落比对，只分析新增或修改过的段落：
+ * 1、句子、逻辑词、情绪词的统计量按段落直接相加
+ * 2、2/3/4-gram合并到 RunningCountTable，删除旧段落时减去其计数、加入新段落时加上其计数，
+ *    熵由滚动维护的 Σc·ln(c) 得出；每个模板与文档的点积随3-gram计数变化同步更新
+ * 3、跨段落的n-gram（上一段末尾 + 连接处的空格 + 下一段开头）每次按段落顺序重新计算，成本只与段落数有关
+ *
+ * 为保证与整篇分析的结果一致，段落只在“以断句符号结尾的行”之后切分（句子不会跨段），
+ * 否则与下一行合并为同一段落。
+ * 非线程安全，由调用方按草稿加锁。
+ */
+public final class DraftDocument {
+
+    private static final long[] NO_KEYS = new long[0];
+
+    private final LexiconMatcher lexicon;
+    private final TemplateIndex templates;
+
+    private List<Paragraph> paragraphs = new ArrayList<>();
+
+    /** 下标0、1、2分别为2-gram、3-gram、4-gram */
+    private final RunningCountTable[] grams = new RunningCountTable[3];
+    private final double[] templateDots;
+    private final int[] templateShared;
+    /** 当前计入的跨段落n-gram */
+    private long[][] joinGrams = {NO_KEYS, NO_KEYS, NO_KEYS};
+
+    private int revision;
+
+    public DraftDocument(LexiconMatcher lexicon, TemplateIndex templates) {
+        this.lexicon = lexicon;
+        this.templates = templates;
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = new RunningCountTable(1024);
+        }
+        this.templateDots = new double[templates.size()];
+        this.templateShared = new int[templates.size()];
+    }
+
+    public LexiconMatcher lexicon() {
+        return lexicon;
+    }
+
+    public TemplateIndex templates() {
+        return templates;
+    }
+
+    public int revision() {
+        return revision;
+    }
+
+    /**
+     * 用新版本的全文更新分析状态
+     *
+     * @param rawText 新版本全文
+     * @return 本次修改的段落信息
+     */
+    public Revision update(String rawText) {
+        Map<String, ArrayDeque<Paragraph>> previous = new HashMap<>();
+        for (Paragraph paragraph : paragraphs) {
+            previous.computeIfAbsent(paragraph.text, k -> new ArrayDeque<>()).add(paragraph);
+        }
+
+        List<Paragraph> next = new ArrayList<>();
+        int[] changed = new int[8];
+        int changedCount = 0;
+        for (String text : split(rawText)) {
+            ArrayDeque<Paragraph> same = previous.get(text);
+            Paragraph paragraph = same == null ? null : same.poll();
+            if (paragraph == null) {
+                paragraph = Paragraph.analyze(text, lexicon);
+                if (paragraph.codePoints == 0) {
+                    continue;
+                }
+                addGrams(paragraph, 1);
+                if (changedCount == changed.length) {
+                    changed = Arrays.copyOf(changed, changedCount << 1);
+                }
+                changed[changedCount++] = next.size();
+            }
+            next.add(paragraph);
+        }
+        int removed = 0;
+        for (ArrayDeque<Paragraph> stale : previous.values()) {
+            for (Paragraph paragraph : stale) {
+                addGrams(paragraph, -1);
+                removed++;
+            }
+        }
+        paragraphs = next;
+        updateJoinGrams();
+        revision++;
+        return new Revision(revision, paragraphs.size(), Arrays.copyOf(changed, changedCount), removed);
+    }
+
+    /**
+     * 当前版本的文本统计量，与对全文调用 StreamingTextAnalyzer 的结果一致（熵与相似度只有浮点舍入差异）
+     *
+     * @param topK 返回的最相似模板个数
+     */
+    public TextStatistics statistics(int topK) {
+        int joins = Math.max(0, paragraphs.size() - 1);
+        int codePoints = joins;
+        long normalizedLength = joins;
+        int sentenceCount = 0;
+        long sentenceChars = 0;
+        long sentenceCharsSquared = 0;
+        int logicCount = 0;
+        long emotionSum = 0;
+        long emotionSumSquared = 0;
+        for (Paragraph paragraph : paragraphs) {
+            TextStatistics s = paragraph.statistics;
+            codePoints += s.codePointCount();
+            normalizedLength += s.normalizedLength();
+            sentenceCount += s.sentenceCount();
+            sentenceChars += s.sentenceChars();
+            sentenceCharsSquared += s.sentenceCharsSquared();
+            logicCount += s.logicCount();
+            emotionSum += s.emotionSum();
+            emotionSumSquared += s.emotionSumSquared();
+        }
+        TemplateIndex.TemplateMatch templateMatch = templates.rank(templateDots, templateShared,
+                Math.sqrt(grams[1].sumOfSquares()), topK);
+        return new TextStatistics(codePoints, grams[0].entropy(), grams[2].entropy(), templateMatch,
+                normalizedLength, sentenceCount, sentenceChars, sentenceCharsSquared, logicCount,
+                emotionSum, emotionSumSquared, null);
+    }
+
+    /**
+     * 按段落切分：换行前最后一个非空白字符是断句符号、换行后第一个非空白字符不是控制字符时才切分，
+     * 段落之间的空白归前一段（归一化时会被去掉）
+     */
+    static List<String> split(String rawText) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        char lastContent = 0;
+        boolean lineBreak = false;
+        for (int i = 0; i < rawText.length(); i++) {
+            char c = rawText.charAt(i);
+            if (isWhitespace(c)) {
+                if (c == '\n' && SentenceSpans.isDelimiter(lastContent)) {
+                    lineBreak = true;
+                }
+                continue;
+            }
+            if (lineBreak && c > ' ') {
+                parts.add(rawText.substring(start, i));
+                start = i;
+            }
+            lineBreak = false;
+            lastContent = c;
+        }
+        if (start < rawText.length()) {
+            parts.add(rawText.substring(start));
+        }
+        return parts;
+    }
+
+    private void addGrams(Paragraph paragraph, int sign) {
+        NgramFeatures ngrams = paragraph.ngrams;
+        addTable(ngrams.bigrams(), 0, sign);
+        addTable(ngrams.trigrams(), 1, sign);
+        addTable(ngrams.fourgrams(), 2, sign);
+    }
+
+    private void addTable(LongCountTable table, int n, int sign) {
+        for (int slot = 0; slot < table.capacity(); slot++) {
+            if (table.isOccupied(slot)) {
+                addGram(n, table.keyAt(slot), sign * table.countAt(slot));
+            }
+        }
+    }
+
+    private void addGram(int n, long key, int delta) {
+        int old = grams[n].add(key, delta);
+        if (n == 1) {
+            templates.accumulate(key, old, old + delta, templateDots, templateShared);
+        }
+    }
+
+    /**
+     * 重新计算跨段落的n-gram：每个连接处取之前文本的最后3个码点 + 空格 + 下一段的开头3个码点（均为n-gram符号），
+     * 只统计包含该空格的n-gram；段落不足3个码点时，之前文本的末尾会延伸到更早的段落
+     */
+    private void updateJoinGrams() {
+        for (int n = 0; n < 3; n++) {
+            for (long key : joinGrams[n]) {
+                addGram(n, key, -1);
+            }
+        }
+        long[][] next = new long[3][Math.max(0, paragraphs.size() - 1) * 4];
+        int[] counts = new int[3];
+        int[] seq = new int[7];
+        int[] window = new int[3];
+        int windowLength = 0;
+        for (int i = 0; i < paragraphs.size(); i++) {
+            Paragraph paragraph = paragraphs.get(i);
+            if (i > 0) {
+                System.arraycopy(window, 0, seq, 0, windowLength);
+                seq[windowLength] = ' ';
+                int length = windowLength + 1;
+                for (int j = 0; j < paragraph.head.length; j++) {
+                    seq[length++] = paragraph.head[j];
+                }
+                for (int size = 2; size <= 4; size++) {
+                    for (int from = Math.max(0, windowLength - size + 1); from <= windowLength; from++) {
+                        if (from + size > length) break;
+                        long key = 0;
+                        for (int j = from; j < from + size; j++) {
+                            key = (key << 16) | seq[j];
+                        }
+                        next[size - 2][counts[size - 2]++] = key;
+                        addGram(size - 2, key, 1);
+                    }
+                }
+            }
+            if (paragraph.codePoints >= 3) {
+                System.arraycopy(paragraph.tail, 0, window, 0, 3);
+                windowLength = 3;
+            } else {
+                // 之前的末尾 + 空格 + 整个短段落，取最后3个字符
+                int[] joined = new int[windowLength + 1 + paragraph.head.length];
+                System.arraycopy(window, 0, joined, 0, windowLength);
+                int length = windowLength;
+                if (i > 0) {
+                    joined[length++] = ' ';
+                }
+                for (int symbol : paragraph.head) {
+                    joined[length++] = symbol;
+                }
+                windowLength = Math.min(3, length);
+                System.arraycopy(joined, length - windowLength, window, 0, windowLength);
+            }
+        }
+        for (int n = 0; n < 3; n++) {
+            next[n] = Arrays.copyOf(next[n], counts[n]);
+        }
+        joinGrams = next;
+    }
+
+    /**
+     * 与正则 \s 相同的空白字符集合
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * 一个段落的原文与统计量
+     */
+    private static final class Paragraph {
+        final String text;
+        final TextStatistics statistics;
+        final NgramFeatures ngrams;
+        final int codePoints;
+        /** 归一化后前3个、后3个码点的n-gram符号（不足3个时为全部） */
+        final int[] head;
+        final int[] tail;
+
+        private Paragraph(String text, TextStatistics statistics, NgramFeatures ngrams, int[] head, int[] tail) {
+            this.text = text;
+            this.statistics = statistics;
+            this.ngrams = ngrams;
+            this.codePoints = statistics.codePointCount();
+            this.head = head;
+            this.tail = tail;
+        }
+
+        static Paragraph analyze(String text, LexiconMatcher lexicon) {
+            StreamingTextAnalyzer analyzer = new StreamingTextAnalyzer(lexicon, TemplateIndex.empty(), 1, text.length());
+            TextStatistics statistics = analyzer.accept(text).finish();
+            int[] symbols = TextNormalizer.normalize(text).codePoints().map(NgramFeatures::symbol).toArray();
+            int edge = Math.min(3, symbols.length);
+            return new Paragraph(text, statistics, analyzer.ngrams(), Arrays.copyOf(symbols, edge),
+                    Arrays.copyOfRange(symbols, symbols.length - edge, symbols.length));
+        }
+    }
+
+    /**
+     * 一次更新的结果
+     */
+    public static final class Revision {
+        private final int revision;
+        private final int paragraphs;
+        private final int[] changedParagraphs;
+        private final int removedParagraphs;
+
+        Revision(int revision, int paragraphs, int[] changedParagraphs, int removedParagraphs) {
+            this.revision = revision;
+            this.paragraphs = paragraphs;
+            this.changedParagraphs = changedParagraphs;
+            this.removedParagraphs = removedParagraphs;
+        }
+
+        /**
+         * 版本号（第一次上传为1）
+         */
+        public int getRevision() {
+            return revision;
+        }
+
+        /**
+         * 当前版本的段落数
+         */
+        public int getParagraphs() {
+            return paragraphs;
+        }
+
+        /**
+         * 新增或修改过、本次重新分析的段落序号（第一次上传时为全部段落）
+         */
+        public int[] getChangedParagraphs() {
+            return changedParagraphs;
+        }
+
+        /**
+         * 上一版中被删除或修改掉的段落数
+         */
+        public int getRemovedParagraphs() {
+            return removedParagraphs;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.sunnyday.lychat.analysis;
+
+/**
+ * 词库类别
+ */
+public enum LexiconCategory {
+
+    /** 逻辑连接词（推理复杂度） */
+    LOGIC("logic"),
+
+    /** 正向情绪词（情绪起伏度） */
+    POSITIVE("positive"),
+
+    /** 负向情绪词（情绪起伏度） */
+    NEGATIVE("negative");
+
+    private final String section;
+
+    LexiconCategory(String section) {
+        this.section = section;
+    }
+
+    /**
+     * 词库文件中的分节名，如 [logic]
+     */
+    public String getSection() {
+        return section;
+    }
+
+    public static LexiconCategory fromSection(String section) {
+        for (LexiconCategory category : values()) {
+            if (category.section.equalsIgnoreCase(section)) {
+                return category;
+            }
+        }
+        return null;
+    }
+}
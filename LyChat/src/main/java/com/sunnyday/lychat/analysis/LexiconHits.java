@@ -0,0 +1,55 @@
+package com.sunnyday.lychat.analysis;
+
+import java.util.Arrays;
+
+/**
+ * 词库命中结果（按结束偏移升序，基本类型数组存储）
+ * 同一份结果供推理复杂度、情绪起伏度等多个维度共用
+ */
+public final class LexiconHits {
+
+    private int[] patterns = new int[16];
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int size;
+
+    void add(int pattern, int start, int end) {
+        if (size == patterns.length) {
+            patterns = Arrays.copyOf(patterns, size << 1);
+            starts = Arrays.copyOf(starts, size << 1);
+            ends = Arrays.copyOf(ends, size << 1);
+        }
+        patterns[size] = pattern;
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    /**
+     * 命中个数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 第i个命中的词条序号
+     */
+    public int pattern(int i) {
+        return patterns[i];
+    }
+
+    /**
+     * 第i个命中的起始偏移（包含）
+     */
+    public int start(int i) {
+        return starts[i];
+    }
+
+    /**
+     * 第i个命中的结束偏移（不包含）
+     */
+    public int end(int i) {
+        return ends[i];
+    }
+}
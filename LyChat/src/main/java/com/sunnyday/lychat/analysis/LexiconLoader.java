@@ -0,0 +1,52 @@
+package com.sunnyday.lychat.analysis;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * 词库文件解析
+ *
+ * 文件格式：以 [logic] / [positive] / [negative] 开始一个类别，每行一个词，#开头为注释。
+ * 句子按 。！？!?. 切分且会去掉首尾空白，包含这些字符或空白的词永远不会在句内命中，解析时直接拒绝
+ */
+public final class LexiconLoader {
+
+    private static final Pattern INVALID_WORD = Pattern.compile("[\\s。！？!?.]");
+
+    private LexiconLoader() {
+    }
+
+    public static LexiconMatcher load(InputStream in, String source) throws IOException {
+        LexiconMatcher.Builder builder = LexiconMatcher.builder();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        LexiconCategory category = null;
+        String line;
+        int lineNo = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.startsWith("[") && line.endsWith("]")) {
+                category = LexiconCategory.fromSection(line.substring(1, line.length() - 1).trim());
+                if (category == null) {
+                    throw new IOException(source + " 第" + lineNo + "行: 未知的词库类别 " + line);
+                }
+                continue;
+            }
+            if (category == null) {
+                throw new IOException(source + " 第" + lineNo + "行: 词条前缺少类别声明");
+            }
+            if (INVALID_WORD.matcher(line).find()) {
+                throw new IOException(source + " 第" + lineNo + "行: 词条不能包含空白或断句符号 " + line);
+            }
+            builder.add(category, line);
+        }
+        return builder.build();
+    }
+}
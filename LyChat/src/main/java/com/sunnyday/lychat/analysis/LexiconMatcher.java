@@ -0,0 +1,227 @@
+package com.sunnyday.lychat.analysis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 词库多模式匹配器（Aho-Corasick自动机，不可变，多线程共享）
+ *
+ * 一次线性扫描即可找出文本中所有词库命中（包括互相重叠的命中），
+ * 每个命中带有词条序号、类别和在文本中的起止偏移，
+ * 扫描成本只与文本长度和命中数有关，与词库大小无关
+ */
+public final class LexiconMatcher {
+
+    private static final int ROOT = 0;
+
+    private final String[] patterns;
+    private final LexiconCategory[] categories;
+
+    /** 状态转移表：key = (状态 << 16) | 字符，value = 目标状态 + 1（0表示空槽） */
+    private final long[] transitionKeys;
+    private final int[] transitionTargets;
+    private final int transitionMask;
+
+    /** 失败指针 */
+    private final int[] fail;
+
+    /** 每个状态的输出（已合并失败链上的输出），按词条长度降序 */
+    private final int[][] outputs;
+
+    private LexiconMatcher(String[] patterns, LexiconCategory[] categories, long[] transitionKeys,
+                           int[] transitionTargets, int[] fail, int[][] outputs) {
+        this.patterns = patterns;
+        this.categories = categories;
+        this.transitionKeys = transitionKeys;
+        this.transitionTargets = transitionTargets;
+        this.transitionMask = transitionKeys.length - 1;
+        this.fail = fail;
+        this.outputs = outputs;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // ====================== 查询 ======================
+
+    /**
+     * 扫描文本，返回全部命中（按结束偏移升序）
+     */
+    public LexiconHits scan(CharSequence text) {
+        LexiconHits hits = new LexiconHits();
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = nextState(state, text.charAt(i));
+            for (int p : outputs[state]) {
+                hits.add(p, i + 1 - patterns[p].length(), i + 1);
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * 单步状态转移（供增量扫描使用）
+     */
+    public int nextState(int state, char c) {
+        while (true) {
+            int target = transition(state, c);
+            if (target >= 0) {
+                return target;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = fail[state];
+        }
+    }
+
+    /**
+     * 到达某状态时命中的词条序号
+     */
+    public int[] outputs(int state) {
+        return outputs[state];
+    }
+
+    public int initialState() {
+        return ROOT;
+    }
+
+    public int patternCount() {
+        return patterns.length;
+    }
+
+    public String pattern(int patternId) {
+        return patterns[patternId];
+    }
+
+    public LexiconCategory category(int patternId) {
+        return categories[patternId];
+    }
+
+    private int transition(int state, char c) {
+        long key = ((long) state << 16) | c;
+        int s = hash(key) & transitionMask;
+        while (true) {
+            int target = transitionTargets[s];
+            if (target == 0) {
+                return -1;
+            }
+            if (transitionKeys[s] == key) {
+                return target - 1;
+            }
+            s = (s + 1) & transitionMask;
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // ====================== 构建 ======================
+
+    /**
+     * 匹配器构建器
+     */
+    public static final class Builder {
+
+        private final List<String> patterns = new ArrayList<>();
+        private final List<LexiconCategory> categories = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * 添加词条（同一个词可以属于多个类别，会作为不同词条各自命中）
+         */
+        public Builder add(LexiconCategory category, String word) {
+            if (word == null || word.isEmpty()) {
+                throw new IllegalArgumentException("词条不能为空");
+            }
+            patterns.add(word);
+            categories.add(category);
+            return this;
+        }
+
+        public LexiconMatcher build() {
+            // 1. 构建字典树
+            List<Map<Character, Integer>> children = new ArrayList<>();
+            List<List<Integer>> terminal = new ArrayList<>();
+            children.add(new HashMap<>());
+            terminal.add(new ArrayList<>());
+            for (int p = 0; p < patterns.size(); p++) {
+                String word = patterns.get(p);
+                int state = ROOT;
+                for (int i = 0; i < word.length(); i++) {
+                    Integer next = children.get(state).get(word.charAt(i));
+                    if (next == null) {
+                        next = children.size();
+                        children.add(new HashMap<>());
+                        terminal.add(new ArrayList<>());
+                        children.get(state).put(word.charAt(i), next);
+                    }
+                    state = next;
+                }
+                terminal.get(state).add(p);
+            }
+
+            // 2. 广度优先计算失败指针，并合并失败链上的输出
+            int stateCount = children.size();
+            int[] fail = new int[stateCount];
+            int[][] outputs = new int[stateCount][];
+            outputs[ROOT] = new int[0];
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            for (int child : children.get(ROOT).values()) {
+                fail[child] = ROOT;
+                queue.add(child);
+            }
+            int transitionCount = children.get(ROOT).size();
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                List<Integer> own = terminal.get(state);
+                int[] inherited = outputs[fail[state]];
+                int[] merged = new int[own.size() + inherited.length];
+                for (int i = 0; i < own.size(); i++) {
+                    merged[i] = own.get(i);
+                }
+                System.arraycopy(inherited, 0, merged, own.size(), inherited.length);
+                outputs[state] = merged;
+
+                for (Map.Entry<Character, Integer> e : children.get(state).entrySet()) {
+                    int child = e.getValue();
+                    int f = fail[state];
+                    Integer target;
+                    while ((target = children.get(f).get(e.getKey())) == null && f != ROOT) {
+                        f = fail[f];
+                    }
+                    fail[child] = target != null ? target : ROOT;
+                    queue.add(child);
+                    transitionCount++;
+                }
+            }
+
+            // 3. 压缩转移表
+            int capacity = Integer.highestOneBit(Math.max(4, transitionCount * 2) - 1) << 1;
+            long[] keys = new long[capacity];
+            int[] targets = new int[capacity];
+            for (int state = 0; state < stateCount; state++) {
+                for (Map.Entry<Character, Integer> e : children.get(state).entrySet()) {
+                    long key = ((long) state << 16) | e.getKey();
+                    int s = hash(key) & (capacity - 1);
+                    while (targets[s] != 0) {
+                        s = (s + 1) & (capacity - 1);
+                    }
+                    keys[s] = key;
+                    targets[s] = e.getValue() + 1;
+                }
+            }
+
+            return new LexiconMatcher(patterns.toArray(new String[0]),
+                    categories.toArray(new LexiconCategory[0]), keys, targets, fail, outputs);
+        }
+    }
+}
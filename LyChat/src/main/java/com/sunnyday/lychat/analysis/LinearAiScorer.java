@@ -0,0 +1,58 @@
+package com.sunnyday.lychat.analysis;
+
+/**
+ * 线性映射评分（v1）：熵按经验区间线性映射后截断到 [0, 1]，句式波动取 (std - mean) / (std + mean)，六项权重基本均匀
+ */
+final class LinearAiScorer implements AiScorer {
+
+    private static final double[] WEIGHTS = {0.25, 0.15, 0.15, 0.15, 0.15, 0.15};
+
+    private final String version;
+
+    LinearAiScorer(String version) {
+        this.version = version;
+    }
+
+    @Override
+    public String version() {
+        return version;
+    }
+
+    @Override
+    public AiScoreCard score(TextStatistics statistics) {
+        return AiScorers.combine(WEIGHTS,
+                languageComplexity(statistics),
+                burstiness(statistics),
+                topicEntropy(statistics),
+                reasoningComplexity(statistics),
+                AiScorers.clamp(statistics.emotionVariance() / 2.0),
+                AiScorers.clamp(statistics.templateMatch().getMaxSimilarity()));
+    }
+
+    // 4-gram熵 1.5 -> 0，4.0 -> 1
+    private double languageComplexity(TextStatistics statistics) {
+        if (statistics.codePointCount() < 12) return 0.5;
+        return AiScorers.clamp((statistics.fourgramEntropy() - 1.5) / (4.0 - 1.5));
+    }
+
+    private double burstiness(TextStatistics statistics) {
+        if (statistics.sentenceCount() == 0) return 0.5;
+        double mean = statistics.sentenceLengthMean();
+        if (mean == 0) return 0.5;
+        double std = Math.sqrt(statistics.sentenceLengthVariance());
+        double b = (std - mean) / (std + mean);
+        return AiScorers.clamp((b + 1) / 2);
+    }
+
+    // 2-gram熵 0.5 -> 0，3.0 -> 1
+    private double topicEntropy(TextStatistics statistics) {
+        if (statistics.codePointCount() < 5) return 0.5;
+        return AiScorers.clamp((statistics.bigramEntropy() - 0.5) / (3.0 - 0.5));
+    }
+
+    // 逻辑词密度达到 1% 即满分
+    private double reasoningComplexity(TextStatistics statistics) {
+        if (statistics.sentenceChars() == 0) return 0.5;
+        return AiScorers.clamp((double) statistics.logicCount() / statistics.sentenceChars() / 0.01);
+    }
+}
@@ -0,0 +1,186 @@
+package com.sunnyday.lychat.analysis;
+
+/**
+ * long -> int 计数表（开放寻址 + 线性探测）
+ * 用于n-gram统计，key为打包后的码点序列，避免为每个n-gram创建String和Integer对象
+ * 计数为0的槽位视为空槽，因此不需要额外的占用标记
+ */
+public final class LongCountTable {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] counts;
+    private int mask;
+    private int size;
+    private long total;
+
+    public LongCountTable(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.keys = new long[capacity];
+        this.counts = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * 计数+1
+     */
+    public void increment(long key) {
+        add(key, 1);
+    }
+
+    /**
+     * 计数增加delta（delta必须为正数）
+     */
+    public void add(long key, int delta) {
+        int slot = slot(key);
+        while (counts[slot] != 0) {
+            if (keys[slot] == key) {
+                counts[slot] += delta;
+                total += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = delta;
+        total += delta;
+        if (++size > (int) (keys.length * LOAD_FACTOR)) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * 获取计数，不存在时返回0
+     */
+    public int get(long key) {
+        int slot = slot(key);
+        while (counts[slot] != 0) {
+            if (keys[slot] == key) {
+                return counts[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * 不同key的个数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 所有计数之和
+     */
+    public long total() {
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // ====================== 槽位遍历（无需创建迭代器对象） ======================
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public boolean isOccupied(int slot) {
+        return counts[slot] != 0;
+    }
+
+    public long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public int countAt(int slot) {
+        return counts[slot];
+    }
+
+    // ====================== 统计量 ======================
+
+    /**
+     * 香农熵（自然对数），与原 HashMap 版本的 -Σ p·ln(p) 公式一致
+     */
+    public double entropy() {
+        if (total == 0) return 0.0;
+        double entropy = 0.0;
+        for (int i = 0; i < counts.length; i++) {
+            int c = counts[i];
+            if (c != 0) {
+                double p = (double) c / total;
+                entropy += -p * Math.log(p);
+            }
+        }
+        return entropy;
+    }
+
+    /**
+     * 计数平方和（即向量模长的平方）
+     */
+    public double sumOfSquares() {
+        double sum = 0.0;
+        for (int c : counts) {
+            sum += (double) c * c;
+        }
+        return sum;
+    }
+
+    /**
+     * 与另一个计数表的点积（遍历较小的一方）
+     */
+    public double dot(LongCountTable other) {
+        LongCountTable small = this.size <= other.size ? this : other;
+        LongCountTable large = small == this ? other : this;
+        double dot = 0.0;
+        for (int i = 0; i < small.counts.length; i++) {
+            int a = small.counts[i];
+            if (a != 0) {
+                int b = large.get(small.keys[i]);
+                if (b != 0) {
+                    dot += (double) a * b;
+                }
+            }
+        }
+        return dot;
+    }
+
+    /**
+     * 余弦相似度，任一向量为空时返回0
+     */
+    public double cosine(LongCountTable other) {
+        double n1 = sumOfSquares();
+        double n2 = other.sumOfSquares();
+        if (n1 == 0.0 || n2 == 0.0) return 0.0;
+        return dot(other) / (Math.sqrt(n1) * Math.sqrt(n2));
+    }
+
+    // ====================== 内部实现 ======================
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[newCapacity];
+        counts = new int[newCapacity];
+        mask = newCapacity - 1;
+        for (int i = 0; i < oldCounts.length; i++) {
+            int c = oldCounts[i];
+            if (c != 0) {
+                int slot = slot(oldKeys[i]);
+                while (counts[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = c;
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.sunnyday.lychat.analysis;
+
+/**
+ * 字符n-gram特征（一次遍历同时统计2-gram、3-gram、4-gram）
+ *
+ * 实现要点：
+ * 1、按码点遍历文本，代理对（surrogate pair）作为一个字符处理
+ * 2、每个码点映射为16位符号，4个符号正好打包进一个long，作为n-gram的key滚动更新，不创建任何子串
+ * 3、BMP字符直接使用码点本身；BMP以外的码点按固定散列映射到代理区 U+D800~U+DFFF（孤立代理项保持原值），
+ *    该区间在合法文本中不会单独出现，因此不会与普通字符冲突；映射与文档无关，模板与文档中同一字符的符号相同
+ *
+ * 对于纯BMP文本（日文、中文常用字均属于BMP），统计结果与原来按 substring 计数完全一致
+ */
+public final class NgramFeatures {
+
+    private static final int SURROGATE_BASE = 0xD800;
+    /** 代理区共 2^11 个符号 */
+    private static final int SURROGATE_BITS = 11;
+
+    /**
+     * 计数表初始容量的上限（不同n-gram数）
+     * 不同n-gram数远小于码点数，长文档也从较小的表开始、按需扩容，避免读入文本前就按全文长度分配三张大表
+     */
+    private static final int MAX_INITIAL_ENTRIES = 4096;
+
+    private final LongCountTable bigrams;
+    private final LongCountTable trigrams;
+    private final LongCountTable fourgrams;
+
+    /** 滚动窗口：最近4个符号，每个符号16位 */
+    private long window;
+    private int codePointCount;
+
+    /** 增量输入时尚未配对的高代理项（0表示没有） */
+    private char pendingHigh;
+
+    private NgramFeatures(int expectedCodePoints) {
+        int initialEntries = Math.min(expectedCodePoints, MAX_INITIAL_ENTRIES);
+        this.bigrams = new LongCountTable(initialEntries);
+        this.trigrams = new LongCountTable(initialEntries);
+        this.fourgrams = new LongCountTable(initialEntries);
+    }
+
+    /**
+     * 一次遍历提取文本的2/3/4-gram统计
+     *
+     * @param text 文本（通常为归一化后的文本）
+     * @return n-gram特征
+     */
+    public static NgramFeatures extract(CharSequence text) {
+        NgramFeatures features = new NgramFeatures(text.length());
+        int len = text.length();
+        for (int i = 0; i < len; ) {
+            char c = text.charAt(i++);
+            int cp = c;
+            if (Character.isHighSurrogate(c) && i < len && Character.isLowSurrogate(text.charAt(i))) {
+                cp = Character.toCodePoint(c, text.charAt(i++));
+            }
+            features.accept(cp);
+        }
+        return features;
+    }
+
+    /**
+     * 创建空的n-gram统计，之后用 append 逐字符输入（文本可以分段到达），最后调用 flush
+     *
+     * @param expectedCodePoints 预计码点数（只影响初始容量，不超过 MAX_INITIAL_ENTRIES）
+     */
+    public static NgramFeatures incremental(int expectedCodePoints) {
+        return new NgramFeatures(expectedCodePoints);
+    }
+
+    /**
+     * 增量输入一个char；代理对跨两次调用时自动合并为一个码点
+     */
+    public void append(char c) {
+        if (pendingHigh != 0) {
+            char high = pendingHigh;
+            pendingHigh = 0;
+            if (Character.isLowSurrogate(c)) {
+                accept(Character.toCodePoint(high, c));
+                return;
+            }
+            accept(high);
+        }
+        if (Character.isHighSurrogate(c)) {
+            pendingHigh = c;
+        } else {
+            accept(c);
+        }
+    }
+
+    /**
+     * 增量输入结束：末尾孤立的高代理项按单独的字符计入
+     */
+    public void flush() {
+        if (pendingHigh != 0) {
+            accept(pendingHigh);
+            pendingHigh = 0;
+        }
+    }
+
+    private void accept(int codePoint) {
+        window = (window << 16) | symbol(codePoint);
+        codePointCount++;
+        if (codePointCount >= 2) bigrams.increment(window & 0xFFFFFFFFL);
+        if (codePointCount >= 3) trigrams.increment(window & 0xFFFFFFFFFFFFL);
+        if (codePointCount >= 4) fourgrams.increment(window);
+    }
+
+    /**
+     * 码点对应的16位符号：BMP字符（含孤立代理项）为码点本身，BMP以外的码点按乘法散列取高11位映射到代理区。
+     * 不同的扩展字符（emoji、CJK扩展B区汉字等）可能共用一个符号，这类字符在文书中很少，对熵和相似度的影响可以忽略
+     */
+    static int symbol(int codePoint) {
+        if (codePoint <= 0xFFFF) {
+            return codePoint;
+        }
+        return SURROGATE_BASE + ((codePoint * 0x9E3779B1) >>> (32 - SURROGATE_BITS));
+    }
+
+    /**
+     * 以最近一个码点结尾的n-gram的key（n为2、3、4；码点数不足n时没有意义），供增量分析逐句统计
+     */
+    long lastKey(int n) {
+        return n >= 4 ? window : window & ((1L << (16 * n)) - 1);
+    }
+
+    public LongCountTable bigrams() {
+        return bigrams;
+    }
+
+    public LongCountTable trigrams() {
+        return trigrams;
+    }
+
+    public LongCountTable fourgrams() {
+        return fourgrams;
+    }
+
+    /**
+     * 码点个数（纯BMP文本时等于 String.length()）
+     */
+    public int codePointCount() {
+        return codePointCount;
+    }
+}
@@ -0,0 +1,131 @@
+package com.sunnyday.lychat.analysis;
+
+/**
+ * 可增可减的 long -> int 计数表，随计数变化滚动维护 Σc、Σc·ln(c)、Σc²（供 DraftDocument 增量重算）
+ *
+ * 熵 = ln(Σc) - Σc·ln(c) / Σc，与 LongCountTable.entropy() 的 -Σ p·ln(p) 在数学上相等，
+ * 只是浮点累加顺序不同；模长的平方即 Σc²。计数减到0的key保留槽位，扩容时一并清理。
+ */
+final class RunningCountTable {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] counts;
+    private boolean[] used;
+    private int mask;
+    /** 占用的槽位数（含计数为0的key） */
+    private int occupied;
+    /** 计数大于0的key个数 */
+    private int size;
+
+    private long total;
+    private double sumCLogC;
+    private double sumOfSquares;
+
+    RunningCountTable(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * 计数增加delta（可以为负，结果不能小于0）
+     *
+     * @return 修改前的计数
+     */
+    int add(long key, int delta) {
+        int slot = slot(key);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                int old = counts[slot];
+                update(slot, old, old + delta);
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (delta < 0) {
+            throw new IllegalStateException("计数不能为负: " + key);
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        update(slot, 0, delta);
+        if (++occupied > (int) (keys.length * LOAD_FACTOR)) {
+            rehash();
+        }
+        return 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long total() {
+        return total;
+    }
+
+    /**
+     * 香农熵（自然对数）
+     */
+    double entropy() {
+        if (total == 0) return 0.0;
+        return Math.max(0.0, Math.log(total) - sumCLogC / total);
+    }
+
+    double sumOfSquares() {
+        return sumOfSquares;
+    }
+
+    private void update(int slot, int oldCount, int newCount) {
+        if (newCount < 0) {
+            throw new IllegalStateException("计数不能为负: " + keys[slot]);
+        }
+        counts[slot] = newCount;
+        total += newCount - oldCount;
+        sumCLogC += cLogC(newCount) - cLogC(oldCount);
+        sumOfSquares += (double) newCount * newCount - (double) oldCount * oldCount;
+        if (oldCount == 0 && newCount > 0) {
+            size++;
+        } else if (oldCount > 0 && newCount == 0) {
+            size--;
+        }
+    }
+
+    private static double cLogC(int c) {
+        return c <= 1 ? 0.0 : c * Math.log(c);
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        boolean[] oldUsed = used;
+        allocate(capacityFor(size * 2));
+        occupied = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i] && oldCounts[i] != 0) {
+                int slot = slot(oldKeys[i]);
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                occupied++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        return Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+    }
+}
@@ -0,0 +1,132 @@
+package com.sunnyday.lychat.analysis;
+
+import java.util.Arrays;
+
+/**
+ * 逐句AI痕迹热力图（由 StreamingTextAnalyzer 在同一遍扫描中填充）
+ *
+ * 每句只记录若干整数统计量（原文起止偏移、句长、4-gram新颖数、模板3-gram数、逻辑词数、情绪分），
+ * 结束时对这些量做前缀和，每句取前后 window 句组成的窗口按文档级公式的局部版本打分，
+ * 不对每个窗口重新运行评分。窗口内各项的含义：
+ * 1、4-gram新颖度：窗口内以正文字符结尾的4-gram中，此前文档里从未出现过的比例（对应语言复杂度与主题熵）
+ * 2、句长波动：窗口内句长的变异系数（对应句式波动）
+ * 3、模板3-gram占比：窗口内3-gram中属于模板特征的比例（对应模板相似度）
+ * 4、逻辑词密度、情绪分方差：与文档级公式相同
+ *
+ * 新颖度以前文为参照，文档开头几句的新颖度天然偏高，热力图用于定位相对更像AI的段落，不替代文档级AI率。
+ */
+public final class SentenceHeatmap {
+
+    private static final int FIELDS = 8;
+    private static final int RAW_START = 0;
+    private static final int RAW_END = 1;
+    private static final int LENGTH = 2;
+    private static final int FOURGRAMS = 3;
+    private static final int NOVEL_FOURGRAMS = 4;
+    private static final int TRIGRAMS = 5;
+    private static final int TEMPLATE_TRIGRAMS = 6;
+    private static final int LOGIC = 7;
+
+    /** 每句 FIELDS 个整数 */
+    private int[] sentences = new int[FIELDS * 64];
+    /** 每句情绪分（正向词种类数 - 负向词种类数） */
+    private int[] emotions = new int[64];
+    private int size;
+
+    SentenceHeatmap() {
+    }
+
+    void add(long rawStart, long rawEnd, int length, int fourgrams, int novelFourgrams,
+             int trigrams, int templateTrigrams, int logic, int emotion) {
+        if (size == emotions.length) {
+            sentences = Arrays.copyOf(sentences, sentences.length << 1);
+            emotions = Arrays.copyOf(emotions, emotions.length << 1);
+        }
+        int base = size * FIELDS;
+        sentences[base + RAW_START] = (int) Math.min(Integer.MAX_VALUE, rawStart);
+        sentences[base + RAW_END] = (int) Math.min(Integer.MAX_VALUE, rawEnd);
+        sentences[base + LENGTH] = length;
+        sentences[base + FOURGRAMS] = fourgrams;
+        sentences[base + NOVEL_FOURGRAMS] = novelFourgrams;
+        sentences[base + TRIGRAMS] = trigrams;
+        sentences[base + TEMPLATE_TRIGRAMS] = templateTrigrams;
+        sentences[base + LOGIC] = logic;
+        emotions[size] = emotion;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 计算逐句分数
+     *
+     * @param window 每句向前、向后各取的句数
+     * @return 每句3个整数：原文起始偏移（包含）、原文结束偏移（不包含）、AI痕迹分（0-100，越高越像AI生成）
+     */
+    public int[] spans(int window) {
+        // 前缀和：prefix[(i + 1) * FIELDS + f] = 前i+1句第f项之和；句长与情绪分另需平方和
+        long[] prefix = new long[(size + 1) * FIELDS];
+        long[] lengthSquares = new long[size + 1];
+        long[] emotionSums = new long[size + 1];
+        long[] emotionSquares = new long[size + 1];
+        for (int i = 0; i < size; i++) {
+            int base = i * FIELDS;
+            for (int f = LENGTH; f < FIELDS; f++) {
+                prefix[base + FIELDS + f] = prefix[base + f] + sentences[base + f];
+            }
+            long length = sentences[base + LENGTH];
+            lengthSquares[i + 1] = lengthSquares[i] + length * length;
+            emotionSums[i + 1] = emotionSums[i] + emotions[i];
+            emotionSquares[i + 1] = emotionSquares[i] + (long) emotions[i] * emotions[i];
+        }
+
+        int[] spans = new int[size * 3];
+        for (int i = 0; i < size; i++) {
+            int from = Math.max(0, i - window);
+            int to = Math.min(size, i + window + 1);
+            int n = to - from;
+            long chars = sum(prefix, from, to, LENGTH);
+            long fourgrams = sum(prefix, from, to, FOURGRAMS);
+            long trigrams = sum(prefix, from, to, TRIGRAMS);
+
+            double novelty = fourgrams == 0 ? 0.5 : (double) sum(prefix, from, to, NOVEL_FOURGRAMS) / fourgrams;
+            double mean = (double) chars / n;
+            double lengthVariance = variance(n, chars, lengthSquares[to] - lengthSquares[from]);
+            double burstiness = n < 2 || mean <= 0 ? 0.5 : smoothRatio(Math.sqrt(lengthVariance) / mean, 0.5);
+            double template = trigrams == 0 ? 0.0 : (double) sum(prefix, from, to, TEMPLATE_TRIGRAMS) / trigrams;
+            double reasoning = chars == 0 ? 0.45
+                    : 0.4 + 0.6 * smoothRatio((double) sum(prefix, from, to, LOGIC) / chars, 0.003);
+            double emotion = 0.4 + 0.6 * smoothRatio(variance(n, emotionSums[to] - emotionSums[from],
+                    emotionSquares[to] - emotionSquares[from]), 0.8);
+
+            // 权重与文档级AI率一致，语言复杂度与主题熵两项合并为新颖度
+            double aiLike = 0.55 * (1 - novelty)
+                    + 0.20 * (1 - burstiness)
+                    + 0.15 * template
+                    + 0.05 * (1 - reasoning)
+                    + 0.05 * (1 - emotion);
+
+            int base = i * FIELDS;
+            spans[i * 3] = sentences[base + RAW_START];
+            spans[i * 3 + 1] = sentences[base + RAW_END];
+            spans[i * 3 + 2] = (int) Math.round(Math.min(1.0, Math.max(0.0, aiLike)) * 100.0);
+        }
+        return spans;
+    }
+
+    private static long sum(long[] prefix, int from, int to, int field) {
+        return prefix[to * FIELDS + field] - prefix[from * FIELDS + field];
+    }
+
+    private static double variance(int n, long sum, long sumSquared) {
+        double numerator = (double) n * sumSquared - (double) sum * sum;
+        return Math.max(0.0, numerator / ((double) n * n));
+    }
+
+    private static double smoothRatio(double x, double c) {
+        if (x <= 0) return 0.0;
+        return x / (x + c);
+    }
+}
@@ -0,0 +1,91 @@
+package com.sunnyday.lychat.analysis;
+
+import java.util.Arrays;
+
+/**
+ * 句子切分结果（只记录起止偏移，不创建子串）
+ *
+ * 规则与原 text.split("[。！？!?.\\n]") + trim + 过滤空串 一致：
+ * 按断句符号切分，每段去掉首尾空白（<= U+0020 的字符），空段丢弃
+ */
+public final class SentenceSpans {
+
+    private int[] starts;
+    private int[] ends;
+    private int size;
+
+    private SentenceSpans(int capacity) {
+        starts = new int[capacity];
+        ends = new int[capacity];
+    }
+
+    public static SentenceSpans split(CharSequence text) {
+        SentenceSpans spans = new SentenceSpans(16);
+        int segStart = 0;
+        int len = text.length();
+        for (int i = 0; i <= len; i++) {
+            if (i == len || isDelimiter(text.charAt(i))) {
+                int s = segStart;
+                int e = i;
+                while (s < e && text.charAt(s) <= ' ') s++;
+                while (e > s && text.charAt(e - 1) <= ' ') e--;
+                if (e > s) {
+                    spans.add(s, e);
+                }
+                segStart = i + 1;
+            }
+        }
+        return spans;
+    }
+
+    public static boolean isDelimiter(char c) {
+        return c == '。' || c == '！' || c == '？' || c == '!' || c == '?' || c == '.' || c == '\n';
+    }
+
+    private void add(int start, int end) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size << 1);
+            ends = Arrays.copyOf(ends, size << 1);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int start(int i) {
+        return starts[i];
+    }
+
+    public int end(int i) {
+        return ends[i];
+    }
+
+    /**
+     * 第i句的长度（char数，与原 String.length() 一致）
+     */
+    public int length(int i) {
+        return ends[i] - starts[i];
+    }
+
+    /**
+     * 把词库命中归属到句子：返回每个命中所在的句子序号，跨句或落在句外的命中为-1
+     */
+    public int[] locate(LexiconHits hits) {
+        int[] sentenceOf = new int[hits.size()];
+        int s = 0;
+        for (int h = 0; h < hits.size(); h++) {
+            // 命中按结束偏移升序，句子也按偏移升序，双指针即可
+            while (s < size && ends[s] < hits.end(h)) s++;
+            sentenceOf[h] = (s < size && hits.start(h) >= starts[s]) ? s : -1;
+        }
+        return sentenceOf;
+    }
+}
@@ -0,0 +1,80 @@
+package com.sunnyday.lychat.analysis;
+
+/**
+ * 平滑映射评分（v2、v3）：熵用 logistic 映射，句长变异系数、逻辑词密度、情绪方差用 x/(x+c) 映射，
+ * 两侧渐近0/1而不截断；逻辑词与情绪两项另加基准分，避免情绪平稳、逻辑词少的志望理由书普遍得分过低
+ */
+final class SmoothAiScorer implements AiScorer {
+
+    private final String version;
+    /** 逻辑词、情绪两项的基准分：score = baseline + (1 - baseline) * x/(x+c) */
+    private final double baseline;
+    /** 没有句子时逻辑词、情绪两项的默认分 */
+    private final double neutral;
+    private final double[] weights;
+
+    SmoothAiScorer(String version, double baseline, double neutral, double[] weights) {
+        this.version = version;
+        this.baseline = baseline;
+        this.neutral = neutral;
+        this.weights = weights;
+    }
+
+    @Override
+    public String version() {
+        return version;
+    }
+
+    @Override
+    public AiScoreCard score(TextStatistics statistics) {
+        return AiScorers.combine(weights,
+                languageComplexity(statistics),
+                burstiness(statistics),
+                topicEntropy(statistics),
+                reasoningComplexity(statistics),
+                emotionVariance(statistics),
+                AiScorers.clamp(statistics.templateMatch().getMaxSimilarity()));
+    }
+
+    // 4-gram熵大多在 [1.5, 4.5]，中点2.8附近最敏感
+    private double languageComplexity(TextStatistics statistics) {
+        if (statistics.codePointCount() < 12) return 0.5;
+        return AiScorers.clamp(logistic(statistics.fourgramEntropy(), 2.8, 1.0));
+    }
+
+    private double burstiness(TextStatistics statistics) {
+        if (statistics.sentenceCount() == 0) return 0.5;
+        double mean = statistics.sentenceLengthMean();
+        if (mean <= 0) return 0.5;
+        double ratio = Math.sqrt(statistics.sentenceLengthVariance()) / mean;
+        return AiScorers.clamp(smoothRatio(ratio, 0.5));
+    }
+
+    // 2-gram熵大多在 [0.5, 3.0]
+    private double topicEntropy(TextStatistics statistics) {
+        if (statistics.codePointCount() < 5) return 0.5;
+        return AiScorers.clamp(logistic(statistics.bigramEntropy(), 1.8, 1.2));
+    }
+
+    // 志望理由书的逻辑词密度一般在 0 ~ 0.01
+    private double reasoningComplexity(TextStatistics statistics) {
+        if (statistics.sentenceCount() == 0 || statistics.sentenceChars() == 0) return neutral;
+        double density = (double) statistics.logicCount() / statistics.sentenceChars();
+        return AiScorers.clamp(baseline + (1 - baseline) * smoothRatio(density, 0.003));
+    }
+
+    // 情绪分方差一般在 0 ~ 2
+    private double emotionVariance(TextStatistics statistics) {
+        if (statistics.sentenceCount() == 0) return neutral;
+        return AiScorers.clamp(baseline + (1 - baseline) * smoothRatio(statistics.emotionVariance(), 0.8));
+    }
+
+    private static double smoothRatio(double x, double c) {
+        if (x <= 0) return 0.0;
+        return x / (x + c);
+    }
+
+    private static double logistic(double x, double mid, double k) {
+        return 1.0 / (1.0 + Math.exp(-k * (x - mid)));
+    }
+}
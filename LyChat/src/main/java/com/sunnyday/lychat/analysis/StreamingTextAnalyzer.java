@@ -0,0 +1,306 @@
+package com.sunnyday.lychat.analysis;
+
+import java.util.Arrays;
+
+/**
+ * 增量文本分析器：文本分段到达（逐页、逐段），边读边统计，不拼接全文
+ *
+ * 规则与一次性分析完全一致：
+ * 1、归一化（TextNormalizer.normalize）在线完成：连续空白合并为一个空格，首部空白直接丢弃，
+ *    尾部空白先挂起，后面出现正文字符时才输出，因此文本结束时自然去掉了尾部空白
+ * 2、断句规则同 SentenceSpans：每句只记录长度，句长的个数、和、平方和滚动累加
+ * 3、词库命中由 Aho-Corasick 状态跨分段延续；命中按 SentenceSpans.locate 的规则归属到当前句
+ *    （只计入完全落在句子首尾非空白字符之间的命中），
+ *    逻辑词按词条去重叠计数，情绪词按句去重后把每句情绪分的和、平方和滚动累加
+ * 4、n-gram 由 NgramFeatures 增量统计，代理对被拆在两个分段之间时同样合并为一个码点；结束时计算熵并与模板库匹配
+ *
+ * 5、可选逐句热力图（withHeatmap）：同一遍扫描中为每句记录原文偏移和局部统计量，见 SentenceHeatmap
+ *
+ * 除n-gram计数表（只随不同n-gram的种类数增长）和可选的热力图（每句8个整数）外，状态大小与文档长度无关。
+ * 非线程安全，一个实例只分析一篇文档：accept 若干次后调用一次 finish。
+ */
+public final class StreamingTextAnalyzer {
+
+    private static final int DEFAULT_EXPECTED_CHARS = 4096;
+
+    private final LexiconMatcher lexicon;
+    private final TemplateIndex templates;
+    private final int topK;
+    private final NgramFeatures ngrams;
+
+    // ---------- 归一化 ----------
+    /** 是否已输出过正文字符（之前的空白属于首部，直接丢弃） */
+    private boolean started;
+    /** 上一个原始字符是否为空白（\s），连续空白只输出一个空格 */
+    private boolean inWhitespace;
+    /** 挂起的尾部空白（归一化后），后面出现正文字符时才输出 */
+    private final StringBuilder pending = new StringBuilder();
+    /** 已输出的归一化字符数，即下一个字符在归一化文本中的偏移 */
+    private long position;
+    /** 已输入的原始字符数 */
+    private long rawPosition;
+
+    // ---------- 句子 ----------
+    /** 当前句第一个/最后一个非空白字符的偏移，-1表示当前句还没有内容 */
+    private long sentenceStart = -1;
+    private long sentenceLast = -1;
+    private int sentenceCount;
+    private long sentenceChars;
+    private long sentenceCharsSquared;
+
+    // ---------- 词库 ----------
+    private int state;
+    /** 每个词条上一次计数的逻辑词命中的结束偏移（同一词条只统计互不重叠的出现） */
+    private final long[] lastLogicEnd;
+    /** 每个词条最后一次计入情绪分的句子序号 + 1（同一句中同一个词只算一次） */
+    private final int[] seenInSentence;
+    private int logicCount;
+    private int sentenceEmotion;
+    private long emotionSum;
+    private long emotionSumSquared;
+
+    /**
+     * 以句内空白结尾的命中：句子后面还有正文时才属于该句，先挂起，断句时丢弃
+     * （词库约定词条不含空白，正常情况下始终为空）
+     */
+    private int[] pendingHitPatterns = new int[4];
+    private long[] pendingHitStarts = new long[4];
+    private int pendingHits;
+
+    // ---------- 热力图（可选） ----------
+    private SentenceHeatmap heatmap;
+    /** 当前句在原文中的起始偏移（包含）、结束偏移（不包含） */
+    private long sentenceRawStart;
+    private long sentenceRawEnd;
+    private int sentenceFourgrams;
+    private int sentenceNovelFourgrams;
+    private int sentenceTrigrams;
+    private int sentenceTemplateTrigrams;
+    private int sentenceLogic;
+
+    private boolean finished;
+
+    public StreamingTextAnalyzer(LexiconMatcher lexicon, TemplateIndex templates, int topK) {
+        this(lexicon, templates, topK, DEFAULT_EXPECTED_CHARS);
+    }
+
+    /**
+     * @param lexicon       词库匹配器
+     * @param templates     模板索引
+     * @param topK          返回的最相似模板个数
+     * @param expectedChars 预计文本长度（只影响n-gram计数表的初始容量）
+     */
+    public StreamingTextAnalyzer(LexiconMatcher lexicon, TemplateIndex templates, int topK, int expectedChars) {
+        this.lexicon = lexicon;
+        this.templates = templates;
+        this.topK = topK;
+        this.ngrams = NgramFeatures.incremental(expectedChars);
+        this.state = lexicon.initialState();
+        this.lastLogicEnd = new long[lexicon.patternCount()];
+        this.seenInSentence = new int[lexicon.patternCount()];
+    }
+
+    /**
+     * 同时生成逐句热力图，必须在第一次 accept 之前调用
+     *
+     * @return this，便于链式调用
+     */
+    public StreamingTextAnalyzer withHeatmap() {
+        if (rawPosition > 0) {
+            throw new IllegalStateException("热力图必须在输入文本之前开启");
+        }
+        this.heatmap = new SentenceHeatmap();
+        return this;
+    }
+
+    /**
+     * 输入一段原始文本（可以在任意位置切分，包括代理对和连续空白的中间）
+     *
+     * @return this，便于链式调用
+     */
+    public StreamingTextAnalyzer accept(CharSequence chunk) {
+        if (finished) {
+            throw new IllegalStateException("分析已结束，不能继续输入");
+        }
+        int len = chunk.length();
+        for (int i = 0; i < len; i++, rawPosition++) {
+            char c = chunk.charAt(i);
+            if (isWhitespace(c)) {
+                if (!inWhitespace && started) {
+                    pending.append(' ');
+                }
+                inWhitespace = true;
+                continue;
+            }
+            inWhitespace = false;
+            if (c <= ' ') {
+                // 非\s的控制字符不参与合并，但同样属于 trim 去掉的首尾空白
+                if (started) {
+                    pending.append(c);
+                }
+                continue;
+            }
+            if (pending.length() > 0) {
+                for (int p = 0; p < pending.length(); p++) {
+                    emit(pending.charAt(p), -1);
+                }
+                pending.setLength(0);
+            }
+            started = true;
+            emit(c, rawPosition);
+        }
+        return this;
+    }
+
+    /**
+     * 输入结束，返回统计结果（只能调用一次）
+     */
+    public TextStatistics finish() {
+        if (finished) {
+            throw new IllegalStateException("分析已结束");
+        }
+        finished = true;
+        // 挂起的尾部空白即 trim 去掉的部分，丢弃；文本末尾视为一个断句位置
+        pending.setLength(0);
+        closeSentence();
+        ngrams.flush();
+        return new TextStatistics(ngrams.codePointCount(), ngrams.bigrams().entropy(), ngrams.fourgrams().entropy(),
+                templates.match(ngrams.trigrams(), topK), position, sentenceCount, sentenceChars,
+                sentenceCharsSquared, logicCount, emotionSum, emotionSumSquared, heatmap);
+    }
+
+    /**
+     * n-gram计数表（finish 之后供 DraftDocument 按段落保存）
+     */
+    NgramFeatures ngrams() {
+        return ngrams;
+    }
+
+    /**
+     * 处理归一化文本中的一个字符
+     *
+     * @param rawOffset 该字符在原文中的偏移（挂起后输出的空白为-1，空白不会成为句子首尾）
+     */
+    private void emit(char c, long rawOffset) {
+        long offset = position++;
+        int codePoints = ngrams.codePointCount();
+        ngrams.append(c);
+        state = lexicon.nextState(state, c);
+        if (SentenceSpans.isDelimiter(c)) {
+            // 以断句符号结尾的命中跨出了句子，不计入
+            closeSentence();
+            return;
+        }
+        if (c <= ' ') {
+            // 以空白结尾的命中：在句首空白上的不属于任何句子，其余要等句子后面出现正文才能确定
+            if (sentenceStart >= 0) {
+                for (int p : lexicon.outputs(state)) {
+                    long start = offset + 1 - lexicon.pattern(p).length();
+                    if (start >= sentenceStart) {
+                        holdHit(p, start);
+                    }
+                }
+            }
+            return;
+        }
+        if (sentenceStart < 0) {
+            sentenceStart = offset;
+            sentenceRawStart = rawOffset;
+        }
+        sentenceLast = offset;
+        sentenceRawEnd = rawOffset + 1;
+        if (heatmap != null && ngrams.codePointCount() > codePoints) {
+            countGrams();
+        }
+        for (int h = 0; h < pendingHits; h++) {
+            countHit(pendingHitPatterns[h], pendingHitStarts[h]);
+        }
+        pendingHits = 0;
+        for (int p : lexicon.outputs(state)) {
+            long start = offset + 1 - lexicon.pattern(p).length();
+            if (start >= sentenceStart) {
+                countHit(p, start);
+            }
+        }
+    }
+
+    /**
+     * 计入一个句内命中（命中按结束偏移升序到达）
+     */
+    private void countHit(int p, long start) {
+        LexiconCategory category = lexicon.category(p);
+        if (category == LexiconCategory.LOGIC) {
+            if (start >= lastLogicEnd[p]) {
+                logicCount++;
+                sentenceLogic++;
+                lastLogicEnd[p] = start + lexicon.pattern(p).length();
+            }
+        } else if (category == LexiconCategory.POSITIVE || category == LexiconCategory.NEGATIVE) {
+            if (seenInSentence[p] != sentenceCount + 1) {
+                sentenceEmotion += category == LexiconCategory.POSITIVE ? 1 : -1;
+                seenInSentence[p] = sentenceCount + 1;
+            }
+        }
+    }
+
+    /**
+     * 热力图：统计以当前码点结尾的3-gram、4-gram
+     */
+    private void countGrams() {
+        int codePoints = ngrams.codePointCount();
+        if (codePoints >= 3) {
+            sentenceTrigrams++;
+            if (templates.isTemplateTrigram(ngrams.lastKey(3))) {
+                sentenceTemplateTrigrams++;
+            }
+        }
+        if (codePoints >= 4) {
+            sentenceFourgrams++;
+            // 刚计入的4-gram计数为1，说明此前从未出现
+            if (ngrams.fourgrams().get(ngrams.lastKey(4)) == 1) {
+                sentenceNovelFourgrams++;
+            }
+        }
+    }
+
+    private void holdHit(int p, long start) {
+        if (pendingHits == pendingHitPatterns.length) {
+            pendingHitPatterns = Arrays.copyOf(pendingHitPatterns, pendingHits << 1);
+            pendingHitStarts = Arrays.copyOf(pendingHitStarts, pendingHits << 1);
+        }
+        pendingHitPatterns[pendingHits] = p;
+        pendingHitStarts[pendingHits] = start;
+        pendingHits++;
+    }
+
+    private void closeSentence() {
+        if (sentenceStart >= 0) {
+            long length = sentenceLast - sentenceStart + 1;
+            sentenceCount++;
+            sentenceChars += length;
+            sentenceCharsSquared += length * length;
+            emotionSum += sentenceEmotion;
+            emotionSumSquared += (long) sentenceEmotion * sentenceEmotion;
+            if (heatmap != null) {
+                heatmap.add(sentenceRawStart, sentenceRawEnd, (int) length, sentenceFourgrams, sentenceNovelFourgrams,
+                        sentenceTrigrams, sentenceTemplateTrigrams, sentenceLogic, sentenceEmotion);
+            }
+        }
+        sentenceStart = -1;
+        sentenceLast = -1;
+        sentenceEmotion = 0;
+        sentenceFourgrams = 0;
+        sentenceNovelFourgrams = 0;
+        sentenceTrigrams = 0;
+        sentenceTemplateTrigrams = 0;
+        sentenceLogic = 0;
+        pendingHits = 0;
+    }
+
+    /**
+     * 与正则 \s 相同的空白字符集合
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
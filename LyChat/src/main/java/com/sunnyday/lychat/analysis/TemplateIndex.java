@@ -0,0 +1,386 @@
+package com.sunnyday.lychat.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 模板相似度索引（不可变，构建一次后多线程共享）
+ *
+ * 1、每个模板预先计算3-gram稀疏向量（按key排序）和向量模长，请求时不再重复构建
+ * 2、建立 3-gram -> 模板 的倒排表，查询时只访问与文档共享3-gram的模板，
+ *    与文档没有任何共同3-gram的模板（余弦为0）完全不参与计算，单次查询成本与模板库规模无关
+ * 3、出现在过多模板中的高频3-gram（倒排表长度超过 maxPostingLength）不参与候选召回，
+ *    但候选模板的最终相似度仍按完整向量精确计算
+ *
+ * 点积按整数计数累加、最后除以两个模长，与原 HashSet 并集遍历的余弦结果完全一致
+ */
+public final class TemplateIndex {
+
+    private static final TemplateIndex EMPTY = build(Collections.emptyList(), Collections.emptyList(), Integer.MAX_VALUE);
+
+    private final String[] ids;
+    private final long[][] vectorKeys;
+    private final int[][] vectorCounts;
+    private final double[] norms;
+
+    /** 倒排表：key -> posting序号（开放寻址），posting内容按offsets切分 */
+    private final long[] postingKeys;
+    private final int[] postingIndex;
+    private final int postingMask;
+    private final int[] postingOffsets;
+    private final int[] postingTemplates;
+    private final int[] postingCounts;
+
+    private final int maxPostingLength;
+
+    private TemplateIndex(String[] ids, long[][] vectorKeys, int[][] vectorCounts, double[] norms,
+                          long[] postingKeys, int[] postingIndex, int[] postingOffsets,
+                          int[] postingTemplates, int[] postingCounts, int maxPostingLength) {
+        this.ids = ids;
+        this.vectorKeys = vectorKeys;
+        this.vectorCounts = vectorCounts;
+        this.norms = norms;
+        this.postingKeys = postingKeys;
+        this.postingIndex = postingIndex;
+        this.postingMask = postingKeys.length - 1;
+        this.postingOffsets = postingOffsets;
+        this.postingTemplates = postingTemplates;
+        this.postingCounts = postingCounts;
+        this.maxPostingLength = maxPostingLength;
+    }
+
+    public static TemplateIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 构建模板索引
+     *
+     * @param templateIds 模板ID列表
+     * @param templateTexts 模板文本列表（与ID一一对应，会按分析服务同样的规则归一化）
+     * @param maxPostingLength 参与候选召回的倒排表最大长度
+     * @return 模板索引
+     */
+    public static TemplateIndex build(List<String> templateIds, List<String> templateTexts, int maxPostingLength) {
+        if (templateIds.size() != templateTexts.size()) {
+            throw new IllegalArgumentException("模板ID与模板文本数量不一致");
+        }
+        List<String> ids = new ArrayList<>();
+        List<long[]> keysList = new ArrayList<>();
+        List<int[]> countsList = new ArrayList<>();
+        List<Double> normList = new ArrayList<>();
+        LongCountTable documentFrequency = new LongCountTable(templateTexts.size() * 16);
+
+        for (int t = 0; t < templateTexts.size(); t++) {
+            LongCountTable vec = NgramFeatures.extract(TextNormalizer.normalize(templateTexts.get(t))).trigrams();
+            if (vec.isEmpty()) {
+                // 不足3个字符的模板与任何文档的余弦都为0，直接跳过
+                continue;
+            }
+            long[] keys = new long[vec.size()];
+            int k = 0;
+            for (int slot = 0; slot < vec.capacity(); slot++) {
+                if (vec.isOccupied(slot)) {
+                    keys[k++] = vec.keyAt(slot);
+                }
+            }
+            Arrays.sort(keys);
+            int[] counts = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                counts[i] = vec.get(keys[i]);
+                documentFrequency.increment(keys[i]);
+            }
+            ids.add(templateIds.get(t));
+            keysList.add(keys);
+            countsList.add(counts);
+            normList.add(Math.sqrt(vec.sumOfSquares()));
+        }
+
+        // 分配倒排表
+        int postings = documentFrequency.size();
+        int capacity = Integer.highestOneBit(Math.max(4, postings * 2) - 1) << 1;
+        long[] postingKeys = new long[capacity];
+        int[] postingIndex = new int[capacity];
+        Arrays.fill(postingIndex, -1);
+        int[] offsets = new int[postings + 1];
+        int p = 0;
+        for (int slot = 0; slot < documentFrequency.capacity(); slot++) {
+            if (documentFrequency.isOccupied(slot)) {
+                long key = documentFrequency.keyAt(slot);
+                int s = probe(postingKeys, postingIndex, capacity - 1, key);
+                postingKeys[s] = key;
+                postingIndex[s] = p;
+                offsets[p + 1] = offsets[p] + documentFrequency.countAt(slot);
+                p++;
+            }
+        }
+        int[] postingTemplates = new int[offsets[postings]];
+        int[] postingCounts = new int[offsets[postings]];
+        int[] fill = Arrays.copyOf(offsets, postings);
+        for (int t = 0; t < keysList.size(); t++) {
+            long[] keys = keysList.get(t);
+            int[] counts = countsList.get(t);
+            for (int i = 0; i < keys.length; i++) {
+                int idx = postingIndex[probe(postingKeys, postingIndex, capacity - 1, keys[i])];
+                int pos = fill[idx]++;
+                postingTemplates[pos] = t;
+                postingCounts[pos] = counts[i];
+            }
+        }
+
+        double[] norms = new double[normList.size()];
+        for (int i = 0; i < norms.length; i++) {
+            norms[i] = normList.get(i);
+        }
+        return new TemplateIndex(ids.toArray(new String[0]), keysList.toArray(new long[0][]),
+                countsList.toArray(new int[0][]), norms, postingKeys, postingIndex, offsets,
+                postingTemplates, postingCounts, maxPostingLength);
+    }
+
+    /**
+     * 模板数量
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * 3-gram是否为模板特征：至少出现在一个模板中，且不是参与召回时会被跳过的高频3-gram
+     * （用于逐句标注模板化程度）
+     */
+    public boolean isTemplateTrigram(long key) {
+        int p = postingIndex[probe(postingKeys, postingIndex, postingMask, key)];
+        return p >= 0 && postingOffsets[p + 1] - postingOffsets[p] <= maxPostingLength;
+    }
+
+    /**
+     * 查询与文档最相似的模板
+     *
+     * @param docTrigrams 文档的3-gram计数
+     * @param topK 返回的最相似模板个数
+     * @return 匹配结果
+     */
+    public TemplateMatch match(LongCountTable docTrigrams, int topK) {
+        if (docTrigrams.isEmpty() || ids.length == 0) {
+            return TemplateMatch.NONE;
+        }
+        double docNorm = Math.sqrt(docTrigrams.sumOfSquares());
+
+        // 1. 通过倒排表累加点积，同时收集候选模板
+        Accumulator acc = new Accumulator(64);
+        boolean skippedCommon = false;
+        for (int slot = 0; slot < docTrigrams.capacity(); slot++) {
+            if (!docTrigrams.isOccupied(slot)) continue;
+            int s = probe(postingKeys, postingIndex, postingMask, docTrigrams.keyAt(slot));
+            int p = postingIndex[s];
+            if (p < 0) continue;
+            int from = postingOffsets[p];
+            int to = postingOffsets[p + 1];
+            if (to - from > maxPostingLength) {
+                skippedCommon = true;
+                continue;
+            }
+            double a = docTrigrams.countAt(slot);
+            for (int i = from; i < to; i++) {
+                acc.add(postingTemplates[i], a * postingCounts[i]);
+            }
+        }
+
+        // 2. 计算候选模板的余弦相似度并保留TopK
+        TopK top = new TopK(topK);
+        for (int i = 0; i < acc.keys.length; i++) {
+            int t = acc.keys[i] - 1;
+            if (t < 0) continue;
+            double dot = skippedCommon ? exactDot(t, docTrigrams) : acc.values[i];
+            top.offer(t, dot / (docNorm * norms[t]));
+        }
+        return top.result(ids);
+    }
+
+    /**
+     * 文档某个3-gram的计数从 oldCount 变为 newCount 时，增量更新各模板的点积和召回计数（供 DraftDocument 使用）
+     *
+     * @param dots   每个模板与文档的点积（完整点积，含高频3-gram）
+     * @param shared 每个模板与文档共有的、参与召回的3-gram种类数，大于0的模板才是候选
+     */
+    void accumulate(long key, int oldCount, int newCount, double[] dots, int[] shared) {
+        int p = postingIndex[probe(postingKeys, postingIndex, postingMask, key)];
+        if (p < 0) return;
+        int from = postingOffsets[p];
+        int to = postingOffsets[p + 1];
+        boolean recall = to - from <= maxPostingLength;
+        int delta = newCount - oldCount;
+        for (int i = from; i < to; i++) {
+            int t = postingTemplates[i];
+            dots[t] += (double) delta * postingCounts[i];
+            if (recall) {
+                if (oldCount == 0 && newCount > 0) {
+                    shared[t]++;
+                } else if (oldCount > 0 && newCount == 0) {
+                    shared[t]--;
+                }
+            }
+        }
+    }
+
+    /**
+     * 由增量维护的点积计算匹配结果，与对同一文档调用 match 的结果一致
+     *
+     * @param docNorm 文档3-gram向量的模长
+     */
+    TemplateMatch rank(double[] dots, int[] shared, double docNorm, int topK) {
+        if (docNorm == 0.0 || ids.length == 0) {
+            return TemplateMatch.NONE;
+        }
+        TopK top = new TopK(topK);
+        for (int t = 0; t < ids.length; t++) {
+            if (shared[t] > 0) {
+                top.offer(t, dots[t] / (docNorm * norms[t]));
+            }
+        }
+        return top.result(ids);
+    }
+
+    private double exactDot(int template, LongCountTable docTrigrams) {
+        long[] keys = vectorKeys[template];
+        int[] counts = vectorCounts[template];
+        double dot = 0.0;
+        for (int i = 0; i < keys.length; i++) {
+            int a = docTrigrams.get(keys[i]);
+            if (a != 0) {
+                dot += (double) a * counts[i];
+            }
+        }
+        return dot;
+    }
+
+    private static int probe(long[] keys, int[] index, int mask, long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        int s = (int) (h ^ (h >>> 32)) & mask;
+        while (index[s] >= 0 && keys[s] != key) {
+            s = (s + 1) & mask;
+        }
+        return s;
+    }
+
+    /**
+     * 按相似度降序保留前K个模板
+     */
+    private static final class TopK {
+        final int[] templates;
+        final double[] scores;
+        int found;
+
+        TopK(int topK) {
+            int k = Math.max(1, topK);
+            templates = new int[k];
+            scores = new double[k];
+        }
+
+        void offer(int template, double sim) {
+            int k = templates.length;
+            if (found < k || sim > scores[found - 1]) {
+                int pos = found < k ? found++ : k - 1;
+                while (pos > 0 && scores[pos - 1] < sim) {
+                    scores[pos] = scores[pos - 1];
+                    templates[pos] = templates[pos - 1];
+                    pos--;
+                }
+                scores[pos] = sim;
+                templates[pos] = template;
+            }
+        }
+
+        TemplateMatch result(String[] ids) {
+            if (found == 0) {
+                return TemplateMatch.NONE;
+            }
+            List<String> topIds = new ArrayList<>(found);
+            for (int i = 0; i < found; i++) {
+                topIds.add(ids[templates[i]]);
+            }
+            return new TemplateMatch(scores[0], topIds, Arrays.copyOf(scores, found));
+        }
+    }
+
+    /**
+     * 模板序号 -> 点积 的稀疏累加器，大小只与候选模板数有关
+     */
+    private static final class Accumulator {
+        int[] keys;
+        double[] values;
+        int size;
+
+        Accumulator(int capacity) {
+            keys = new int[capacity];
+            values = new double[capacity];
+        }
+
+        void add(int template, double delta) {
+            int mask = keys.length - 1;
+            int s = (template * 0x9E3779B9) >>> 1 & mask;
+            while (keys[s] != 0) {
+                if (keys[s] == template + 1) {
+                    values[s] += delta;
+                    return;
+                }
+                s = (s + 1) & mask;
+            }
+            keys[s] = template + 1;
+            values[s] = delta;
+            if (++size > keys.length / 2) {
+                int[] oldKeys = keys;
+                double[] oldValues = values;
+                keys = new int[oldKeys.length << 1];
+                values = new double[oldKeys.length << 1];
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != 0) {
+                        add(oldKeys[i] - 1, oldValues[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 模板匹配结果
+     */
+    public static final class TemplateMatch {
+
+        public static final TemplateMatch NONE = new TemplateMatch(0.0, Collections.emptyList(), new double[0]);
+
+        private final double maxSimilarity;
+        private final List<String> templateIds;
+        private final double[] similarities;
+
+        TemplateMatch(double maxSimilarity, List<String> templateIds, double[] similarities) {
+            this.maxSimilarity = maxSimilarity;
+            this.templateIds = Collections.unmodifiableList(templateIds);
+            this.similarities = similarities;
+        }
+
+        /**
+         * 最大余弦相似度
+         */
+        public double getMaxSimilarity() {
+            return maxSimilarity;
+        }
+
+        /**
+         * 最相似的模板ID（按相似度降序）
+         */
+        public List<String> getTemplateIds() {
+            return templateIds;
+        }
+
+        /**
+         * 与 getTemplateIds() 一一对应的相似度
+         */
+        public double[] getSimilarities() {
+            return similarities.clone();
+        }
+    }
+}
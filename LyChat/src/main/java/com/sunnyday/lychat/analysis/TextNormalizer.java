@@ -0,0 +1,19 @@
+package com.sunnyday.lychat.analysis;
+
+/**
+ * 文本归一化工具
+ * 分析服务和模板库共用同一套规则，保证模板向量与文档向量在同一空间内比较
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * 合并连续空白为一个空格，并去掉首尾空白
+     */
+    public static String normalize(String s) {
+        if (s == null) return "";
+        return s.replaceAll("\\s+", " ").trim();
+    }
+}
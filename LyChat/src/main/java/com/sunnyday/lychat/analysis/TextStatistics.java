@@ -0,0 +1,140 @@
+package com.sunnyday.lychat.analysis;
+
+/**
+ * 文本统计量（StreamingTextAnalyzer、DraftDocument 的输出，6个维度的计算只依赖这些统计量）
+ *
+ * n-gram只保留熵和模板匹配结果；句长和每句情绪分只保留个数、和、平方和，方差由这三者得出，不保存逐句数据
+ */
+public final class TextStatistics {
+
+    private final int codePointCount;
+    private final double bigramEntropy;
+    private final double fourgramEntropy;
+    private final TemplateIndex.TemplateMatch templateMatch;
+    private final long normalizedLength;
+    private final int sentenceCount;
+    private final long sentenceChars;
+    private final long sentenceCharsSquared;
+    private final int logicCount;
+    private final long emotionSum;
+    private final long emotionSumSquared;
+    private final SentenceHeatmap heatmap;
+
+    TextStatistics(int codePointCount, double bigramEntropy, double fourgramEntropy,
+                   TemplateIndex.TemplateMatch templateMatch, long normalizedLength, int sentenceCount,
+                   long sentenceChars, long sentenceCharsSquared, int logicCount, long emotionSum,
+                   long emotionSumSquared, SentenceHeatmap heatmap) {
+        this.codePointCount = codePointCount;
+        this.bigramEntropy = bigramEntropy;
+        this.fourgramEntropy = fourgramEntropy;
+        this.templateMatch = templateMatch;
+        this.normalizedLength = normalizedLength;
+        this.sentenceCount = sentenceCount;
+        this.sentenceChars = sentenceChars;
+        this.sentenceCharsSquared = sentenceCharsSquared;
+        this.logicCount = logicCount;
+        this.emotionSum = emotionSum;
+        this.emotionSumSquared = emotionSumSquared;
+        this.heatmap = heatmap;
+    }
+
+    /**
+     * 归一化文本的码点个数
+     */
+    public int codePointCount() {
+        return codePointCount;
+    }
+
+    /**
+     * 2-gram分布的香农熵（自然对数）
+     */
+    public double bigramEntropy() {
+        return bigramEntropy;
+    }
+
+    /**
+     * 4-gram分布的香农熵（自然对数）
+     */
+    public double fourgramEntropy() {
+        return fourgramEntropy;
+    }
+
+    /**
+     * 3-gram向量与模板库的匹配结果
+     */
+    public TemplateIndex.TemplateMatch templateMatch() {
+        return templateMatch;
+    }
+
+    /**
+     * 归一化后的文本长度（char数，与 TextNormalizer.normalize(text).length() 一致）
+     */
+    public long normalizedLength() {
+        return normalizedLength;
+    }
+
+    public int sentenceCount() {
+        return sentenceCount;
+    }
+
+    /**
+     * 全部句子的字符数之和（不含断句符号和句首句尾空白）
+     */
+    public long sentenceChars() {
+        return sentenceChars;
+    }
+
+    /**
+     * 句长平均值，没有句子时为0
+     */
+    public double sentenceLengthMean() {
+        return sentenceCount == 0 ? 0.0 : (double) sentenceChars / sentenceCount;
+    }
+
+    /**
+     * 句长方差（总体方差），没有句子时为0
+     */
+    public double sentenceLengthVariance() {
+        return variance(sentenceCount, sentenceChars, sentenceCharsSquared);
+    }
+
+    long sentenceCharsSquared() {
+        return sentenceCharsSquared;
+    }
+
+    /**
+     * 句内互不重叠的逻辑词出现次数
+     */
+    public int logicCount() {
+        return logicCount;
+    }
+
+    /**
+     * 每句情绪分（正向词种类数 - 负向词种类数）的方差，没有句子时为0
+     */
+    public double emotionVariance() {
+        return variance(sentenceCount, emotionSum, emotionSumSquared);
+    }
+
+    long emotionSum() {
+        return emotionSum;
+    }
+
+    long emotionSumSquared() {
+        return emotionSumSquared;
+    }
+
+    /**
+     * 逐句热力图，分析时未开启（StreamingTextAnalyzer.withHeatmap）则为null
+     */
+    public SentenceHeatmap heatmap() {
+        return heatmap;
+    }
+
+    private static double variance(int n, long sum, long sumSquared) {
+        if (n == 0) return 0.0;
+        // 方差 = (n·Σx² - (Σx)²) / n²，和与平方和都是精确的整数
+        double numerator = (double) n * sumSquared - (double) sum * sum;
+        return Math.max(0.0, numerator / ((double) n * n));
+    }
+}
@@ -1,24 +1,54 @@
 package com.sunnyday.lychat.config;
 
+import com.sunnyday.lychat.memory.BoundedChatMemoryStore;
+import com.sunnyday.lychat.memory.ChatMemorySummarizer;
+import com.sunnyday.lychat.memory.MeteredChatMemoryStore;
+import com.sunnyday.lychat.memory.RedisChatMemoryStore;
 import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.memory.chat.ChatMemoryProvider;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
 
 @Configuration
 public class CommonConfig {
 
+    @Autowired
+    private LyChatProperties properties;
+
+    //会话记忆存储：memory=进程内（限制会话数、空闲过期、按会话统计字符数），redis=多节点共享（按token限额并折叠为摘要）
+    @Bean
+    public MeteredChatMemoryStore chatMemoryStore(StringRedisTemplate stringRedisTemplate,
+                                                  ChatMemorySummarizer chatMemorySummarizer,
+                                                  @Qualifier("lychatAnalysisExecutor") AsyncTaskExecutor executor) {
+        LyChatProperties.Memory config = properties.getMemory();
+        Duration idleTtl = Duration.ofMinutes(config.getIdleTtlMinutes());
+        if ("redis".equalsIgnoreCase(config.getStore())) {
+            return new RedisChatMemoryStore(stringRedisTemplate, chatMemorySummarizer, executor,
+                    config.getKeyPrefix(), idleTtl, config.getMaxTokens(), config.getKeepRecentTokens());
+        }
+        return new BoundedChatMemoryStore(config.getMaxEntries(), idleTtl, config.getMaxEntryChars());
+    }
+
     //构建ChatMemoryProvider对象
+    //redis存储不按消息条数截断：条数窗口会先淘汰较早的轮次，这些轮次来不及折叠进摘要，由存储的token限额决定何时压缩
     @Bean
-    public ChatMemoryProvider chatMemoryProvider(){
+    public ChatMemoryProvider chatMemoryProvider(MeteredChatMemoryStore chatMemoryStore){
+        int maxMessages = chatMemoryStore instanceof RedisChatMemoryStore
+                ? Integer.MAX_VALUE : properties.getMemory().getMaxMessages();
         ChatMemoryProvider chatMemoryProvider = new ChatMemoryProvider() {
             @Override
             public ChatMemory get(Object memoryId) {
                 return MessageWindowChatMemory.builder()
                         .id(memoryId)
-                        .maxMessages(20)
-//                        .chatMemoryStore(redisChatMemoryStore)
+                        .maxMessages(maxMessages)
+                        .chatMemoryStore(chatMemoryStore)
                         .build();
             }
         };
@@ -0,0 +1,56 @@
+package com.sunnyday.lychat.config;
+
+import com.sunnyday.lychat.document.DocTextExtractor;
+import com.sunnyday.lychat.document.DocumentExtractionService;
+import com.sunnyday.lychat.document.DocumentExtractor;
+import com.sunnyday.lychat.document.DocxTextExtractor;
+import com.sunnyday.lychat.document.PdfTextExtractor;
+import com.sunnyday.lychat.document.TxtTextExtractor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * 文档文本提取配置
+ *
+ * 每种文档类型一个 DocumentExtractor，DocumentExtractionService 收集全部提取器，按文件头识别类型后分派，
+ * 新增类型只需再声明一个提取器Bean。
+ */
+@Configuration
+public class LyChatDocumentConfig {
+
+    @Autowired
+    private LyChatProperties properties;
+
+    @Bean
+    public PdfTextExtractor pdfTextExtractor() {
+        LyChatProperties.Extraction config = properties.getExtraction();
+        return new PdfTextExtractor(config.getPdfParallelism(), config.getPdfQueueCapacity(),
+                config.getPdfPagesPerTask(), config.getMaxChars(), config.getPdfMaxMainMemoryMb() * 1024L * 1024L,
+                config.getPdfTimeoutSeconds() * 1000L);
+    }
+
+    @Bean
+    public DocxTextExtractor docxTextExtractor() {
+        return new DocxTextExtractor(properties.getExtraction().getMaxChars());
+    }
+
+    @Bean
+    public DocTextExtractor docTextExtractor() {
+        return new DocTextExtractor(properties.getExtraction().getMaxChars());
+    }
+
+    @Bean
+    public TxtTextExtractor txtTextExtractor() {
+        return new TxtTextExtractor(properties.getExtraction().getMaxChars());
+    }
+
+    @Bean
+    public DocumentExtractionService documentExtractionService(List<DocumentExtractor> extractors) {
+        LyChatProperties.Extraction config = properties.getExtraction();
+        long cacheMaxChars = config.isCacheEnabled() ? config.getCacheMaxChars() : 0L;
+        return new DocumentExtractionService(extractors, cacheMaxChars, config.getCacheTtlMinutes());
+    }
+}
@@ -0,0 +1,104 @@
+package com.sunnyday.lychat.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * LyChat线程池配置
+ *
+ * 两种执行模式（lychat.execution.virtual-threads，默认跟随 spring.threads.virtual.enabled）：
+ * 1、平台线程：有界线程池，线程数即并发上限
+ * 2、虚拟线程（需要JDK 21+运行）：每个任务一个虚拟线程，阻塞在大模型HTTP调用或文件读取上时不占用平台线程，
+ *    对大模型的并发由调用保护（ModelGuard 的自适应并发上限）控制，而不是靠线程池大小
+ * 项目按JDK 17编译部署，在JDK 17上虚拟线程模式不生效，两个线程池回退为平台线程（启动时打印警告）。
+ */
+@Slf4j
+@Configuration
+public class LyChatExecutorConfig {
+
+    @Autowired
+    private LyChatProperties properties;
+
+    /**
+     * 文档分析编排线程池：大模型调用和本地AI痕迹评分在此并行执行
+     * 队列满时拒绝提交（AbortPolicy），由提交方把该分支按失败处理（大模型分支降级为部分结果、会话摘要跳过本次压缩），
+     * 不能回退到调用线程执行：否则耗时数十秒的大模型调用会在请求线程上同步完成，各分支的超时与降级都不再生效
+     */
+    @Bean(name = "lychatAnalysisExecutor")
+    public AsyncTaskExecutor lychatAnalysisExecutor() {
+        if (useVirtualThreads()) {
+            return virtualThreadExecutor("lychat-analysis-", -1);
+        }
+        LyChatProperties.Analysis config = properties.getAnalysis();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(config.getCorePoolSize());
+        executor.setMaxPoolSize(config.getMaxPoolSize());
+        executor.setQueueCapacity(config.getQueueCapacity());
+        executor.setThreadNamePrefix("lychat-analysis-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * 异步分析任务线程池：队列满时拒绝提交（AbortPolicy），不回退到Tomcat线程执行
+     */
+    @Bean(name = "lychatJobExecutor")
+    public AsyncTaskExecutor lychatJobExecutor() {
+        LyChatProperties.Job config = properties.getJob();
+        if (useVirtualThreads()) {
+            // 虚拟线程模式下保留同样的在途任务上限（线程数+队列长度），超出时同样拒绝提交
+            return virtualThreadExecutor("lychat-job-", config.getMaxPoolSize() + config.getQueueCapacity());
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(config.getCorePoolSize());
+        executor.setMaxPoolSize(config.getMaxPoolSize());
+        executor.setQueueCapacity(config.getQueueCapacity());
+        executor.setThreadNamePrefix("lychat-job-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * 影子评分线程池：低优先级平台线程（纯计算任务，不使用虚拟线程），队列满时拒绝（AbortPolicy），由调用方丢弃该次对比
+     */
+    @Bean(name = "lychatShadowExecutor")
+    public AsyncTaskExecutor lychatShadowExecutor() {
+        LyChatProperties.Scoring config = properties.getScoring();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(config.getShadowPoolSize());
+        executor.setMaxPoolSize(config.getShadowPoolSize());
+        executor.setQueueCapacity(config.getShadowQueueCapacity());
+        executor.setThreadNamePrefix("lychat-shadow-");
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    private SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix, int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        if (concurrencyLimit > 0) {
+            executor.setConcurrencyLimit(concurrencyLimit);
+            executor.setRejectTasksWhenLimitReached(true);
+        }
+        return executor;
+    }
+
+    private boolean useVirtualThreads() {
+        if (!properties.getExecution().isVirtualThreads()) {
+            return false;
+        }
+        if (Runtime.version().feature() < 21) {
+            log.warn("已配置虚拟线程模式，但当前JDK版本为{}（需要21+），LyChat线程池回退为平台线程", Runtime.version().feature());
+            return false;
+        }
+        return true;
+    }
+}
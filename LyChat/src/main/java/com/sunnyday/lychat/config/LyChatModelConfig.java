@@ -0,0 +1,139 @@
+package com.sunnyday.lychat.config;
+
+import com.sunnyday.lychat.llm.AdaptiveConcurrencyLimiter;
+import com.sunnyday.lychat.llm.GuardedChatModel;
+import com.sunnyday.lychat.llm.GuardedStreamingChatModel;
+import com.sunnyday.lychat.llm.ModelCircuitBreaker;
+import com.sunnyday.lychat.llm.ModelGuard;
+import com.sunnyday.lychat.llm.RoutingChatModel;
+import com.sunnyday.lychat.llm.StubChatModel;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.openai.OpenAiChatModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 大模型配置
+ *
+ * 所有AI服务都通过 guardedChatModel / guardedStreamingChatModel 调用模型，两者分别装饰 openAiChatModel / openAiStreamingChatModel，
+ * 各自带一份调用保护（熔断 + 自适应并发限制，见 ModelGuard），供应商变慢时快速失败，而不是让请求线程堆积在读超时上。
+ * 耗时差别很大的调用按类别使用不同的装饰器（guardedAnalysisChatModel、guardedSummaryChatModel 等）：
+ * 同一模型上的并发上限共享，变慢判断按各类别自己的耗时基线进行，整篇分析的长调用不会把咨询对话的上限压到下限。
+ * lychat.routing.enabled=true 时 guardedChatModel 装饰的是多供应商路由模型（见 RoutingChatModel），调用保护仍作用于路由整体。
+ * lychat.model-stub.enabled=true 时被装饰的是本地桩模型，用于压测过载行为。
+ */
+@Slf4j
+@Configuration
+public class LyChatModelConfig {
+
+    @Autowired
+    private LyChatProperties properties;
+
+    @Bean
+    public StubChatModel stubChatModel() {
+        LyChatProperties.ModelStub config = properties.getModelStub();
+        return new StubChatModel(config.getLatencyMillis(), config.getJitterMillis(), config.getErrorRate(), config.getMaxStreams());
+    }
+
+    @Bean
+    public ModelGuard chatModelGuard() {
+        return modelGuard("chat");
+    }
+
+    @Bean
+    public ModelGuard streamingChatModelGuard() {
+        return modelGuard("streaming");
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "lychat.routing", name = "enabled", havingValue = "true")
+    public RoutingChatModel routingChatModel(@Qualifier("openAiChatModel") ObjectProvider<ChatModel> openAiChatModel) {
+        LyChatProperties.Routing config = properties.getRouting();
+        List<RoutingChatModel.Provider> providers = new ArrayList<>();
+        if (config.isIncludeDefault()) {
+            providers.add(new RoutingChatModel.Provider("default", openAiChatModel.getObject(), config.getWindowSize()));
+        }
+        for (LyChatProperties.RoutingProvider provider : config.getProviders()) {
+            // 失败后的重试由路由改用其他供应商完成，供应商自身不重试
+            ChatModel model = OpenAiChatModel.builder()
+                    .baseUrl(provider.getBaseUrl())
+                    .apiKey(provider.getApiKey())
+                    .modelName(provider.getModelName())
+                    .timeout(Duration.ofSeconds(provider.getTimeoutSeconds()))
+                    .maxRetries(0)
+                    .build();
+            providers.add(new RoutingChatModel.Provider(provider.getName(), model, config.getWindowSize()));
+        }
+        log.info("chat模型路由已启用，供应商：{}，对冲：{}", providers.stream().map(RoutingChatModel.Provider::getName).toList(),
+                config.isHedgeEnabled());
+        return new RoutingChatModel(providers, config.getMinCalls(), config.getMaxErrorRate(),
+                config.getProbeIntervalSeconds() * 1000L, config.isHedgeEnabled(), config.getHedgePercentile(),
+                config.getMinHedgeDelayMillis(), config.getDefaultHedgeDelayMillis(), config.getMaxThreads());
+    }
+
+    @Bean
+    public GuardedChatModel guardedChatModel(@Qualifier("openAiChatModel") ObjectProvider<ChatModel> openAiChatModel,
+                                             ObjectProvider<RoutingChatModel> routingChatModel,
+                                             StubChatModel stubChatModel) {
+        ChatModel delegate;
+        if (properties.getModelStub().isEnabled()) {
+            log.warn("已启用本地桩模型，chat模型调用不会访问模型供应商");
+            delegate = stubChatModel;
+        } else {
+            RoutingChatModel routing = routingChatModel.getIfAvailable();
+            delegate = routing != null ? routing : openAiChatModel.getObject();
+        }
+        return new GuardedChatModel(delegate, chatModelGuard(), ModelGuard.CALL_CHAT);
+    }
+
+    @Bean
+    public GuardedChatModel guardedAnalysisChatModel(@Qualifier("guardedChatModel") GuardedChatModel guardedChatModel) {
+        return guardedChatModel.withCallClass(ModelGuard.CALL_ANALYSIS);
+    }
+
+    @Bean
+    public GuardedChatModel guardedSummaryChatModel(@Qualifier("guardedChatModel") GuardedChatModel guardedChatModel) {
+        return guardedChatModel.withCallClass(ModelGuard.CALL_SUMMARY);
+    }
+
+    @Bean
+    public GuardedStreamingChatModel guardedStreamingChatModel(
+            @Qualifier("openAiStreamingChatModel") ObjectProvider<StreamingChatModel> openAiStreamingChatModel,
+            StubChatModel stubChatModel) {
+        StreamingChatModel delegate;
+        if (properties.getModelStub().isEnabled()) {
+            log.warn("已启用本地桩模型，streaming模型调用不会访问模型供应商");
+            delegate = stubChatModel.streaming();
+        } else {
+            delegate = openAiStreamingChatModel.getObject();
+        }
+        return new GuardedStreamingChatModel(delegate, streamingChatModelGuard(), ModelGuard.CALL_CHAT);
+    }
+
+    @Bean
+    public GuardedStreamingChatModel guardedAnalysisStreamingChatModel(
+            @Qualifier("guardedStreamingChatModel") GuardedStreamingChatModel guardedStreamingChatModel) {
+        return guardedStreamingChatModel.withCallClass(ModelGuard.CALL_ANALYSIS);
+    }
+
+    private ModelGuard modelGuard(String name) {
+        LyChatProperties.ModelGuard config = properties.getModelGuard();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config.getInitialLimit(),
+                config.getMinLimit(), config.getMaxLimit(), config.getBackoffRatio(), config.getSlowCallMillis(),
+                config.getLatencyTolerance(), config.getBaselineWindow(), config.getMaxQueue(), config.getQueueTimeoutMillis());
+        ModelCircuitBreaker circuitBreaker = new ModelCircuitBreaker(config.getWindowSize(), config.getMinCalls(),
+                config.getFailureRateThreshold(), config.getSlowCallRateThreshold(),
+                config.getOpenSeconds() * 1000L, config.getHalfOpenCalls());
+        return new ModelGuard(name, limiter, circuitBreaker, config.getSlowCallMillis());
+    }
+}
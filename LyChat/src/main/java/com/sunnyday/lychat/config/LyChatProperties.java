@@ -0,0 +1,395 @@
+package com.sunnyday.lychat.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LyChat模块配置（application-ai.yml 中 lychat 前缀下的配置）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "lychat")
+public class LyChatProperties {
+
+    /** 模板相似度配置 */
+    private Template template = new Template();
+
+    /** 文档分析编排配置 */
+    private Analysis analysis = new Analysis();
+
+    /** 分析结果缓存配置 */
+    private Cache cache = new Cache();
+
+    /** 相同文档并发分析合并配置 */
+    private SingleFlight singleFlight = new SingleFlight();
+
+    /** 异步分析任务配置 */
+    private Job job = new Job();
+
+    /** 执行模式配置 */
+    private Execution execution = new Execution();
+
+    /** 文档文本提取配置 */
+    private Extraction extraction = new Extraction();
+
+    /** 草稿增量分析配置 */
+    private Draft draft = new Draft();
+
+    /** AI痕迹评分模型版本配置 */
+    private Scoring scoring = new Scoring();
+
+    /** 大模型调用保护配置（熔断 + 自适应并发限制） */
+    private ModelGuard modelGuard = new ModelGuard();
+
+    /** 本地桩模型配置 */
+    private ModelStub modelStub = new ModelStub();
+
+    /** 多供应商路由配置（chat模型） */
+    private Routing routing = new Routing();
+
+    /** 会话记忆配置（/chat） */
+    private Memory memory = new Memory();
+
+    /** 提示词配置 */
+    private Prompt prompt = new Prompt();
+
+    @Data
+    public static class Template {
+        /** 内置模板库（classpath；不放在 templates/ 下，那是Spring MVC的视图模板目录） */
+        private String resource = "ai-templates/ai_templates.txt";
+
+        /** 外部模板库文件路径（可选，配置后与内置模板合并，文件变化时自动重新加载） */
+        private String externalFile;
+
+        /** 后台检查外部模板文件是否变化的间隔（秒） */
+        private int reloadCheckSeconds = 30;
+
+        /** 参与候选召回的倒排表最大长度，超过该长度的高频3-gram只用于精确计算 */
+        private int maxPostingLength = 4096;
+
+        /** 返回的最相似模板个数 */
+        private int topK = 3;
+    }
+
+    @Data
+    public static class Analysis {
+        /** 分析线程池核心线程数 */
+        private int corePoolSize = 16;
+
+        /** 分析线程池最大线程数 */
+        private int maxPoolSize = 64;
+
+        /** 分析线程池队列长度 */
+        private int queueCapacity = 200;
+
+        /** 大模型分支超时（秒），超时后降级为只返回本地AI痕迹分析结果 */
+        private int llmTimeoutSeconds = 150;
+
+        /** 本地AI痕迹评分分支超时（秒） */
+        private int scoringTimeoutSeconds = 20;
+
+        /** 大模型调用模式：single（一次调用返回全部内容）或 split（评分、修改建议、改写拆分为三个并行子请求） */
+        private String mode = "single";
+
+        /** 拆分模式：评分子请求超时（秒） */
+        private int qualityTimeoutSeconds = 60;
+
+        /** 拆分模式：修改建议子请求超时（秒） */
+        private int recommendationTimeoutSeconds = 90;
+
+        /** 拆分模式：改写子请求超时（秒） */
+        private int rewriteTimeoutSeconds = 140;
+
+        /** 是否在本地评分时同时生成逐句AI痕迹热力图（AiAnalysisResultVo.aiHeatmap） */
+        private boolean heatmapEnabled = true;
+
+        /** 热力图窗口：每句向前、向后各取的句数 */
+        private int heatmapWindow = 2;
+    }
+
+    @Data
+    public static class Cache {
+        /** 是否启用分析结果缓存 */
+        private boolean enabled = true;
+
+        /** 本地缓存最大条数 */
+        private long localMaxEntries = 1000;
+
+        /** 本地缓存写入后过期时间（分钟） */
+        private long localTtlMinutes = 60;
+
+        /** Redis缓存过期时间（小时） */
+        private int redisTtlHours = 24;
+
+        /** Redis缓存键前缀 */
+        private String keyPrefix = "lychat:analysis:";
+    }
+
+    @Data
+    public static class SingleFlight {
+        /** 是否合并相同文档（文本摘要 + 语言 + 提示词版本 + 评分模型版本相同）的并发分析 */
+        private boolean enabled = true;
+
+        /** 是否跨节点合并（Redis锁 + 轮询结果缓存，需要启用结果缓存） */
+        private boolean distributed = true;
+
+        /** Redis锁键前缀 */
+        private String lockKeyPrefix = "lychat:inflight:";
+
+        /** 锁过期时间在大模型超时之外的余量（秒） */
+        private int lockExtraSeconds = 30;
+
+        /** 等待其他节点结果时轮询结果缓存的间隔（毫秒） */
+        private long pollIntervalMillis = 500;
+    }
+
+    @Data
+    public static class Job {
+        /** 任务线程池核心线程数 */
+        private int corePoolSize = 8;
+
+        /** 任务线程池最大线程数 */
+        private int maxPoolSize = 32;
+
+        /** 任务线程池队列长度，队列满时拒绝提交 */
+        private int queueCapacity = 500;
+
+        /** 任务状态在Redis中的保留时间（小时） */
+        private int ttlHours = 24;
+
+        /** SSE进度推送时查询任务状态的间隔（毫秒） */
+        private long pollIntervalMillis = 500;
+
+        /** Redis任务键前缀 */
+        private String keyPrefix = "lychat:job:";
+    }
+
+    @Data
+    public static class Execution {
+        /** 分析线程池和任务线程池是否使用虚拟线程（需要JDK 21+运行；项目按JDK 17编译部署，JDK 17下不生效、回退为平台线程） */
+        private boolean virtualThreads = false;
+    }
+
+    @Data
+    public static class Extraction {
+        /** 提取文本的最大字符数，超出部分截断 */
+        private int maxChars = 200000;
+
+        /** PDF并行提取线程数 */
+        private int pdfParallelism = 4;
+
+        /** PDF提取线程池队列容量，队列满时由调用线程执行 */
+        private int pdfQueueCapacity = 64;
+
+        /** 每个PDF提取任务的页数，页数不超过该值的PDF在调用线程中直接提取 */
+        private int pdfPagesPerTask = 20;
+
+        /** PDF解析时在堆内保留的最大字节数（MB），超出部分写入临时文件 */
+        private int pdfMaxMainMemoryMb = 16;
+
+        /** 单个PDF提取超时（秒） */
+        private int pdfTimeoutSeconds = 60;
+
+        /** 是否按文件SHA-256缓存提取出的文本 */
+        private boolean cacheEnabled = true;
+
+        /** 文本缓存的总字符数上限 */
+        private long cacheMaxChars = 20_000_000L;
+
+        /** 文本缓存未被访问时的过期时间（分钟） */
+        private long cacheTtlMinutes = 30;
+    }
+
+    @Data
+    public static class Draft {
+        /** 最多保留的草稿数，超出时淘汰 */
+        private long maxSessions = 10000;
+
+        /** 草稿未被访问时的过期时间（分钟） */
+        private long idleTtlMinutes = 180;
+    }
+
+    @Data
+    public static class Scoring {
+        /** 线上评分模型版本（v1、v2、v3，见 AiScorers） */
+        private String productionVersion = "v3";
+
+        /** 影子评分模型版本：对同一份文本统计量打分，只记录与线上版本的差值，不影响返回结果 */
+        private List<String> shadowVersions = new ArrayList<>();
+
+        /** 影子评分线程数（低优先级线程） */
+        private int shadowPoolSize = 1;
+
+        /** 影子评分队列长度，队列满时丢弃，不阻塞线上请求 */
+        private int shadowQueueCapacity = 1000;
+
+        /** AI率差值的绝对值不小于该值时逐篇记录日志（0表示全部记录），汇总统计不受影响 */
+        private int shadowLogMinDelta = 0;
+    }
+
+    @Data
+    public static class ModelGuard {
+        /** 初始并发上限 */
+        private int initialLimit = 16;
+
+        /** 并发上限下限 */
+        private int minLimit = 2;
+
+        /** 并发上限上限 */
+        private int maxLimit = 64;
+
+        /** 调用失败或过慢时并发上限的缩减比例 */
+        private double backoffRatio = 0.8;
+
+        /** 慢调用阈值（毫秒），超过时缩减并发上限并计入熔断的慢调用率 */
+        private long slowCallMillis = 90000;
+
+        /** 调用耗时超过同一调用类别耗时基线的多少倍时视为变慢并缩减并发上限 */
+        private double latencyTolerance = 2.0;
+
+        /** 耗时基线（每个调用类别各自的成功调用耗时指数移动平均）大约覆盖的最近调用数 */
+        private int baselineWindow = 50;
+
+        /** 超过并发上限时最多排队的调用数，队列满时立即拒绝 */
+        private int maxQueue = 32;
+
+        /** 排队等待许可的最长时间（毫秒） */
+        private long queueTimeoutMillis = 2000;
+
+        /** 熔断统计窗口（最近调用数） */
+        private int windowSize = 50;
+
+        /** 窗口内至少有多少次调用才计算比例 */
+        private int minCalls = 10;
+
+        /** 失败率阈值，超过时打开熔断 */
+        private double failureRateThreshold = 0.5;
+
+        /** 慢调用率阈值，超过时打开熔断 */
+        private double slowCallRateThreshold = 0.8;
+
+        /** 熔断打开时长（秒），之后进入半开状态 */
+        private int openSeconds = 30;
+
+        /** 半开状态放行的试探调用数 */
+        private int halfOpenCalls = 3;
+    }
+
+    @Data
+    public static class ModelStub {
+        /** 是否用本地桩模型代替真实的模型供应商（只用于本地压测） */
+        private boolean enabled = false;
+
+        /** 桩模型响应延迟（毫秒） */
+        private long latencyMillis = 2000;
+
+        /** 延迟浮动范围（毫秒） */
+        private long jitterMillis = 500;
+
+        /** 模拟的失败率（0-1） */
+        private double errorRate = 0.0;
+
+        /** 同时进行的流式调用数上限（每个流占用一个线程），超出时调用失败 */
+        private int maxStreams = 256;
+    }
+
+    @Data
+    public static class Routing {
+        /** 是否在多个供应商之间路由chat模型调用 */
+        private boolean enabled = false;
+
+        /** 是否把 langchain4j.open-ai.chat-model 配置的模型作为名为 default 的供应商加入路由 */
+        private boolean includeDefault = true;
+
+        /** 额外的供应商（OpenAI兼容接口） */
+        private List<RoutingProvider> providers = new ArrayList<>();
+
+        /** 每个供应商的统计窗口（最近调用数） */
+        private int windowSize = 100;
+
+        /** 窗口内至少有多少次调用才按耗时排序和判断健康 */
+        private int minCalls = 10;
+
+        /** 失败率超过该值的供应商视为不健康 */
+        private double maxErrorRate = 0.3;
+
+        /** 不健康供应商的试探间隔（秒） */
+        private int probeIntervalSeconds = 30;
+
+        /** 是否在首选供应商变慢时向次选供应商发送对冲请求 */
+        private boolean hedgeEnabled = false;
+
+        /** 对冲触发点：首选供应商耗时超过其该分位数时发送对冲请求 */
+        private double hedgePercentile = 0.95;
+
+        /** 对冲等待时间下限（毫秒） */
+        private long minHedgeDelayMillis = 2000;
+
+        /** 首选供应商样本不足时的对冲等待时间（毫秒） */
+        private long defaultHedgeDelayMillis = 30000;
+
+        /** 对冲调用线程数上限（首选和对冲请求各占一个线程），线程已满时本次不对冲 */
+        private int maxThreads = 128;
+    }
+
+    @Data
+    public static class RoutingProvider {
+        /** 供应商名称（统计和日志中使用） */
+        private String name;
+
+        /** 接口地址 */
+        private String baseUrl;
+
+        /** 接口密钥 */
+        private String apiKey;
+
+        /** 模型名 */
+        private String modelName;
+
+        /** 调用超时（秒） */
+        private int timeoutSeconds = 120;
+    }
+
+    @Data
+    public static class Memory {
+        /** 会话记忆存储：memory（进程内）或 redis（多节点共享） */
+        private String store = "memory";
+
+        /** 每个会话保留的最大消息数（仅memory存储；redis存储不按条数截断，由 maxTokens 限额并折叠为摘要） */
+        private int maxMessages = 20;
+
+        /** 最多保留的会话数，超出时淘汰（memory存储） */
+        private long maxEntries = 10000;
+
+        /** 会话空闲过期时间（分钟） */
+        private long idleTtlMinutes = 30;
+
+        /** 单个会话的最大字符数，超出时丢弃最早的消息（memory存储） */
+        private int maxEntryChars = 200000;
+
+        /** Redis键前缀（redis存储） */
+        private String keyPrefix = "lychat:memory:";
+
+        /** 单个会话的估算token上限，超出时把较早的对话折叠进摘要（redis存储） */
+        private int maxTokens = 8000;
+
+        /** 折叠后保留的最近对话token数（redis存储） */
+        private int keepRecentTokens = 3000;
+    }
+
+    @Data
+    public static class Prompt {
+        /** 外部提示词目录（可选，目录中的同名文件覆盖内置提示词，文件变化时自动重新加载） */
+        private String externalDir;
+
+        /** 检查外部提示词目录是否变化的最小间隔（秒） */
+        private int reloadCheckSeconds = 30;
+
+        /** 预加载的语言（对应 aiSystemPrompt_{locale}.txt、languageRequirement_{locale}.txt） */
+        private List<String> locales = new ArrayList<>(List.of("ja_JP", "zh_CN"));
+    }
+}
@@ -1,23 +1,42 @@
 package com.sunnyday.lychat.controller;
 
 
-import com.alibaba.fastjson2.JSON;
 import com.ruoyi.common.core.domain.AjaxResult;
-import com.sunnyday.lychat.AiFileUtils;
+import com.sunnyday.lychat.config.LyChatProperties;
+import com.sunnyday.lychat.document.DocumentExtractionException;
+import com.sunnyday.lychat.document.DocumentExtractionService;
+import com.sunnyday.lychat.entity.AiAnalysisJobVo;
 import com.sunnyday.lychat.entity.AiAnalysisResultVo;
 import com.sunnyday.lychat.entity.AiDimensionVo;
 import com.sunnyday.lychat.entity.QualityDimensionVo;
-import com.sunnyday.lychat.service.AiJapanService;
-import com.sunnyday.lychat.service.AiTextAnalysisService;
-import com.sunnyday.lychat.service.AiPromptService;
+import com.sunnyday.lychat.llm.ModelGuard;
+import com.sunnyday.lychat.llm.RoutingChatModel;
+import com.sunnyday.lychat.service.AiAnalysisJobService;
+import com.sunnyday.lychat.service.AiAnalysisOrchestrator;
+import com.sunnyday.lychat.service.AiDraftService;
+import com.sunnyday.lychat.service.AiModelUsageRecorder;
+import com.sunnyday.lychat.service.AiResultCache;
+import com.sunnyday.lychat.service.AiScorerRegistry;
+import com.sunnyday.lychat.service.AiSingleFlight;
+import com.sunnyday.lychat.service.AiStreamingAnalysisService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import jakarta.servlet.http.HttpServletRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * AI内容分析控制器
@@ -28,13 +47,40 @@ import java.util.Locale;
 public class AiAnalysisController {
 
     @Autowired
-    private AiJapanService aiJapanService;
+    private AiAnalysisOrchestrator aiAnalysisOrchestrator;
 
     @Autowired
-    private AiTextAnalysisService aiTextAnalysisService;
+    private AiStreamingAnalysisService aiStreamingAnalysisService;
 
     @Autowired
-    private AiPromptService aiPromptService;
+    private AiDraftService aiDraftService;
+
+    @Autowired
+    private AiResultCache aiResultCache;
+
+    @Autowired
+    private DocumentExtractionService documentExtractionService;
+
+    @Autowired
+    private AiSingleFlight aiSingleFlight;
+
+    @Autowired
+    private AiModelUsageRecorder usageRecorder;
+
+    @Autowired
+    private AiScorerRegistry scorerRegistry;
+
+    @Autowired
+    private List<ModelGuard> modelGuards;
+
+    @Autowired(required = false)
+    private RoutingChatModel routingChatModel;
+
+    @Autowired
+    private AiAnalysisJobService aiAnalysisJobService;
+
+    @Autowired
+    private LyChatProperties properties;
 
     @Autowired
     private MessageSource messageSource;
@@ -57,61 +103,19 @@ public class AiAnalysisController {
             log.info("当前语言环境: {}", locale);
 
             // 2. 验证文件
-            if (file.isEmpty()) {
-                String errorMsg = messageSource.getMessage("error.file.empty", null, locale);
-                return AjaxResult.error(errorMsg);
-            }
-
-            // 3. 验证文件类型
-            String fileName = file.getOriginalFilename();
-            String fileType = fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase();
-            if (!"pdf".equals(fileType) && !"docx".equals(fileType)) {
-                String errorMsg = messageSource.getMessage("error.file.type", null, locale);
-                return AjaxResult.error(errorMsg);
-            }
-
-            // 4. 验证文件大小 (最大10MB)
-            if (file.getSize() > 10 * 1024 * 1024) {
-                String errorMsg = messageSource.getMessage("error.file.size", null, locale);
+            String errorMsg = validateFile(file, locale);
+            if (errorMsg != null) {
                 return AjaxResult.error(errorMsg);
             }
 
-            // 5. 读取文件内容
-            String fileContent = AiFileUtils.readFileContent(file);
-            
-            // 6. 获取对应语言的提示词（作为系统消息）
-            String systemPrompt = aiPromptService.getSystemPrompt(locale);
-            
-            // 7. 构建完整的提示词，明确要求使用指定语言返回
-            String languageRequirement = locale.equals(Locale.SIMPLIFIED_CHINESE) 
-                    ? "\n\n【重要语言要求】你必须使用中文（简体）返回所有内容：\n" +
-                      "- qualityDimensions中每个维度的name字段必须使用中文\n" +
-                      "- qualityDimensions中每个维度的evaluation字段（评价说明）必须使用中文\n" +
-                      "- recommendations数组中的每个修改建议必须使用中文\n" +
-                      "- 所有返回的文本内容都必须使用中文，不得使用日语或其他语言\n"
-                    : "\n\n【重要言語要件】あなたは日本語ですべての内容を返す必要があります：\n" +
-                      "- qualityDimensionsの各次元のnameフィールドは日本語を使用する必要があります\n" +
-                      "- qualityDimensionsの各次元のevaluationフィールド（評価説明）は日本語を使用する必要があります\n" +
-                      "- recommendations配列の各修正提案は日本語を使用する必要があります\n" +
-                      "- 返されるすべてのテキストコンテンツは日本語を使用する必要があり、中国語やその他の言語を使用してはいけません\n";
+            // 3. 读取文件内容
+            String fileContent = documentExtractionService.extract(file);
             
-            // 8. 构建完整的用户消息，包含系统提示词、语言要求和文档内容
-            String fullPrompt = systemPrompt + languageRequirement + "\n\n请分析以下文档内容：\n" + fileContent;
-            
-            // 9. 调用AI服务，使用不带固定系统消息的方法，完全由我们控制提示词
-            // 这样确保语言要求被正确传递，不会被固定的日语系统消息覆盖
-            String aiResult = aiJapanService.chatWithoutSystemMessage(String.valueOf(System.currentTimeMillis()), fullPrompt);
-            log.info("AI分析結果: " + aiResult);
-            
-            // 8. 将aiResult的json数据转换为AiAnalysisResultVo对象
-            AiAnalysisResultVo result = JSON.parseObject(aiResult, AiAnalysisResultVo.class);
-            
-            // 9. 通过数学公式计算AI痕迹分析维度（6个维度）和AI率（一次性计算，避免重复）
-            AiTextAnalysisService.AnalysisResult analysisResult = aiTextAnalysisService.analyzeWithScore(fileContent, locale);
-            
-            // 10. 填充AI痕迹分析结果
-            result.setAiDimensions(analysisResult.getDimensions());
-            result.setAiScore(analysisResult.getAiScore());
+            // 4. 并行执行大模型分析与AI痕迹评分（大模型失败时降级为部分结果）
+            AiAnalysisResultVo result = aiAnalysisOrchestrator.analyse(fileContent, locale);
+            if (Boolean.TRUE.equals(result.getPartial())) {
+                return AjaxResult.success(messageSource.getMessage("warn.analysis.partial", null, locale), result);
+            }
 
             return AjaxResult.success(result);
         } catch (Exception e) {
@@ -123,6 +127,189 @@ public class AiAnalysisController {
         }
     }
 
+    /**
+     * 草稿内容分析接口：同一篇文书的修改稿传回上一版返回的 draftId，本地AI痕迹评分只重新分析修改过的段落
+     * 返回值在 contentAnalyse 的基础上增加 draftId、revision、incremental（是否基于上一版增量评分）、changedParagraphs（本次重新分析的段落序号）
+     */
+    @PostMapping("/drafts/contentAnalyse")
+    public AjaxResult draftContentAnalyse(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "draftId", required = false) String draftId,
+            HttpServletRequest request) {
+        Locale locale = parseLocale(request.getHeader("Accept-Language"));
+        String errorMsg = validateFile(file, locale);
+        if (errorMsg != null) {
+            return AjaxResult.error(errorMsg);
+        }
+        try {
+            String fileContent = documentExtractionService.extract(file);
+            AiDraftService.DraftAnalysis analysis = aiDraftService.analyse(draftId, fileContent, locale);
+            AiAnalysisResultVo result = analysis.getResult();
+            AjaxResult ajax = Boolean.TRUE.equals(result.getPartial())
+                    ? AjaxResult.success(messageSource.getMessage("warn.analysis.partial", null, locale), result)
+                    : AjaxResult.success(result);
+            return ajax.put("draftId", analysis.getDraftId())
+                    .put("revision", analysis.getRevision())
+                    .put("incremental", analysis.isIncremental())
+                    .put("changedParagraphs", analysis.getChangedParagraphs());
+        } catch (Exception e) {
+            log.error("草稿分析过程中发生错误", e);
+            return AjaxResult.error(messageSource.getMessage("error.analysis.failed", new Object[]{e.getMessage()}, locale));
+        }
+    }
+
+    /**
+     * 流式内容分析接口（SSE）
+     * 依次推送 aiTrace、每个 qualityDimension、每条 recommendation，最后推送完整的 result（失败时推送 error）
+     */
+    @PostMapping(value = "/contentAnalyse/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> contentAnalyseStream(
+            @RequestParam("file") MultipartFile file,
+            HttpServletRequest request) {
+        Locale locale = parseLocale(request.getHeader("Accept-Language"));
+        String errorMsg = validateFile(file, locale);
+        if (errorMsg != null) {
+            return Flux.just(ServerSentEvent.<Object>builder(errorMsg).event(AiStreamingAnalysisService.EVENT_ERROR).build());
+        }
+        // 上传的临时文件在请求线程返回后会被清理，文本提取必须在这里完成
+        String fileContent;
+        try {
+            fileContent = documentExtractionService.extract(file);
+        } catch (DocumentExtractionException e) {
+            String message = messageSource.getMessage("error.analysis.failed", new Object[]{e.getMessage()}, locale);
+            return Flux.just(ServerSentEvent.<Object>builder(message).event(AiStreamingAnalysisService.EVENT_ERROR).build());
+        }
+        return aiStreamingAnalysisService.analyse(fileContent, locale);
+    }
+
+    /**
+     * 提交异步分析任务，立即返回任务ID
+     */
+    @PostMapping("/jobs")
+    public AjaxResult submitJob(
+            @RequestParam("file") MultipartFile file,
+            HttpServletRequest request) {
+        Locale locale = parseLocale(request.getHeader("Accept-Language"));
+        String errorMsg = validateFile(file, locale);
+        if (errorMsg != null) {
+            return AjaxResult.error(errorMsg);
+        }
+        try {
+            String jobId = aiAnalysisJobService.submit(file, locale);
+            return AjaxResult.success().put("jobId", jobId);
+        } catch (TaskRejectedException e) {
+            log.warn("分析任务线程池已满，拒绝提交: {}", file.getOriginalFilename());
+            return AjaxResult.error(messageSource.getMessage("error.job.busy", null, locale));
+        } catch (Exception e) {
+            log.error("提交分析任务失败", e);
+            return AjaxResult.error(messageSource.getMessage("error.analysis.failed", new Object[]{e.getMessage()}, locale));
+        }
+    }
+
+    /**
+     * 查询异步分析任务的状态和结果
+     */
+    @GetMapping("/jobs/{jobId}")
+    public AjaxResult getJob(@PathVariable("jobId") String jobId, HttpServletRequest request) {
+        AiAnalysisJobVo job = aiAnalysisJobService.get(jobId);
+        if (job == null) {
+            Locale locale = parseLocale(request.getHeader("Accept-Language"));
+            return AjaxResult.error(messageSource.getMessage("error.job.notFound", null, locale));
+        }
+        return AjaxResult.success(job);
+    }
+
+    /**
+     * 以SSE推送异步分析任务的阶段进度，任务结束（或不存在）后关闭连接
+     */
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<AiAnalysisJobVo>> jobEvents(@PathVariable("jobId") String jobId) {
+        LyChatProperties.Job config = properties.getJob();
+        return Flux.interval(Duration.ZERO, Duration.ofMillis(config.getPollIntervalMillis()))
+                .onBackpressureDrop()
+                // Redis查询是阻塞调用，不能放在interval的计时线程上执行
+                .publishOn(Schedulers.boundedElastic())
+                .map(tick -> Optional.ofNullable(aiAnalysisJobService.get(jobId)))
+                .takeUntil(job -> job.isEmpty() || job.get().isFinished())
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .distinctUntilChanged(job -> job.getStatus() + ":" + job.getStage() + ":" + job.getUpdateTime())
+                .map(job -> ServerSentEvent.builder(job).id(String.valueOf(job.getUpdateTime())).event(job.getStage()).build())
+                .take(Duration.ofHours(config.getTtlHours()));
+    }
+
+    /**
+     * 分析结果缓存统计（命中/未命中/淘汰次数，相同文档并发分析的合并次数，上传文件文本提取的解析与缓存命中次数，
+     * 以及草稿增量分析的草稿数和复用段落数）
+     */
+    @GetMapping("/cache/stats")
+    public AjaxResult cacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(aiResultCache.stats());
+        stats.put("singleFlight", aiSingleFlight.stats());
+        stats.put("extraction", documentExtractionService.stats());
+        stats.put("drafts", aiDraftService.stats());
+        return AjaxResult.success(stats);
+    }
+
+    /**
+     * 大模型token用量统计（输入/输出token、前缀缓存命中的输入token、命中与未命中时的平均耗时）
+     */
+    @GetMapping("/model/usage")
+    public AjaxResult modelUsage() {
+        return AjaxResult.success(usageRecorder.stats());
+    }
+
+    /**
+     * AI痕迹评分模型的影子对比统计（线上版本，各影子版本AI率与各维度相对线上版本的差值）
+     */
+    @GetMapping("/scoring/shadow")
+    public AjaxResult scoringShadow() {
+        return AjaxResult.success(scorerRegistry.stats());
+    }
+
+    /**
+     * 大模型调用保护状态（当前并发上限、在途调用数、排队数、拒绝次数、熔断状态）
+     */
+    @GetMapping("/model/guard")
+    public AjaxResult modelGuard() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (ModelGuard guard : modelGuards) {
+            stats.put(guard.getName(), guard.stats());
+        }
+        return AjaxResult.success(stats);
+    }
+
+    /**
+     * chat模型路由状态（各供应商p50/p95耗时、失败率、改用和对冲次数），未启用路由时返回空
+     */
+    @GetMapping("/model/routing")
+    public AjaxResult modelRouting() {
+        return AjaxResult.success(routingChatModel == null ? Map.of() : routingChatModel.stats());
+    }
+
+    /**
+     * 校验上传文件（非空、PDF/DOCX、不超过10MB）
+     *
+     * @return 校验失败时返回错误信息，通过时返回null
+     */
+    private String validateFile(MultipartFile file, Locale locale) {
+        if (file.isEmpty()) {
+            return messageSource.getMessage("error.file.empty", null, locale);
+        }
+
+        String fileName = file.getOriginalFilename();
+        String fileType = fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase();
+        if (!"pdf".equals(fileType) && !"docx".equals(fileType)) {
+            return messageSource.getMessage("error.file.type", null, locale);
+        }
+
+        // 最大10MB
+        if (file.getSize() > 10 * 1024 * 1024) {
+            return messageSource.getMessage("error.file.size", null, locale);
+        }
+        return null;
+    }
+
     /**
      * 解析Accept-Language头为Locale对象
      */
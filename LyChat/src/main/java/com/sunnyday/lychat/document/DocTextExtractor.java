@@ -0,0 +1,33 @@
+package com.sunnyday.lychat.document;
+
+import org.apache.poi.hwpf.HWPFDocument;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 旧版Word（.doc）文本提取，按只读方式打开文件，不把整个文件复制进内存
+ */
+public class DocTextExtractor implements DocumentExtractor {
+
+    private final int maxChars;
+
+    public DocTextExtractor(int maxChars) {
+        this.maxChars = maxChars;
+    }
+
+    @Override
+    public DocumentType getType() {
+        return DocumentType.DOC;
+    }
+
+    @Override
+    public String extract(File file) throws IOException {
+        try (POIFSFileSystem fs = new POIFSFileSystem(file, true);
+             HWPFDocument doc = new HWPFDocument(fs)) {
+            String text = doc.getDocumentText();
+            return text.length() > maxChars ? text.substring(0, maxChars) : text;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.sunnyday.lychat.document;
+
+/**
+ * 文档文本提取失败（不支持的文件类型、文件损坏等），消息可直接展示给用户
+ */
+public class DocumentExtractionException extends RuntimeException {
+
+    public DocumentExtractionException(String message) {
+        super(message);
+    }
+
+    public DocumentExtractionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
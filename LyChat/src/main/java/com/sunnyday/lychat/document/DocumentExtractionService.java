@@ -0,0 +1,176 @@
+package com.sunnyday.lychat.document;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 上传文档文本提取入口（/chat、/ai/contentAnalyse、异步分析任务共用）
+ *
+ * 上传内容只读一遍：边写临时文件边计算 SHA-256，同时保留文件头用于识别类型（不依赖扩展名），
+ * 再交给对应类型的 DocumentExtractor。提取结果按 SHA-256 缓存在本地（Caffeine，按字符数限制总量），
+ * 同一文件再次上传到任一接口时不再解析；同一文件并发上传时只解析一次，其余请求等待同一个结果。
+ * 失败时抛出 DocumentExtractionException，不再把错误信息当作文件内容返回。
+ */
+@Slf4j
+public class DocumentExtractionService {
+
+    private static final String SUPPORTED_TYPES = "txt、pdf、doc、docx";
+
+    private final Map<DocumentType, DocumentExtractor> extractors = new EnumMap<>(DocumentType.class);
+
+    /** 缓存总字符数上限为0时不缓存 */
+    private final Cache<String, String> cache;
+
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder extracted = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public DocumentExtractionService(List<DocumentExtractor> extractors, long cacheMaxChars, long cacheTtlMinutes) {
+        for (DocumentExtractor extractor : extractors) {
+            this.extractors.put(extractor.getType(), extractor);
+        }
+        this.cache = cacheMaxChars <= 0 ? null : Caffeine.newBuilder()
+                .maximumWeight(cacheMaxChars)
+                .weigher((String key, String text) -> text.length())
+                .expireAfterAccess(Duration.ofMinutes(cacheTtlMinutes))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 提取上传文件的文本
+     *
+     * @throws DocumentExtractionException 文件类型不支持、文件损坏或读取失败
+     */
+    public String extract(MultipartFile file) {
+        Path spool = null;
+        try {
+            spool = Files.createTempFile("lychat-upload-", ".tmp");
+            byte[] header = new byte[DocumentType.HEADER_BYTES];
+            int headerLength;
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest);
+                 OutputStream out = Files.newOutputStream(spool)) {
+                headerLength = in.readNBytes(header, 0, header.length);
+                out.write(header, 0, headerLength);
+                in.transferTo(out);
+            }
+            String key = HexFormat.of().formatHex(digest.digest());
+            if (cache != null) {
+                String cached = cache.getIfPresent(key);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+
+            DocumentType type = DocumentType.detect(header, headerLength, spool);
+            DocumentExtractor extractor = type == null ? null : extractors.get(type);
+            if (extractor == null) {
+                failures.increment();
+                throw new DocumentExtractionException("不支持的文件类型: " + file.getOriginalFilename()
+                        + "。支持的文件类型：" + SUPPORTED_TYPES);
+            }
+            return extractOnce(key, extractor, spool, file.getOriginalFilename());
+        } catch (IOException e) {
+            failures.increment();
+            throw new DocumentExtractionException("文件读取失败: " + e.getMessage(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        } finally {
+            if (spool != null) {
+                try {
+                    Files.deleteIfExists(spool);
+                } catch (IOException e) {
+                    log.warn("删除上传临时文件失败: {}", spool);
+                }
+            }
+        }
+    }
+
+    /**
+     * 同一摘要的文件同时只解析一次，后到的请求等待先到请求的结果
+     */
+    private String extractOnce(String key, DocumentExtractor extractor, Path spool, String fileName) {
+        CompletableFuture<String> flight = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof DocumentExtractionException
+                        ? (DocumentExtractionException) e.getCause()
+                        : new DocumentExtractionException("文件读取失败: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+        try {
+            // 等待期间先到的请求可能刚好完成并写入了缓存
+            String cached = cache == null ? null : cache.getIfPresent(key);
+            if (cached != null) {
+                flight.complete(cached);
+                return cached;
+            }
+            long start = System.nanoTime();
+            String text = extractor.extract(spool.toFile());
+            extracted.increment();
+            log.debug("文件 {} 按 {} 提取完成，{} 字符，耗时 {}ms", fileName, extractor.getType(), text.length(),
+                    (System.nanoTime() - start) / 1_000_000L);
+            if (cache != null) {
+                cache.put(key, text);
+            }
+            flight.complete(text);
+            return text;
+        } catch (IOException | RuntimeException e) {
+            failures.increment();
+            DocumentExtractionException failure = e instanceof DocumentExtractionException
+                    ? (DocumentExtractionException) e
+                    : new DocumentExtractionException("文件读取失败: " + e.getMessage(), e);
+            flight.completeExceptionally(failure);
+            throw failure;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * 提取统计：实际解析次数、合并的并发请求数、失败次数、缓存命中情况
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("extracted", extracted.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("failures", failures.sum());
+        if (cache != null) {
+            CacheStats cacheStats = cache.stats();
+            stats.put("cacheSize", cache.estimatedSize());
+            stats.put("cacheHits", cacheStats.hitCount());
+            stats.put("cacheMisses", cacheStats.missCount());
+            stats.put("cacheEvictions", cacheStats.evictionCount());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,54 @@
+package com.sunnyday.lychat.document;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Predicate;
+
+/**
+ * 文档文本提取器（每种文档类型一个实现）
+ *
+ * 提取器只处理已经落盘的文件，类型识别、临时文件和缓存由 DocumentExtractionService 统一负责；
+ * 提取结果超过各自的字符上限时截断，文件损坏或格式不符时抛出 IOException。
+ */
+public interface DocumentExtractor {
+
+    /**
+     * 支持的文档类型
+     */
+    DocumentType getType();
+
+    /**
+     * 提取文件的全部文本
+     */
+    String extract(File file) throws IOException;
+
+    /**
+     * 逐段输出文件文本，sink 返回 false 时停止提取；不做字符数截断，读多少由调用方决定
+     * 分段方式由实现决定（PDF按页段、DOCX按段落、TXT按固定大小），sink 收到的 CharSequence 可能被复用，只在回调期间有效。
+     * 默认实现先提取全文再一次性输出。
+     */
+    default void extract(File file, Predicate<CharSequence> sink) throws IOException {
+        sink.test(extract(file));
+    }
+
+    /**
+     * 直接提取上传文件（先落到临时文件），不经过类型识别和缓存，用于基准测试等单独调用的场合
+     */
+    default String extract(MultipartFile file) throws IOException {
+        Path spool = Files.createTempFile("lychat-doc-", getType().getExtension());
+        try {
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return extract(spool.toFile());
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+}
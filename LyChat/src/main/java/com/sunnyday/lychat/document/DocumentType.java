@@ -0,0 +1,105 @@
+package com.sunnyday.lychat.document;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.zip.ZipFile;
+
+/**
+ * 支持的文档类型，按文件头的特征字节识别，不依赖扩展名
+ */
+public enum DocumentType {
+
+    TXT(".txt"),
+
+    PDF(".pdf"),
+
+    /** 旧版Word（OLE2复合文档） */
+    DOC(".doc"),
+
+    /** 新版Word（OOXML，ZIP容器） */
+    DOCX(".docx");
+
+    /** 识别类型需要读取的文件头字节数 */
+    public static final int HEADER_BYTES = 1024;
+
+    private static final byte[] PDF_MAGIC = {'%', 'P', 'D', 'F', '-'};
+    private static final byte[] OLE2_MAGIC = {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1};
+    private static final byte[] ZIP_MAGIC = {'P', 'K', 0x03, 0x04};
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    /** DOCX主文档部件，xlsx/pptx等其它OOXML没有这个条目 */
+    private static final String WORD_MAIN_PART = "word/document.xml";
+
+    private final String extension;
+
+    DocumentType(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * 按文件头识别类型：%PDF- 为PDF（前面只允许UTF-8 BOM和空白），OLE2签名为DOC，
+     * ZIP签名且包含 word/document.xml 条目为DOCX（xlsx、pptx等其它ZIP不支持），
+     * 不含NUL字节的内容视为文本；都不符合时返回null
+     *
+     * @param header 文件开头最多 HEADER_BYTES 个字节
+     * @param length header 中的有效字节数
+     * @param file   完整文件，ZIP容器需要读取目录确认是否为Word文档
+     */
+    public static DocumentType detect(byte[] header, int length, Path file) {
+        if (startsWith(header, length, OLE2_MAGIC, 0)) {
+            return DOC;
+        }
+        if (startsWith(header, length, ZIP_MAGIC, 0)) {
+            return isWordDocument(file) ? DOCX : null;
+        }
+        if (startsWith(header, length, PDF_MAGIC, pdfOffset(header, length))) {
+            return PDF;
+        }
+        for (int i = 0; i < length; i++) {
+            if (header[i] == 0) {
+                return null;
+            }
+        }
+        return TXT;
+    }
+
+    /**
+     * 跳过开头的UTF-8 BOM和空白后的位置，%PDF- 只能出现在这里
+     */
+    private static int pdfOffset(byte[] header, int length) {
+        int offset = startsWith(header, length, UTF8_BOM, 0) ? UTF8_BOM.length : 0;
+        while (offset < length && isWhitespace(header[offset])) {
+            offset++;
+        }
+        return offset;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '\f';
+    }
+
+    private static boolean isWordDocument(Path file) {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            return zip.getEntry(WORD_MAIN_PART) != null;
+        } catch (IOException e) {
+            // 目录损坏或不是合法ZIP，按不支持处理
+            return false;
+        }
+    }
+
+    private static boolean startsWith(byte[] header, int length, byte[] magic, int offset) {
+        if (offset + magic.length > length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header[offset + i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
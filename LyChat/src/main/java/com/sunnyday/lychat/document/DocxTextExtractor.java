@@ -0,0 +1,204 @@
+package com.sunnyday.lychat.document;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * DOCX文本提取（StAX流式解析）
+ *
+ * 用 ZipFile 按条目随机读取，只解压 word/document.xml，图片等媒体条目完全不读；
+ * 正文用 StAX 边读边输出段落，不构建 XWPFDocument。输出格式与 XWPFWordExtractor 的正文部分一致：
+ * 段落以换行结束，表格同一行的单元格以制表符分隔、行尾换行，w:tab 输出制表符，w:br/w:cr 输出换行。
+ * 不包含页眉页脚、脚注和批注；修订中已删除的文字（w:delText）、域代码（w:instrText）和
+ * mc:Fallback 中与新格式重复的内容同样跳过。
+ */
+public class DocxTextExtractor implements DocumentExtractor {
+
+    private static final String DOCUMENT_PART = "word/document.xml";
+    private static final String W = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+    private static final String MC = "http://schemas.openxmlformats.org/markup-compatibility/2006";
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    private final int maxChars;
+
+    public DocxTextExtractor(int maxChars) {
+        this.maxChars = maxChars;
+    }
+
+    @Override
+    public DocumentType getType() {
+        return DocumentType.DOCX;
+    }
+
+    /**
+     * 提取全文，超过 maxChars 时截断
+     */
+    @Override
+    public String extract(File docx) throws IOException {
+        StringBuilder text = new StringBuilder();
+        extract(docx, paragraph -> {
+            if (text.length() + paragraph.length() >= maxChars) {
+                text.append(paragraph, 0, maxChars - text.length());
+                return false;
+            }
+            text.append(paragraph);
+            return true;
+        });
+        return text.toString();
+    }
+
+    /**
+     * 逐段输出正文（每段带结尾的换行；表格按行输出），sink 返回 false 时停止解析
+     */
+    @Override
+    public void extract(File docx, Predicate<CharSequence> sink) throws IOException {
+        try (ZipFile zip = new ZipFile(docx)) {
+            ZipEntry entry = zip.getEntry(DOCUMENT_PART);
+            if (entry == null) {
+                throw new IOException("不是有效的DOCX文件：缺少 " + DOCUMENT_PART);
+            }
+            try (InputStream in = zip.getInputStream(entry)) {
+                parse(in, sink);
+            }
+        }
+    }
+
+    private static void parse(InputStream in, Predicate<CharSequence> sink) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            StringBuilder block = new StringBuilder(256);
+            // 表格嵌套时每层一个标记：当前行是否已有单元格、当前单元格是否已有段落
+            Deque<boolean[]> tables = new ArrayDeque<>();
+            int skipDepth = 0;
+            boolean inText = false;
+            boolean inTabStops = false;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (skipDepth > 0) {
+                        skipDepth++;
+                        continue;
+                    }
+                    String ns = reader.getNamespaceURI();
+                    String name = reader.getLocalName();
+                    if (MC.equals(ns) && "Fallback".equals(name)) {
+                        skipDepth = 1;
+                    } else if (W.equals(ns)) {
+                        switch (name) {
+                            case "t":
+                                inText = true;
+                                break;
+                            case "delText":
+                            case "instrText":
+                                skipDepth = 1;
+                                break;
+                            case "tabs":
+                                inTabStops = true;
+                                break;
+                            case "tab":
+                                // w:tabs 中的 w:tab 是段落属性里的制表位定义，不是文字
+                                if (!inTabStops) {
+                                    block.append('\t');
+                                }
+                                break;
+                            case "br":
+                            case "cr":
+                                block.append('\n');
+                                break;
+                            case "tbl":
+                                tables.push(new boolean[2]);
+                                break;
+                            case "tr":
+                                if (!tables.isEmpty()) {
+                                    tables.peek()[0] = false;
+                                }
+                                break;
+                            case "tc":
+                                if (!tables.isEmpty()) {
+                                    boolean[] table = tables.peek();
+                                    if (table[0]) {
+                                        block.append('\t');
+                                    }
+                                    table[0] = true;
+                                    table[1] = false;
+                                }
+                                break;
+                            case "p":
+                                if (!tables.isEmpty()) {
+                                    boolean[] table = tables.peek();
+                                    if (table[1]) {
+                                        block.append('\n');
+                                    }
+                                    table[1] = true;
+                                }
+                                break;
+                            default:
+                                break;
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (skipDepth > 0) {
+                        skipDepth--;
+                        continue;
+                    }
+                    if (!W.equals(reader.getNamespaceURI())) {
+                        continue;
+                    }
+                    String name = reader.getLocalName();
+                    if ("t".equals(name)) {
+                        inText = false;
+                    } else if ("tabs".equals(name)) {
+                        inTabStops = false;
+                    } else if ("p".equals(name) && tables.isEmpty()
+                            || "tr".equals(name) && !tables.isEmpty()) {
+                        block.append('\n');
+                        if (!sink.test(block)) {
+                            return;
+                        }
+                        block.setLength(0);
+                    } else if ("tbl".equals(name) && !tables.isEmpty()) {
+                        tables.pop();
+                    }
+                } else if (inText && skipDepth == 0
+                        && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                        || event == XMLStreamConstants.SPACE)) {
+                    block.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                }
+            }
+            if (block.length() > 0) {
+                sink.test(block);
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("DOCX正文解析失败: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // 关闭失败不影响已提取的内容
+                }
+            }
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+}
@@ -0,0 +1,140 @@
+package com.sunnyday.lychat.document;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * PDF文本提取
+ *
+ * 从落盘后的文件加载，PDFBox 按 MemoryUsageSetting 只在堆内保留 maxMainMemoryBytes，其余解析数据放在临时 scratch 文件中，
+ * 大PDF不会整份进堆。页数超过 pagesPerTask 时按连续页段拆成多个任务，在有界线程池中并行提取
+ * （PDDocument 不是线程安全的，每个任务各自打开一份），再按页段顺序拼接（或逐段交给调用方，不拼接全文）；
+ * 拼接到 maxChars 个字符后截断，并取消尚未完成的后续页段。线程池队列满时由调用线程自己执行页段。
+ */
+@Slf4j
+public class PdfTextExtractor implements DocumentExtractor, AutoCloseable {
+
+    private final int pagesPerTask;
+    private final int maxChars;
+    private final long maxMainMemoryBytes;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+
+    public PdfTextExtractor(int parallelism, int queueCapacity, int pagesPerTask, int maxChars,
+                            long maxMainMemoryBytes, long timeoutMillis) {
+        this.pagesPerTask = Math.max(1, pagesPerTask);
+        this.maxChars = maxChars;
+        this.maxMainMemoryBytes = maxMainMemoryBytes;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "lychat-pdf-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public DocumentType getType() {
+        return DocumentType.PDF;
+    }
+
+    @Override
+    public String extract(File pdf) throws IOException {
+        StringBuilder text = new StringBuilder();
+        extract(pdf, part -> {
+            if (text.length() + part.length() >= maxChars) {
+                text.append(part, 0, maxChars - text.length());
+                log.info("PDF文本超过{}个字符，已截断", maxChars);
+                return false;
+            }
+            text.append(part);
+            return true;
+        });
+        return text.toString();
+    }
+
+    /**
+     * 按页段顺序逐段输出，sink 返回 false 时取消其余页段
+     * 最多提前提交 2 × 并行度 个页段，调用方消费得慢时，已提取但尚未输出的文本也有上限
+     */
+    @Override
+    public void extract(File pdf, Predicate<CharSequence> sink) throws IOException {
+        int pageCount;
+        try (PDDocument document = load(pdf)) {
+            pageCount = document.getNumberOfPages();
+            if (pageCount <= pagesPerTask) {
+                sink.test(strip(document, 1, pageCount));
+                return;
+            }
+        }
+
+        int lookahead = executor.getMaximumPoolSize() * 2;
+        Deque<Future<String>> ranges = new ArrayDeque<>();
+        int nextPage = 1;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            while (nextPage <= pageCount || !ranges.isEmpty()) {
+                while (nextPage <= pageCount && ranges.size() < lookahead) {
+                    int from = nextPage;
+                    int to = Math.min(pageCount, nextPage + pagesPerTask - 1);
+                    ranges.add(executor.submit(() -> {
+                        try (PDDocument document = load(pdf)) {
+                            return strip(document, from, to);
+                        }
+                    }));
+                    nextPage = to + 1;
+                }
+                String part = ranges.poll().get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (!sink.test(part)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("PDF解析被中断", e);
+        } catch (TimeoutException e) {
+            throw new IOException("PDF解析超时（" + pageCount + "页）", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+        } finally {
+            for (Future<String> range : ranges) {
+                range.cancel(true);
+            }
+        }
+    }
+
+    private PDDocument load(File pdf) throws IOException {
+        return PDDocument.load(pdf, MemoryUsageSetting.setupMixed(maxMainMemoryBytes));
+    }
+
+    private static String strip(PDDocument document, int from, int to) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setStartPage(from);
+        stripper.setEndPage(to);
+        return stripper.getText(document);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,63 @@
+package com.sunnyday.lychat.document;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.function.Predicate;
+
+/**
+ * 纯文本提取（按UTF-8解码，去掉开头的BOM），超过 maxChars 时截断，不会把超大文件整个读进内存
+ */
+public class TxtTextExtractor implements DocumentExtractor {
+
+    private final int maxChars;
+
+    public TxtTextExtractor(int maxChars) {
+        this.maxChars = maxChars;
+    }
+
+    @Override
+    public DocumentType getType() {
+        return DocumentType.TXT;
+    }
+
+    @Override
+    public String extract(File file) throws IOException {
+        StringBuilder text = new StringBuilder((int) Math.min(maxChars, file.length()));
+        char[] buffer = new char[8192];
+        try (Reader reader = new InputStreamReader(Files.newInputStream(file.toPath()), StandardCharsets.UTF_8)) {
+            int read;
+            while (text.length() < maxChars
+                    && (read = reader.read(buffer, 0, Math.min(buffer.length, maxChars - text.length()))) != -1) {
+                text.append(buffer, 0, read);
+            }
+        }
+        if (text.length() > 0 && text.charAt(0) == '﻿') {
+            text.deleteCharAt(0);
+        }
+        return text.toString();
+    }
+
+    /**
+     * 按8K字符分段输出，不受 maxChars 限制
+     */
+    @Override
+    public void extract(File file, Predicate<CharSequence> sink) throws IOException {
+        char[] buffer = new char[8192];
+        boolean first = true;
+        try (Reader reader = new InputStreamReader(Files.newInputStream(file.toPath()), StandardCharsets.UTF_8)) {
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                int from = first && read > 0 && buffer[0] == '﻿' ? 1 : 0;
+                first = false;
+                if (read > from && !sink.test(CharBuffer.wrap(buffer, from, read - from))) {
+                    return;
+                }
+            }
+        }
+    }
+}
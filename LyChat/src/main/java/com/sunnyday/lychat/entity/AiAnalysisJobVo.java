@@ -0,0 +1,51 @@
+package com.sunnyday.lychat.entity;
+
+import lombok.Data;
+
+/**
+ * 异步分析任务值对象
+ */
+@Data
+public class AiAnalysisJobVo {
+    /**
+     * 任务ID
+     */
+    private String jobId;
+
+    /**
+     * 任务状态：PENDING（排队中）、RUNNING（执行中）、SUCCESS（完成）、PARTIAL（完成但只有AI痕迹分析结果）、FAILED（失败）
+     */
+    private String status;
+
+    /**
+     * 当前阶段：QUEUED、EXTRACTING、SCORING、LLM、PARSING、DONE
+     */
+    private String stage;
+
+    /**
+     * 提示或错误信息
+     */
+    private String message;
+
+    /**
+     * 分析结果（任务完成后才有值）
+     */
+    private AiAnalysisResultVo result;
+
+    /**
+     * 创建时间（毫秒时间戳）
+     */
+    private Long createTime;
+
+    /**
+     * 最近更新时间（毫秒时间戳）
+     */
+    private Long updateTime;
+
+    /**
+     * 任务是否已结束
+     */
+    public boolean isFinished() {
+        return "SUCCESS".equals(status) || "PARTIAL".equals(status) || "FAILED".equals(status);
+    }
+}
@@ -20,6 +20,19 @@ public class AiAnalysisResultVo {
      */
     private List<AiDimensionVo> aiDimensions;
 
+    /**
+     * 逐句AI痕迹热力图
+     * 每3个整数为一句：在提取文本中的起始偏移（包含）、结束偏移（不包含）、该句所在窗口的AI痕迹分（0-100，越高越像AI生成）
+     * 未开启热力图时为null
+     */
+    private int[] aiHeatmap;
+
+    /**
+     * 热力图偏移所指向的提取文本（上传PDF、DOCX时客户端没有这份文本，需要用它定位各句）
+     * 与 aiHeatmap 同时返回，未开启热力图时为null；结果缓存不保存这两项
+     */
+    private String aiHeatmapText;
+
     /**
      * 质量维度
      * 维度名有六个：志愿动机的明确性与具体性、学习计划与未来目标的合理性、表达力与说服力、与院系专业的契合度、文章结构与逻辑展开、语法与日语的准确性
@@ -32,4 +45,11 @@ public class AiAnalysisResultVo {
      * 首先给出完整的修改建议，然后给出修改后的完整材料
      */
     private List<String> recommendations;
+
+    /**
+     * 是否为部分结果
+     * 大模型分析失败或超时时为true，此时只包含aiScore和aiDimensions，qualityDimensions和recommendations为空
+     * 拆分模式下部分子请求失败时也为true，此时只包含成功的子请求对应的内容
+     */
+    private Boolean partial;
 }
\ No newline at end of file
@@ -0,0 +1,195 @@
+package com.sunnyday.lychat.llm;
+
+import com.ruoyi.common.exception.ServiceException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 自适应并发限制（AIMD）
+ * 并发上限随调用结果调整：调用成功且不慢时加性增长（每次 +1/limit，约每一轮满负荷调用 +1），
+ * 调用失败或变慢时乘性减小（limit * backoffRatio），上限保持在 [minLimit, maxLimit] 之间。
+ * "变慢"相对观测到的耗时基线判断（梯度方式）：基线是同一调用类别最近约 baselineWindow 次成功调用耗时的指数移动平均，
+ * 耗时超过 基线 * latencyTolerance 即视为变慢，所以供应商从10秒变到60秒时上限立即收缩，
+ * 而基线随后逐渐跟上新的耗时水平，上限重新开始增长；超过固定的慢调用阈值同样视为变慢。
+ * 基线按调用类别（如咨询对话、整篇分析、会话摘要）分别维护：同一个模型上几秒的短回复和一分钟以上的整篇分析混在一起时，
+ * 长调用只和长调用比较，不会因为拉高了共享均值或被短调用的均值衡量而每次都被判为变慢、把上限一路压到下限。
+ * 超过上限的调用进入有界等待队列，队列已满立即拒绝，等待超时同样拒绝，不会让请求线程堆积在模型供应商的读超时上。
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long slowCallNanos;
+    private final double latencyTolerance;
+    private final int baselineWindow;
+    private final int maxQueue;
+    private final long queueTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    private double limit;
+    /** 各调用类别成功调用耗时的指数移动平均（纳秒） */
+    private final Map<String, Double> baselineNanos = new LinkedHashMap<>();
+    private int inFlight;
+    private int waiting;
+
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedTimeout = new LongAdder();
+    private final LongAdder decreases = new LongAdder();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                                      long slowCallMillis, double latencyTolerance, int baselineWindow,
+                                      int maxQueue, long queueTimeoutMillis) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.latencyTolerance = latencyTolerance;
+        this.baselineWindow = Math.max(1, baselineWindow);
+        this.maxQueue = maxQueue;
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * 获取调用许可，队列已满或等待超时时抛出 ServiceException
+     */
+    public void acquire() {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return;
+            }
+            if (waiting >= maxQueue) {
+                rejectedQueueFull.increment();
+                throw new ServiceException("大模型调用繁忙，请稍后再试");
+            }
+            waiting++;
+            try {
+                long nanos = queueTimeoutNanos;
+                while (inFlight >= (int) limit) {
+                    if (nanos <= 0) {
+                        rejectedTimeout.increment();
+                        throw new ServiceException("大模型调用繁忙，请稍后再试");
+                    }
+                    nanos = available.awaitNanos(nanos);
+                }
+                inFlight++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServiceException("等待大模型调用许可时被中断");
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 归还许可并根据本次调用结果调整上限
+     *
+     * @param callClass 调用类别，耗时只和同类别的基线比较
+     * @param latencyNanos 调用耗时
+     * @param failed 调用是否失败
+     */
+    public void release(String callClass, long latencyNanos, boolean failed) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= (int) limit;
+            inFlight--;
+            Double baseline = baselineNanos.get(callClass);
+            boolean slow = latencyNanos > slowCallNanos
+                    || baseline != null && latencyNanos > baseline * latencyTolerance;
+            if (!failed) {
+                // 慢调用也计入基线，耗时持续上升时基线逐渐跟上，上限不会一直停在下限
+                baselineNanos.put(callClass, baseline == null ? latencyNanos
+                        : baseline + (latencyNanos - baseline) / baselineWindow);
+            }
+            if (failed || slow) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                decreases.increment();
+            } else if (saturated) {
+                // 只有上限被用满时才增长，避免低负载期间上限无意义地涨到最大
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 归还未实际执行的调用的许可（不调整上限）
+     */
+    public void abandon() {
+        lock.lock();
+        try {
+            inFlight--;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 各调用类别当前的耗时基线（毫秒）
+     */
+    public Map<String, Long> getBaselineMillis() {
+        lock.lock();
+        try {
+            Map<String, Long> baselines = new LinkedHashMap<>();
+            baselineNanos.forEach((callClass, nanos) -> baselines.put(callClass, TimeUnit.NANOSECONDS.toMillis(nanos.longValue())));
+            return baselines;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejectedQueueFull() {
+        return rejectedQueueFull.sum();
+    }
+
+    public long getRejectedTimeout() {
+        return rejectedTimeout.sum();
+    }
+
+    public long getDecreases() {
+        return decreases.sum();
+    }
+}
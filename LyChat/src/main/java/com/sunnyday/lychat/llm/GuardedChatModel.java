@@ -0,0 +1,74 @@
+package com.sunnyday.lychat.llm;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+
+import java.util.Set;
+
+/**
+ * 带调用保护（熔断 + 自适应并发限制）的 ChatModel 装饰器
+ * 直接转发 chat(ChatRequest)，被装饰模型自身的监听器、默认参数照常生效
+ */
+public class GuardedChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final ModelGuard guard;
+    private final String callClass;
+
+    public GuardedChatModel(ChatModel delegate, ModelGuard guard, String callClass) {
+        this.delegate = delegate;
+        this.guard = guard;
+        this.callClass = callClass;
+    }
+
+    /**
+     * 同一模型和调用保护、另一调用类别的装饰器：并发上限共享，变慢按该类别自己的耗时基线判断
+     */
+    public GuardedChatModel withCallClass(String callClass) {
+        return new GuardedChatModel(delegate, guard, callClass);
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        ModelGuard.Permit permit = guard.acquire(callClass);
+        try {
+            ChatResponse response = delegate.chat(chatRequest);
+            permit.success();
+            return response;
+        } catch (RuntimeException e) {
+            // 调用方取消（大模型分支超时后 cancel(true) 中断当前线程）不是供应商的失败
+            if (ModelGuard.isCancellation(e)) {
+                permit.abandon();
+            } else {
+                permit.failure();
+            }
+            throw e;
+        } catch (Error e) {
+            permit.failure();
+            throw e;
+        }
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    public ModelGuard getGuard() {
+        return guard;
+    }
+}
@@ -0,0 +1,88 @@
+package com.sunnyday.lychat.llm;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+
+import java.util.Set;
+
+/**
+ * 带调用保护（熔断 + 自适应并发限制）的 StreamingChatModel 装饰器
+ * 许可从开始调用持有到流结束（完成或出错），耗时按整个流计算；被拒绝时通过 handler.onError 通知调用方
+ */
+public class GuardedStreamingChatModel implements StreamingChatModel {
+
+    private final StreamingChatModel delegate;
+    private final ModelGuard guard;
+    private final String callClass;
+
+    public GuardedStreamingChatModel(StreamingChatModel delegate, ModelGuard guard, String callClass) {
+        this.delegate = delegate;
+        this.guard = guard;
+        this.callClass = callClass;
+    }
+
+    /**
+     * 同一模型和调用保护、另一调用类别的装饰器：并发上限共享，变慢按该类别自己的耗时基线判断
+     */
+    public GuardedStreamingChatModel withCallClass(String callClass) {
+        return new GuardedStreamingChatModel(delegate, guard, callClass);
+    }
+
+    @Override
+    public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        ModelGuard.Permit permit;
+        try {
+            permit = guard.acquire(callClass);
+        } catch (RuntimeException e) {
+            handler.onError(e);
+            return;
+        }
+        try {
+            delegate.chat(chatRequest, new StreamingChatResponseHandler() {
+                @Override
+                public void onPartialResponse(String partialResponse) {
+                    handler.onPartialResponse(partialResponse);
+                }
+
+                @Override
+                public void onCompleteResponse(ChatResponse completeResponse) {
+                    permit.success();
+                    handler.onCompleteResponse(completeResponse);
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    permit.failure();
+                    handler.onError(error);
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            permit.failure();
+            throw e;
+        }
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    public ModelGuard getGuard() {
+        return guard;
+    }
+}
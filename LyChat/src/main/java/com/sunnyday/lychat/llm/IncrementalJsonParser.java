@@ -0,0 +1,200 @@
+package com.sunnyday.lychat.llm;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * 增量JSON解析器（用于大模型流式输出）
+ *
+ * 按token片段逐段喂入，只做括号/字符串层级的扫描，不构建对象：
+ * 根对象中指定字段（如 qualityDimensions、recommendations）的数组元素一旦完整闭合，
+ * 立即把该元素的原始JSON文本回调给监听器，由调用方再映射为具体对象。
+ * 根对象 '{' 之前的内容（如 ```json 代码块标记、说明文字）会被跳过；根对象结束后的内容忽略。
+ * 已接收的全部文本保留在缓冲区中，流结束后可用 json() 取出根对象（不含前后的代码块标记和说明文字）做一次完整解析。
+ */
+public final class IncrementalJsonParser {
+
+    /**
+     * 数组元素回调
+     */
+    public interface Listener {
+        /**
+         * @param field 根对象中的字段名
+         * @param index 元素在数组中的序号（从0开始）
+         * @param json 元素的原始JSON文本（对象、数组、字符串字面量或数字等）
+         */
+        void onArrayElement(String field, int index, String json);
+    }
+
+    private final Set<String> fields;
+    private final Listener listener;
+    private final StringBuilder buffer = new StringBuilder();
+
+    /** 下一个待扫描字符的位置 */
+    private int pos;
+
+    private boolean started;
+
+    /** 根对象 '{' 的位置与结束 '}' 之后的位置（未闭合时为-1） */
+    private int rootStart = -1;
+    private int rootEnd = -1;
+
+    /** 当前打开的容器层数（根对象为1） */
+    private int depth;
+
+    /** containerIsArray[d]：第d层容器是否为数组 */
+    private boolean[] containerIsArray = new boolean[16];
+
+    private boolean inString;
+    private boolean escape;
+    private int stringStart;
+
+    /** 根对象当前是否在等待字段名 */
+    private boolean expectKey;
+    private String currentKey;
+
+    /** 正在跟踪的根字段数组（不在跟踪范围内时为null） */
+    private String arrayField;
+    private int elementIndex;
+    private int elementStart = -1;
+    private boolean elementPrimitive;
+
+    public IncrementalJsonParser(Set<String> fields, Listener listener) {
+        this.fields = fields;
+        this.listener = listener;
+    }
+
+    /**
+     * 喂入一段流式输出
+     */
+    public void accept(CharSequence chunk) {
+        buffer.append(chunk);
+        int len = buffer.length();
+        while (pos < len) {
+            int i = pos++;
+            step(buffer.charAt(i), i);
+        }
+    }
+
+    /**
+     * 根对象的完整文本，根对象尚未闭合时返回null
+     */
+    public String json() {
+        return isComplete() ? buffer.substring(rootStart, rootEnd) : null;
+    }
+
+    /**
+     * 根对象是否已完整闭合
+     */
+    public boolean isComplete() {
+        return started && depth == 0;
+    }
+
+    private void step(char c, int i) {
+        if (!started) {
+            if (c == '{') {
+                started = true;
+                rootStart = i;
+                push(false);
+                expectKey = true;
+            }
+            return;
+        }
+        if (depth == 0) {
+            return;
+        }
+        if (inString) {
+            if (escape) {
+                escape = false;
+            } else if (c == '\\') {
+                escape = true;
+            } else if (c == '"') {
+                inString = false;
+                onStringEnd(i);
+            }
+            return;
+        }
+        // 数字、true/false/null 等元素在遇到分隔符时结束
+        if (elementStart >= 0 && elementPrimitive && (c == ',' || c == ']' || c == '}' || isWhitespace(c))) {
+            emit(i);
+        }
+        switch (c) {
+            case '"':
+                inString = true;
+                stringStart = i;
+                markElementStart(i, false);
+                break;
+            case '{':
+            case '[':
+                markElementStart(i, false);
+                if (depth == 1 && c == '[' && !expectKey) {
+                    arrayField = fields.contains(currentKey) ? currentKey : null;
+                    elementIndex = 0;
+                }
+                push(c == '[');
+                break;
+            case '}':
+            case ']':
+                depth--;
+                if (depth == 2 && elementStart >= 0 && !elementPrimitive) {
+                    emit(i + 1);
+                } else if (depth == 1) {
+                    arrayField = null;
+                } else if (depth == 0) {
+                    rootEnd = i + 1;
+                }
+                break;
+            case ',':
+                if (depth == 1) {
+                    expectKey = true;
+                }
+                break;
+            case ':':
+                if (depth == 1) {
+                    expectKey = false;
+                }
+                break;
+            default:
+                if (!isWhitespace(c)) {
+                    markElementStart(i, true);
+                }
+                break;
+        }
+    }
+
+    private void onStringEnd(int i) {
+        if (depth == 1 && expectKey) {
+            currentKey = buffer.substring(stringStart + 1, i);
+        } else if (depth == 2 && elementStart == stringStart && !elementPrimitive) {
+            emit(i + 1);
+        }
+    }
+
+    /**
+     * 位于跟踪数组的直接子层且尚未开始元素时，记录元素起点
+     */
+    private void markElementStart(int i, boolean primitive) {
+        if (depth == 2 && arrayField != null && containerIsArray[2] && elementStart < 0) {
+            elementStart = i;
+            elementPrimitive = primitive;
+        }
+    }
+
+    private void emit(int end) {
+        String json = buffer.substring(elementStart, end);
+        elementStart = -1;
+        listener.onArrayElement(arrayField, elementIndex++, json);
+    }
+
+    private void push(boolean array) {
+        depth++;
+        if (depth == containerIsArray.length) {
+            containerIsArray = Arrays.copyOf(containerIsArray, depth << 1);
+        }
+        containerIsArray[depth] = array;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+}
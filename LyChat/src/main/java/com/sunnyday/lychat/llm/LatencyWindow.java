@@ -0,0 +1,83 @@
+package com.sunnyday.lychat.llm;
+
+import java.util.Arrays;
+
+/**
+ * 最近N次调用的耗时和成败滑动窗口，用于计算单个模型供应商的 p50/p95 耗时和失败率
+ * 失败调用只计入失败率，不计入耗时分位数；分位数在窗口变化后第一次查询时排序计算并缓存。
+ */
+public final class LatencyWindow {
+
+    private final long[] latencies;
+    private final boolean[] failed;
+    private int next;
+    private int size;
+    private int failures;
+    private int latencySize;
+
+    private long[] sorted;
+
+    public LatencyWindow(int windowSize) {
+        this.latencies = new long[windowSize];
+        this.failed = new boolean[windowSize];
+    }
+
+    public synchronized void recordSuccess(long latencyNanos) {
+        record(latencyNanos, false);
+    }
+
+    public synchronized void recordFailure() {
+        record(0L, true);
+    }
+
+    private void record(long latencyNanos, boolean failure) {
+        if (size == latencies.length) {
+            if (failed[next]) {
+                failures--;
+            } else {
+                latencySize--;
+            }
+        } else {
+            size++;
+        }
+        latencies[next] = latencyNanos;
+        failed[next] = failure;
+        if (failure) {
+            failures++;
+        } else {
+            latencySize++;
+        }
+        next = (next + 1) % latencies.length;
+        sorted = null;
+    }
+
+    /**
+     * 成功调用耗时的分位数（毫秒），没有样本时返回 -1
+     */
+    public synchronized long percentileMillis(double quantile) {
+        if (latencySize == 0) {
+            return -1L;
+        }
+        if (sorted == null) {
+            long[] values = new long[latencySize];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (!failed[i]) {
+                    values[count++] = latencies[i];
+                }
+            }
+            Arrays.sort(values);
+            sorted = values;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1_000_000L;
+    }
+
+    public synchronized double getErrorRate() {
+        return size == 0 ? 0.0 : (double) failures / size;
+    }
+
+    public synchronized int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,155 @@
+package com.sunnyday.lychat.llm;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 大模型调用熔断器
+ * 按最近 windowSize 次调用的结果计算失败率和慢调用率，调用数达到 minCalls 且任一比例超过阈值时打开熔断，
+ * 打开期间直接拒绝调用（不占用线程等待供应商超时）；openMillis 后进入半开状态，只放行 halfOpenCalls 次试探调用，
+ * 全部成功则关闭熔断，任一失败或过慢则重新打开。
+ */
+public final class ModelCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    /** 最近调用结果的环形缓冲：0=正常，1=失败，2=慢调用 */
+    private final byte[] window;
+    private int windowPos;
+    private int windowCount;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openUntil;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public ModelCircuitBreaker(int windowSize, int minCalls, double failureRateThreshold,
+                               double slowCallRateThreshold, long openMillis, int halfOpenCalls) {
+        this.window = new byte[windowSize];
+        this.minCalls = minCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    /**
+     * 是否放行本次调用（放行后必须调用 record 或 abandon）
+     */
+    public synchronized boolean tryPass() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openUntil < 0) {
+                rejected.increment();
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenPermits = 0;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= halfOpenCalls) {
+                rejected.increment();
+                return false;
+            }
+            halfOpenPermits++;
+        }
+        return true;
+    }
+
+    /**
+     * 记录一次已执行调用的结果
+     */
+    public synchronized void record(boolean failed, boolean slow) {
+        if (state == State.HALF_OPEN) {
+            if (failed || slow) {
+                open();
+            } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // 打开前已放行的调用，结果不再计入窗口
+            return;
+        }
+        byte outcome = failed ? (byte) 1 : slow ? (byte) 2 : (byte) 0;
+        if (windowCount == window.length) {
+            byte evicted = window[windowPos];
+            if (evicted == 1) {
+                failures--;
+            } else if (evicted == 2) {
+                slowCalls--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowPos] = outcome;
+        windowPos = (windowPos + 1) % window.length;
+        if (outcome == 1) {
+            failures++;
+        } else if (outcome == 2) {
+            slowCalls++;
+        }
+        if (windowCount >= minCalls
+                && ((double) failures / windowCount >= failureRateThreshold
+                || (double) slowCalls / windowCount >= slowCallRateThreshold)) {
+            open();
+        }
+    }
+
+    /**
+     * 放行后未实际执行（例如被并发限制拒绝），归还半开状态的试探名额
+     */
+    public synchronized void abandon() {
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return windowCount == 0 ? 0.0 : (double) failures / windowCount;
+    }
+
+    public synchronized double getSlowCallRate() {
+        return windowCount == 0 ? 0.0 : (double) slowCalls / windowCount;
+    }
+
+    public long getOpened() {
+        return opened.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.nanoTime() + openNanos;
+        opened.increment();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        windowPos = 0;
+        windowCount = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+}
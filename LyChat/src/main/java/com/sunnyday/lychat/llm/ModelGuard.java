@@ -0,0 +1,154 @@
+package com.sunnyday.lychat.llm;
+
+import com.ruoyi.common.exception.ServiceException;
+
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个模型供应商的调用保护：熔断器 + 自适应并发限制
+ * 调用前先经过熔断器（打开时立即拒绝），再获取并发许可（队列满或等待超时时拒绝），
+ * 调用结束后用耗时和成败同时更新并发上限和熔断窗口。
+ * 并发上限由同一模型上的所有调用共享，变慢判断按调用类别（callClass）各自的耗时基线进行。
+ */
+public final class ModelGuard {
+
+    /** 调用类别：咨询对话 */
+    public static final String CALL_CHAT = "chat";
+    /** 调用类别：整篇文档分析 */
+    public static final String CALL_ANALYSIS = "analysis";
+    /** 调用类别：拆分模式子请求的前缀，后接子请求名（如 split-rewrite） */
+    public static final String CALL_SPLIT_PREFIX = "split-";
+    /** 调用类别：会话摘要 */
+    public static final String CALL_SUMMARY = "summary";
+
+    private final String name;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ModelCircuitBreaker circuitBreaker;
+    private final long slowCallNanos;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+
+    public ModelGuard(String name, AdaptiveConcurrencyLimiter limiter, ModelCircuitBreaker circuitBreaker, long slowCallMillis) {
+        this.name = name;
+        this.limiter = limiter;
+        this.circuitBreaker = circuitBreaker;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取调用许可，熔断打开或并发已满时抛出 ServiceException
+     *
+     * @param callClass 调用类别，见 GuardedChatModel#withCallClass
+     */
+    public Permit acquire(String callClass) {
+        if (!circuitBreaker.tryPass()) {
+            throw new ServiceException("大模型服务暂时不可用，请稍后再试");
+        }
+        try {
+            limiter.acquire();
+        } catch (RuntimeException e) {
+            circuitBreaker.abandon();
+            throw e;
+        }
+        calls.increment();
+        return new Permit(callClass);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("limit", limiter.getLimit());
+        stats.put("latencyBaselineMillis", limiter.getBaselineMillis());
+        stats.put("inFlight", limiter.getInFlight());
+        stats.put("waiting", limiter.getWaiting());
+        stats.put("rejectedQueueFull", limiter.getRejectedQueueFull());
+        stats.put("rejectedTimeout", limiter.getRejectedTimeout());
+        stats.put("limitDecreases", limiter.getDecreases());
+        stats.put("circuitState", circuitBreaker.getState().name());
+        stats.put("failureRate", circuitBreaker.getFailureRate());
+        stats.put("slowCallRate", circuitBreaker.getSlowCallRate());
+        stats.put("circuitOpened", circuitBreaker.getOpened());
+        stats.put("circuitRejected", circuitBreaker.getRejected());
+        stats.put("calls", calls.sum());
+        stats.put("failures", failures.sum());
+        stats.put("abandoned", abandoned.sum());
+        return stats;
+    }
+
+    /**
+     * 异常是否由调用方取消或中断引起，而不是供应商失败（读超时 SocketTimeoutException 仍算失败）
+     */
+    public static boolean isCancellation(Throwable error) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof InterruptedException || e instanceof CancellationException
+                    || e instanceof ClosedByInterruptException
+                    || e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException)) {
+                return true;
+            }
+            if (e.getCause() == e) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 一次调用的许可，success/failure 只生效一次（流式调用的回调可能重复结束）
+     */
+    public final class Permit {
+        private final String callClass;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(String callClass) {
+            this.callClass = callClass;
+        }
+
+        public void success() {
+            release(false);
+        }
+
+        public void failure() {
+            release(true);
+        }
+
+        /**
+         * 调用被调用方取消或中断（如大模型分支超时后 cancel(true)）：归还许可，不计入并发调整和熔断统计
+         */
+        public void abandon() {
+            if (released.compareAndSet(false, true)) {
+                abandoned.increment();
+                limiter.abandon();
+                circuitBreaker.abandon();
+            }
+        }
+
+        private void release(boolean failed) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            long latency = System.nanoTime() - start;
+            if (failed) {
+                failures.increment();
+            }
+            limiter.release(callClass, latency, failed);
+            circuitBreaker.record(failed, latency > slowCallNanos);
+        }
+    }
+}
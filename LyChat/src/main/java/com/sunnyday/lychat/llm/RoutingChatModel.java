@@ -0,0 +1,327 @@
+package com.sunnyday.lychat.llm;
+
+import com.ruoyi.common.exception.ServiceException;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 多供应商路由 ChatModel
+ *
+ * 每个供应商维护最近调用的耗时分位数和失败率（LatencyWindow），每次调用选择 p50 最低的健康供应商；
+ * 失败率超过 maxErrorRate 的供应商视为不健康，只在每个 probeInterval 内放行一次试探调用，全部不健康时仍按失败率从低到高尝试。
+ * 样本不足 minCalls 的供应商视为健康且排在最前，新加入的供应商先积累样本。
+ *
+ * 对冲（hedgeEnabled）：首选供应商在其 hedgePercentile 分位耗时内仍未返回时，向次选供应商再发一份相同请求，
+ * 先成功的结果返回，另一份调用被取消（中断调用线程，并把已耗时作为一个下限样本计入，慢供应商的分位数因此会上升）。
+ * 首选供应商直接失败时立即改用次选供应商（不对冲时同样如此），供应商自身的重试次数应设为0，由这里统一处理。
+ * 对冲调用在有界线程池（maxThreads）中执行，线程已满时本次不对冲，在调用线程中按失败转移的方式调用；容器关闭时 close() 关闭线程池。
+ *
+ * 不转发默认请求参数，各供应商按自己的默认参数（模型名等）调用。
+ */
+@Slf4j
+public class RoutingChatModel implements ChatModel, AutoCloseable {
+
+    private final List<Provider> providers;
+    private final int minCalls;
+    private final double maxErrorRate;
+    private final long probeIntervalNanos;
+    private final boolean hedgeEnabled;
+    private final double hedgePercentile;
+    private final long minHedgeDelayMillis;
+    private final long defaultHedgeDelayMillis;
+
+    private final ThreadPoolExecutor executor;
+
+    public RoutingChatModel(List<Provider> providers, int minCalls, double maxErrorRate, long probeIntervalMillis,
+                            boolean hedgeEnabled, double hedgePercentile, long minHedgeDelayMillis,
+                            long defaultHedgeDelayMillis, int maxThreads) {
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个模型供应商");
+        }
+        this.providers = List.copyOf(providers);
+        this.minCalls = minCalls;
+        this.maxErrorRate = maxErrorRate;
+        this.probeIntervalNanos = TimeUnit.MILLISECONDS.toNanos(probeIntervalMillis);
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.minHedgeDelayMillis = minHedgeDelayMillis;
+        this.defaultHedgeDelayMillis = defaultHedgeDelayMillis;
+        // 不排队：线程数达到上限时立即拒绝，由调用方放弃对冲；空闲线程60秒后回收
+        this.executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "lychat-model-route");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        List<Provider> ranked = rank();
+        Provider primary = ranked.get(0);
+        Provider secondary = ranked.size() > 1 ? ranked.get(1) : null;
+        primary.routed.increment();
+        if (!hedgeEnabled || secondary == null) {
+            return failover(primary, secondary, chatRequest);
+        }
+        return hedged(primary, secondary, chatRequest);
+    }
+
+    /**
+     * 在调用线程中调用首选供应商，失败时改用次选供应商
+     */
+    private ChatResponse failover(Provider primary, Provider secondary, ChatRequest chatRequest) {
+        try {
+            return new Attempt(primary, chatRequest).call();
+        } catch (RuntimeException e) {
+            if (secondary == null) {
+                throw e;
+            }
+            log.warn("模型供应商 {} 调用失败，改用 {}：{}", primary.name, secondary.name, e.getMessage());
+            secondary.failovers.increment();
+            return new Attempt(secondary, chatRequest).call();
+        }
+    }
+
+    private ChatResponse hedged(Provider primary, Provider secondary, ChatRequest chatRequest) {
+        ExecutorCompletionService<ChatResponse> completion = new ExecutorCompletionService<>(executor);
+        List<Attempt> attempts = new ArrayList<>(2);
+        try {
+            submit(completion, attempts, primary, chatRequest);
+        } catch (RejectedExecutionException e) {
+            secondary.hedgeRejected.increment();
+            return failover(primary, secondary, chatRequest);
+        }
+        RuntimeException lastError = null;
+        try {
+            Future<ChatResponse> done = completion.poll(hedgeDelayMillis(primary), TimeUnit.MILLISECONDS);
+            if (done != null) {
+                try {
+                    return done.get();
+                } catch (ExecutionException e) {
+                    lastError = unwrap(e);
+                    log.warn("模型供应商 {} 调用失败，改用 {}：{}", primary.name, secondary.name, lastError.getMessage());
+                    secondary.failovers.increment();
+                }
+            }
+            int pending = done == null ? 1 : 0;
+            Attempt second = null;
+            try {
+                second = submit(completion, attempts, secondary, chatRequest);
+                pending++;
+                if (done == null) {
+                    secondary.hedges.increment();
+                }
+            } catch (RejectedExecutionException e) {
+                // 线程已满：不发送对冲请求，继续等待首选供应商；首选已失败时在调用线程中改用次选
+                secondary.hedgeRejected.increment();
+                if (done != null) {
+                    return new Attempt(secondary, chatRequest).call();
+                }
+            }
+            for (; pending > 0; pending--) {
+                Future<ChatResponse> next = completion.take();
+                try {
+                    ChatResponse response = next.get();
+                    if (done == null && second != null && next == second.future) {
+                        secondary.hedgeWins.increment();
+                    }
+                    return response;
+                } catch (ExecutionException e) {
+                    lastError = unwrap(e);
+                }
+            }
+            throw lastError;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException("大模型调用被中断");
+        } finally {
+            for (Attempt attempt : attempts) {
+                attempt.cancel();
+            }
+        }
+    }
+
+    private Attempt submit(ExecutorCompletionService<ChatResponse> completion, List<Attempt> attempts,
+                           Provider provider, ChatRequest chatRequest) {
+        Attempt attempt = new Attempt(provider, chatRequest);
+        attempt.future = completion.submit(attempt);
+        attempts.add(attempt);
+        return attempt;
+    }
+
+    private long hedgeDelayMillis(Provider primary) {
+        long percentile = primary.window.percentileMillis(hedgePercentile);
+        if (primary.window.getSize() < minCalls || percentile < 0) {
+            return defaultHedgeDelayMillis;
+        }
+        return Math.max(minHedgeDelayMillis, percentile);
+    }
+
+    /**
+     * 健康的供应商按 p50 从低到高排在前面（样本不足的排最前），不健康的按失败率排在后面；
+     * 到了试探时间的不健康供应商排在第一位，放行一次调用
+     */
+    private List<Provider> rank() {
+        List<Provider> healthy = new ArrayList<>(providers.size());
+        List<Provider> unhealthy = new ArrayList<>(providers.size());
+        for (Provider provider : providers) {
+            (isHealthy(provider) ? healthy : unhealthy).add(provider);
+        }
+        healthy.sort(Comparator.comparingLong(provider -> provider.window.getSize() < minCalls
+                ? -1L : provider.window.percentileMillis(0.5)));
+        unhealthy.sort(Comparator.comparingDouble(provider -> provider.window.getErrorRate()));
+        long now = System.nanoTime();
+        for (Provider provider : unhealthy) {
+            long probeAt = provider.nextProbeNanos.get();
+            if (now - probeAt >= 0 && provider.nextProbeNanos.compareAndSet(probeAt, now + probeIntervalNanos)) {
+                healthy.add(0, provider);
+                unhealthy.remove(provider);
+                break;
+            }
+        }
+        healthy.addAll(unhealthy);
+        return healthy;
+    }
+
+    private boolean isHealthy(Provider provider) {
+        return provider.window.getSize() < minCalls || provider.window.getErrorRate() <= maxErrorRate;
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    /**
+     * 关闭对冲线程池（容器关闭时调用），进行中的对冲调用被中断
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Provider provider : providers) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("healthy", isHealthy(provider));
+            item.put("samples", provider.window.getSize());
+            item.put("p50Millis", provider.window.percentileMillis(0.5));
+            item.put("p95Millis", provider.window.percentileMillis(0.95));
+            item.put("errorRate", provider.window.getErrorRate());
+            item.put("routed", provider.routed.sum());
+            item.put("failovers", provider.failovers.sum());
+            item.put("hedges", provider.hedges.sum());
+            item.put("hedgeWins", provider.hedgeWins.sum());
+            item.put("hedgeRejected", provider.hedgeRejected.sum());
+            item.put("cancelled", provider.cancelled.sum());
+            stats.put(provider.name, item);
+        }
+        return stats;
+    }
+
+    /**
+     * 一个模型供应商及其调用统计
+     */
+    public static final class Provider {
+        private final String name;
+        private final ChatModel model;
+        private final LatencyWindow window;
+        private final AtomicLong nextProbeNanos = new AtomicLong(System.nanoTime());
+
+        /** 作为首选供应商被选中的次数 */
+        private final LongAdder routed = new LongAdder();
+        /** 首选供应商失败后改用本供应商的次数 */
+        private final LongAdder failovers = new LongAdder();
+        /** 作为次选供应商收到对冲请求的次数 */
+        private final LongAdder hedges = new LongAdder();
+        /** 对冲请求先于首选供应商返回的次数 */
+        private final LongAdder hedgeWins = new LongAdder();
+        /** 线程已满而没有发送的对冲请求数 */
+        private final LongAdder hedgeRejected = new LongAdder();
+        /** 调用被取消的次数（对冲中落后的一方） */
+        private final LongAdder cancelled = new LongAdder();
+
+        public Provider(String name, ChatModel model, int windowSize) {
+            this.name = name;
+            this.model = model;
+            this.window = new LatencyWindow(windowSize);
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * 对单个供应商的一次调用，取消后不再记录结果
+     */
+    private static final class Attempt implements Callable<ChatResponse> {
+        private final Provider provider;
+        private final ChatRequest chatRequest;
+        private final long start = System.nanoTime();
+        private volatile boolean finished;
+        private volatile boolean cancelled;
+        private Future<ChatResponse> future;
+
+        Attempt(Provider provider, ChatRequest chatRequest) {
+            this.provider = provider;
+            this.chatRequest = chatRequest;
+        }
+
+        @Override
+        public ChatResponse call() {
+            try {
+                ChatResponse response = provider.model.chat(chatRequest);
+                if (!cancelled) {
+                    provider.window.recordSuccess(System.nanoTime() - start);
+                }
+                return response;
+            } catch (RuntimeException e) {
+                if (!cancelled) {
+                    provider.window.recordFailure();
+                }
+                throw e;
+            } finally {
+                finished = true;
+            }
+        }
+
+        void cancel() {
+            if (finished || future == null || future.isDone()) {
+                return;
+            }
+            cancelled = true;
+            if (future.cancel(true)) {
+                provider.cancelled.increment();
+                provider.window.recordSuccess(System.nanoTime() - start);
+            }
+        }
+    }
+}
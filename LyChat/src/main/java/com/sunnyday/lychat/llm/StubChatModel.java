@@ -0,0 +1,136 @@
+package com.sunnyday.lychat.llm;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地桩模型（lychat.model-stub.enabled=true 时代替真实的模型供应商）
+ * 按配置的延迟和失败率返回固定的分析结果JSON，不访问网络，用于在本地压测过载、熔断和限流行为。
+ * 延迟在 latencyMillis 上下浮动 jitterMillis；streaming() 返回的流式模型把同样的内容切成若干段在总延迟内依次推送，
+ * 每个流占用有界线程池中的一个线程，同时进行的流超过 maxStreams 时通过 onError 拒绝；容器关闭时 close() 关闭线程池。
+ */
+public class StubChatModel implements ChatModel, AutoCloseable {
+
+    static final String RESPONSE = "{\"qualityDimensions\":["
+            + "{\"name\":\"志望動機の明確性と具体性\",\"score\":80,\"evaluation\":\"桩模型返回的评价。\"},"
+            + "{\"name\":\"学習計画と未来目標の合理性\",\"score\":75,\"evaluation\":\"桩模型返回的评价。\"},"
+            + "{\"name\":\"表現力と説得力\",\"score\":78,\"evaluation\":\"桩模型返回的评价。\"},"
+            + "{\"name\":\"学部専門との適合度\",\"score\":72,\"evaluation\":\"桩模型返回的评价。\"},"
+            + "{\"name\":\"文章構造と論理展開\",\"score\":81,\"evaluation\":\"桩模型返回的评价。\"},"
+            + "{\"name\":\"文法と日本語の正確性\",\"score\":70,\"evaluation\":\"桩模型返回的评价。\"}],"
+            + "\"recommendations\":[\"桩模型返回的修改建议。\",\"桩模型返回的修改后全文。\"]}";
+
+    private static final int STREAM_CHUNKS = 20;
+
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double errorRate;
+
+    private final ThreadPoolExecutor streamExecutor;
+
+    public StubChatModel(long latencyMillis, long jitterMillis, double errorRate, int maxStreams) {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.errorRate = errorRate;
+        this.streamExecutor = new ThreadPoolExecutor(maxStreams, maxStreams, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "lychat-stub-model");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.streamExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        sleep(nextLatency());
+        failRandomly();
+        return response(chatRequest);
+    }
+
+    /**
+     * 同样延迟和失败率的流式模型
+     */
+    public StreamingChatModel streaming() {
+        return new StreamingChatModel() {
+            @Override
+            public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+                stream(chatRequest, handler);
+            }
+        };
+    }
+
+    /**
+     * 关闭流式输出线程池（容器关闭时调用）
+     */
+    @Override
+    public void close() {
+        streamExecutor.shutdownNow();
+    }
+
+    private void stream(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        try {
+            streamExecutor.execute(() -> streamResponse(chatRequest, handler));
+        } catch (RejectedExecutionException e) {
+            handler.onError(new IllegalStateException("桩模型同时进行的流式调用已满", e));
+        }
+    }
+
+    private void streamResponse(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        try {
+            long chunkDelay = nextLatency() / STREAM_CHUNKS;
+            int chunkSize = (RESPONSE.length() + STREAM_CHUNKS - 1) / STREAM_CHUNKS;
+            for (int i = 0; i < RESPONSE.length(); i += chunkSize) {
+                sleep(chunkDelay);
+                handler.onPartialResponse(RESPONSE.substring(i, Math.min(RESPONSE.length(), i + chunkSize)));
+            }
+            failRandomly();
+            handler.onCompleteResponse(response(chatRequest));
+        } catch (RuntimeException e) {
+            handler.onError(e);
+        }
+    }
+
+    private ChatResponse response(ChatRequest chatRequest) {
+        int inputChars = chatRequest.messages().stream().mapToInt(message -> message.toString().length()).sum();
+        return ChatResponse.builder()
+                .aiMessage(AiMessage.from(RESPONSE))
+                .tokenUsage(new TokenUsage(inputChars / 2, RESPONSE.length() / 2))
+                .finishReason(FinishReason.STOP)
+                .build();
+    }
+
+    private long nextLatency() {
+        if (jitterMillis <= 0) {
+            return latencyMillis;
+        }
+        return Math.max(0L, latencyMillis + ThreadLocalRandom.current().nextLong(-jitterMillis, jitterMillis + 1));
+    }
+
+    private void failRandomly() {
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            throw new IllegalStateException("桩模型模拟的调用失败");
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("桩模型调用被中断", e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.sunnyday.lychat.memory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 有界的进程内会话记忆存储
+ * 1、会话数上限（超出时按W-TinyLFU淘汰）
+ * 2、空闲过期（一段时间没有读写的会话自动清除）
+ * 3、按会话统计文本字符数，单个会话超过上限时从最早的非系统消息开始丢弃
+ * 统计信息（会话数、总字符数、命中、淘汰/过期次数）通过 stats() 暴露
+ */
+public class BoundedChatMemoryStore implements MeteredChatMemoryStore {
+
+    private final Cache<Object, Entry> cache;
+    private final int maxEntryChars;
+
+    private final LongAdder totalChars = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evictedBySize = new LongAdder();
+    private final LongAdder trimmedMessages = new LongAdder();
+
+    public BoundedChatMemoryStore(long maxEntries, Duration idleTtl, int maxEntryChars) {
+        this.maxEntryChars = maxEntryChars;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterAccess(idleTtl)
+                .recordStats()
+                .removalListener((Object key, Entry entry, RemovalCause cause) -> {
+                    if (entry != null) {
+                        totalChars.add(-entry.chars);
+                    }
+                    if (cause == RemovalCause.EXPIRED) {
+                        expired.increment();
+                    } else if (cause == RemovalCause.SIZE) {
+                        evictedBySize.increment();
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        Entry entry = cache.getIfPresent(memoryId);
+        return entry != null ? entry.messages : Collections.emptyList();
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        List<ChatMessage> kept = new ArrayList<>(messages);
+        int chars = 0;
+        for (ChatMessage message : kept) {
+            chars += chars(message);
+        }
+        // 超过单会话字符上限时，从最早的非系统消息开始丢弃，至少保留最后一条
+        for (int i = 0; chars > maxEntryChars && i < kept.size() - 1; ) {
+            if (kept.get(i) instanceof SystemMessage) {
+                i++;
+                continue;
+            }
+            chars -= chars(kept.remove(i));
+            trimmedMessages.increment();
+        }
+        totalChars.add(chars);
+        cache.put(memoryId, new Entry(Collections.unmodifiableList(kept), chars));
+    }
+
+    @Override
+    public void deleteMessages(Object memoryId) {
+        cache.invalidate(memoryId);
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        cache.cleanUp();
+        CacheStats cacheStats = cache.stats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", cache.estimatedSize());
+        stats.put("totalChars", totalChars.sum());
+        stats.put("hits", cacheStats.hitCount());
+        stats.put("misses", cacheStats.missCount());
+        stats.put("evictedBySize", evictedBySize.sum());
+        stats.put("expired", expired.sum());
+        stats.put("trimmedMessages", trimmedMessages.sum());
+        return stats;
+    }
+
+    private static int chars(ChatMessage message) {
+        return MessageTexts.text(message).length();
+    }
+
+    private static final class Entry {
+        private final List<ChatMessage> messages;
+        private final int chars;
+
+        private Entry(List<ChatMessage> messages, int chars) {
+            this.messages = messages;
+            this.chars = chars;
+        }
+    }
+}
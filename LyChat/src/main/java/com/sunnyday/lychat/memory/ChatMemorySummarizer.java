@@ -0,0 +1,18 @@
+package com.sunnyday.lychat.memory;
+
+import dev.langchain4j.data.message.ChatMessage;
+
+import java.util.List;
+
+/**
+ * 会话摘要生成：把较早的对话折叠进滚动摘要
+ */
+public interface ChatMemorySummarizer {
+
+    /**
+     * @param previousSummary 此前的摘要（没有时为null）
+     * @param turns 需要折叠的较早消息
+     * @return 合并后的新摘要
+     */
+    String summarize(String previousSummary, List<ChatMessage> turns);
+}
@@ -0,0 +1,82 @@
+package com.sunnyday.lychat.memory;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 会话消息的紧凑编码
+ * 编码为JSON字符串数组，每个元素首字符表示类型，其余为正文：
+ * S=系统消息、U=纯文本用户消息、A=纯文本AI消息、J=其他消息（图片、工具调用等，使用langchain4j默认JSON格式）
+ * 纯文本消息（绝大多数）比默认格式少了 contents/type 等包装字段
+ */
+public final class CompactMessageCodec {
+
+    private CompactMessageCodec() {
+    }
+
+    public static String encode(List<ChatMessage> messages) {
+        JSONArray array = new JSONArray(messages.size());
+        for (ChatMessage message : messages) {
+            array.add(encode(message));
+        }
+        return array.toJSONString();
+    }
+
+    /**
+     * 编码结果去掉末尾的 ']'：消息列表以 messages 开头时，其编码以本结果开头，
+     * 后面紧跟 ','（还有其他消息）或 ']'；空列表返回 "["
+     */
+    public static String encodePrefix(List<ChatMessage> messages) {
+        String encoded = encode(messages);
+        return encoded.substring(0, encoded.length() - 1);
+    }
+
+    public static List<ChatMessage> decode(String encoded) {
+        List<ChatMessage> messages = new ArrayList<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return messages;
+        }
+        for (String item : JSON.parseArray(encoded, String.class)) {
+            messages.add(decode(item));
+        }
+        return messages;
+    }
+
+    private static String encode(ChatMessage message) {
+        if (message instanceof SystemMessage systemMessage) {
+            return "S" + systemMessage.text();
+        }
+        if (message instanceof UserMessage userMessage && userMessage.hasSingleText() && userMessage.name() == null) {
+            return "U" + userMessage.singleText();
+        }
+        if (message instanceof AiMessage aiMessage && !aiMessage.hasToolExecutionRequests() && aiMessage.text() != null) {
+            return "A" + aiMessage.text();
+        }
+        return "J" + ChatMessageSerializer.messageToJson(message);
+    }
+
+    private static ChatMessage decode(String item) {
+        String body = item.substring(1);
+        switch (item.charAt(0)) {
+            case 'S':
+                return SystemMessage.from(body);
+            case 'U':
+                return UserMessage.from(body);
+            case 'A':
+                return AiMessage.from(body);
+            case 'J':
+                return ChatMessageDeserializer.messageFromJson(body);
+            default:
+                throw new IllegalArgumentException("未知的消息类型: " + item.charAt(0));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.sunnyday.lychat.memory;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.Content;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.TextContent;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+/**
+ * 会话消息的文本内容（非文本内容不计），用于大小统计和token估算
+ */
+public final class MessageTexts {
+
+    private MessageTexts() {
+    }
+
+    public static String text(ChatMessage message) {
+        if (message instanceof UserMessage userMessage) {
+            if (userMessage.hasSingleText()) {
+                return userMessage.singleText();
+            }
+            StringBuilder sb = new StringBuilder();
+            for (Content content : userMessage.contents()) {
+                if (content instanceof TextContent textContent) {
+                    sb.append(textContent.text());
+                }
+            }
+            return sb.toString();
+        }
+        if (message instanceof AiMessage aiMessage) {
+            return aiMessage.text() != null ? aiMessage.text() : "";
+        }
+        if (message instanceof SystemMessage systemMessage) {
+            return systemMessage.text();
+        }
+        if (message instanceof ToolExecutionResultMessage toolMessage) {
+            return toolMessage.text() != null ? toolMessage.text() : "";
+        }
+        return "";
+    }
+}
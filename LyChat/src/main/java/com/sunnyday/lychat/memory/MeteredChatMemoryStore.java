@@ -0,0 +1,16 @@
+package com.sunnyday.lychat.memory;
+
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+
+import java.util.Map;
+
+/**
+ * 带统计信息的会话记忆存储
+ */
+public interface MeteredChatMemoryStore extends ChatMemoryStore {
+
+    /**
+     * 存储统计（会话数、字符/字节数、淘汰与压缩次数等，具体字段由实现决定）
+     */
+    Map<String, Object> stats();
+}
@@ -0,0 +1,238 @@
+package com.sunnyday.lychat.memory;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Redis会话记忆存储（多节点共享，无需会话粘滞）
+ *
+ * {prefix}{memoryId}          紧凑编码的消息列表（见 CompactMessageCodec）
+ * {prefix}{memoryId}:summary  较早对话的滚动摘要
+ * 两个键都按空闲时间过期。
+ *
+ * 每个会话按估算token数限额：消息（不含开头的系统提示词）加摘要超过 maxTokens 时，
+ * 在后台把较早的对话折叠进摘要，只保留最近 keepRecentTokens 以内的完整轮次，使提示词长度不随对话轮数增长。
+ * 读取时摘要追加在开头的系统提示词末尾（没有系统提示词时作为开头的系统消息），不占用单独的消息位置；
+ * 写入时去掉摘要部分，只保存原始的系统提示词和对话。
+ * 使用本存储时 ChatMemory 不应再按消息条数截断（见 CommonConfig），否则较早的轮次会在折叠进摘要之前被丢弃。
+ */
+@Slf4j
+public class RedisChatMemoryStore implements MeteredChatMemoryStore {
+
+    static final String SUMMARY_PREFIX = "【此前对话摘要】\n";
+
+    /**
+     * 折叠的原子写回：消息列表的编码仍以被折叠前缀（ARGV[1]）开头且其后还有消息时，
+     * 把前缀替换为保留部分（ARGV[2]，系统提示词的编码前缀），同时写入摘要（ARGV[3]），两个键的过期时间为 ARGV[4] 毫秒；
+     * 前缀已变化返回0，不写任何键
+     */
+    private static final DefaultRedisScript<Long> COMPACT_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('get', KEYS[1]) "
+                    + "if not current or string.sub(current, 1, #ARGV[1]) ~= ARGV[1] "
+                    + "or string.sub(current, #ARGV[1] + 1, #ARGV[1] + 1) ~= ',' then return 0 end "
+                    + "local rest = string.sub(current, #ARGV[1] + 2) "
+                    + "local head = ARGV[2] == '[' and '[' or ARGV[2] .. ',' "
+                    + "redis.call('set', KEYS[1], head .. rest, 'PX', ARGV[4]) "
+                    + "redis.call('set', KEYS[2], ARGV[3], 'PX', ARGV[4]) "
+                    + "return 1",
+            Long.class);
+
+    /** 摘要追加在系统提示词末尾时的分隔 */
+    private static final String SUMMARY_SEPARATOR = "\n\n" + SUMMARY_PREFIX;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ChatMemorySummarizer summarizer;
+    private final Executor executor;
+    private final String keyPrefix;
+    private final Duration idleTtl;
+    private final int maxTokens;
+    private final int keepRecentTokens;
+
+    /** 正在后台压缩的会话，避免同一会话重复提交 */
+    private final Set<Object> compacting = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+    private final LongAdder compactionFailures = new LongAdder();
+    private final LongAdder compactionsSkipped = new LongAdder();
+    private final LongAdder foldedMessages = new LongAdder();
+
+    public RedisChatMemoryStore(StringRedisTemplate redisTemplate, ChatMemorySummarizer summarizer, Executor executor,
+                                String keyPrefix, Duration idleTtl, int maxTokens, int keepRecentTokens) {
+        this.redisTemplate = redisTemplate;
+        this.summarizer = summarizer;
+        this.executor = executor;
+        this.keyPrefix = keyPrefix;
+        this.idleTtl = idleTtl;
+        this.maxTokens = maxTokens;
+        this.keepRecentTokens = keepRecentTokens;
+    }
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        reads.increment();
+        List<ChatMessage> messages = CompactMessageCodec.decode(redisTemplate.opsForValue().get(key(memoryId)));
+        String summary = redisTemplate.opsForValue().get(summaryKey(memoryId));
+        if (summary != null && !summary.isEmpty()) {
+            if (!messages.isEmpty() && messages.get(0) instanceof SystemMessage systemMessage) {
+                messages.set(0, SystemMessage.from(systemMessage.text() + SUMMARY_SEPARATOR + summary));
+            } else {
+                messages.add(0, SystemMessage.from(SUMMARY_PREFIX + summary));
+            }
+        }
+        return messages;
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        List<ChatMessage> kept = withoutSummary(messages);
+        String encoded = CompactMessageCodec.encode(kept);
+        redisTemplate.opsForValue().set(key(memoryId), encoded, idleTtl);
+        redisTemplate.expire(summaryKey(memoryId), idleTtl);
+        writes.increment();
+        bytesWritten.add(encoded.getBytes(StandardCharsets.UTF_8).length);
+
+        int tokens = TokenEstimator.estimate(kept.subList(systemOffset(kept), kept.size()));
+        if (tokens > maxTokens && compacting.add(memoryId)) {
+            try {
+                executor.execute(() -> compact(memoryId));
+            } catch (RuntimeException e) {
+                // 线程池已满（TaskRejectedException）时跳过本次压缩，下次写入仍超限时再提交，不在调用线程上生成摘要
+                compacting.remove(memoryId);
+                compactionsSkipped.increment();
+                log.warn("会话摘要任务提交失败，跳过本次压缩: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void deleteMessages(Object memoryId) {
+        redisTemplate.delete(List.of(key(memoryId), summaryKey(memoryId)));
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("store", "redis");
+        stats.put("reads", reads.sum());
+        stats.put("writes", writes.sum());
+        stats.put("bytesWritten", bytesWritten.sum());
+        stats.put("compactions", compactions.sum());
+        stats.put("compactionFailures", compactionFailures.sum());
+        stats.put("compactionsSkipped", compactionsSkipped.sum());
+        stats.put("foldedMessages", foldedMessages.sum());
+        stats.put("compacting", compacting.size());
+        return stats;
+    }
+
+    /**
+     * 把较早的对话折叠进摘要
+     * 摘要生成期间会话可能在其他线程或节点上继续追加消息，写回用Lua脚本原子完成：
+     * 确认被折叠的前缀没有变化后替换消息列表并写入摘要，前缀已变化则放弃本次压缩，不会覆盖新追加的轮次
+     */
+    private void compact(Object memoryId) {
+        try {
+            List<ChatMessage> messages = CompactMessageCodec.decode(redisTemplate.opsForValue().get(key(memoryId)));
+            int offset = systemOffset(messages);
+            int split = splitIndex(messages, offset);
+            if (split <= offset) {
+                return;
+            }
+            List<ChatMessage> folded = new ArrayList<>(messages.subList(offset, split));
+            String previousSummary = redisTemplate.opsForValue().get(summaryKey(memoryId));
+            String summary = summarizer.summarize(previousSummary, folded);
+
+            Long replaced = redisTemplate.execute(COMPACT_SCRIPT, List.of(key(memoryId), summaryKey(memoryId)),
+                    CompactMessageCodec.encodePrefix(messages.subList(0, split)),
+                    CompactMessageCodec.encodePrefix(messages.subList(0, offset)),
+                    summary, String.valueOf(idleTtl.toMillis()));
+            if (replaced == null || replaced == 0L) {
+                log.info("会话 {} 在生成摘要期间发生变化，放弃本次压缩", memoryId);
+                return;
+            }
+            compactions.increment();
+            foldedMessages.add(folded.size());
+            log.info("会话 {} 已将 {} 条较早消息折叠进摘要", memoryId, folded.size());
+        } catch (Exception e) {
+            compactionFailures.increment();
+            log.warn("会话 {} 摘要压缩失败: {}", memoryId, e.getMessage());
+        } finally {
+            compacting.remove(memoryId);
+        }
+    }
+
+    /**
+     * 计算保留部分的起点：从末尾向前累计，保留不超过 keepRecentTokens 的完整轮次（以用户消息开头），
+     * 至少保留最后一轮
+     */
+    private int splitIndex(List<ChatMessage> messages, int offset) {
+        int tokens = 0;
+        int split = messages.size();
+        for (int i = messages.size() - 1; i >= offset; i--) {
+            tokens += TokenEstimator.estimate(messages.get(i));
+            if (messages.get(i) instanceof UserMessage) {
+                if (tokens > keepRecentTokens && split < messages.size()) {
+                    break;
+                }
+                split = i;
+            }
+        }
+        return split;
+    }
+
+    /**
+     * 去掉读取时附加的摘要，系统提示词放回开头
+     * 系统提示词带着摘要读出后与AI服务再次添加的系统提示词不相等，MessageWindowChatMemory 会把新的系统提示词追加到末尾
+     */
+    private static List<ChatMessage> withoutSummary(List<ChatMessage> messages) {
+        List<ChatMessage> kept = new ArrayList<>(messages.size());
+        SystemMessage system = null;
+        for (ChatMessage message : messages) {
+            if (message instanceof SystemMessage systemMessage) {
+                String text = systemMessage.text();
+                if (text.startsWith(SUMMARY_PREFIX)) {
+                    continue;
+                }
+                int at = text.lastIndexOf(SUMMARY_SEPARATOR);
+                if (system == null) {
+                    system = at < 0 ? systemMessage : SystemMessage.from(text.substring(0, at));
+                }
+                continue;
+            }
+            kept.add(message);
+        }
+        if (system != null) {
+            kept.add(0, system);
+        }
+        return kept;
+    }
+
+    private static int systemOffset(List<ChatMessage> messages) {
+        return !messages.isEmpty() && messages.get(0) instanceof SystemMessage ? 1 : 0;
+    }
+
+    private String key(Object memoryId) {
+        return keyPrefix + memoryId;
+    }
+
+    private String summaryKey(Object memoryId) {
+        return keyPrefix + memoryId + ":summary";
+    }
+}
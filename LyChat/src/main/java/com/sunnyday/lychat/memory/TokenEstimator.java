@@ -0,0 +1,47 @@
+package com.sunnyday.lychat.memory;
+
+import dev.langchain4j.data.message.ChatMessage;
+
+import java.util.List;
+
+/**
+ * token数估算（不依赖具体模型的分词器）
+ * 中日韩文字按每字1个token计，其余字符按每4个字符1个token计，每条消息另加4个token的格式开销
+ */
+public final class TokenEstimator {
+
+    private static final int MESSAGE_OVERHEAD = 4;
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x3040 && c <= 0x30FF || c >= 0x3400 && c <= 0x9FFF || c >= 0xAC00 && c <= 0xD7AF
+                    || c >= 0xF900 && c <= 0xFAFF || c >= 0xFF00 && c <= 0xFFEF) {
+                cjk++;
+            } else {
+                other++;
+            }
+        }
+        return cjk + (other + 3) / 4;
+    }
+
+    public static int estimate(ChatMessage message) {
+        return MESSAGE_OVERHEAD + estimate(MessageTexts.text(message));
+    }
+
+    public static int estimate(List<ChatMessage> messages) {
+        int tokens = 0;
+        for (ChatMessage message : messages) {
+            tokens += estimate(message);
+        }
+        return tokens;
+    }
+}
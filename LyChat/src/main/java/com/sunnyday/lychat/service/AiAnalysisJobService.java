@@ -0,0 +1,160 @@
+package com.sunnyday.lychat.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.ruoyi.common.core.redis.RedisCache;
+import com.sunnyday.lychat.InMemoryMultipartFile;
+import com.sunnyday.lychat.config.LyChatProperties;
+import com.sunnyday.lychat.document.DocumentExtractionService;
+import com.sunnyday.lychat.entity.AiAnalysisJobVo;
+import com.sunnyday.lychat.entity.AiAnalysisResultVo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.MessageSource;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步文档分析任务服务
+ * 提交后立即返回任务ID，分析在独立的有界任务线程池中执行，不占用Tomcat工作线程。
+ * 任务状态保存在Redis Hash（lychat:job:{jobId}）中，任意节点都可以查询进度和结果：
+ * status、stage、message、result（结果JSON）、createTime、updateTime
+ */
+@Slf4j
+@Service
+public class AiAnalysisJobService {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_SUCCESS = "SUCCESS";
+    public static final String STATUS_PARTIAL = "PARTIAL";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Autowired
+    private AiAnalysisOrchestrator aiAnalysisOrchestrator;
+
+    @Autowired
+    private DocumentExtractionService documentExtractionService;
+
+    @Autowired
+    private RedisCache redisCache;
+
+    @Autowired
+    private MessageSource messageSource;
+
+    @Autowired
+    private LyChatProperties properties;
+
+    @Autowired
+    @Qualifier("lychatJobExecutor")
+    private AsyncTaskExecutor jobExecutor;
+
+    /**
+     * 提交分析任务
+     * 上传文件的内容先复制到内存（请求结束后临时文件会被清理），线程池已满时抛出 TaskRejectedException
+     *
+     * @param file 上传的文件（调用方已完成校验）
+     * @param locale 语言环境
+     * @return 任务ID
+     */
+    public String submit(MultipartFile file, Locale locale) throws IOException {
+        InMemoryMultipartFile upload = InMemoryMultipartFile.copyOf(file);
+        String jobId = UUID.randomUUID().toString().replace("-", "");
+        long now = System.currentTimeMillis();
+
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("status", STATUS_PENDING);
+        fields.put("stage", AnalysisStage.QUEUED.name());
+        fields.put("createTime", now);
+        fields.put("updateTime", now);
+        redisCache.setCacheMap(jobKey(jobId), fields);
+        redisCache.expire(jobKey(jobId), properties.getJob().getTtlHours(), TimeUnit.HOURS);
+
+        try {
+            jobExecutor.execute(() -> run(jobId, upload, locale));
+        } catch (RuntimeException e) {
+            redisCache.deleteObject(jobKey(jobId));
+            throw e;
+        }
+        log.info("分析任务已提交: {}，文件: {}", jobId, file.getOriginalFilename());
+        return jobId;
+    }
+
+    /**
+     * 查询任务状态
+     *
+     * @return 任务不存在或已过期时返回null
+     */
+    public AiAnalysisJobVo get(String jobId) {
+        Map<String, Object> fields = redisCache.getCacheMap(jobKey(jobId));
+        if (fields == null || fields.isEmpty()) {
+            return null;
+        }
+        AiAnalysisJobVo job = new AiAnalysisJobVo();
+        job.setJobId(jobId);
+        job.setStatus((String) fields.get("status"));
+        job.setStage((String) fields.get("stage"));
+        job.setMessage((String) fields.get("message"));
+        job.setCreateTime(toLong(fields.get("createTime")));
+        job.setUpdateTime(toLong(fields.get("updateTime")));
+        Object result = fields.get("result");
+        if (result != null) {
+            job.setResult(JSON.parseObject((String) result, AiAnalysisResultVo.class));
+        }
+        return job;
+    }
+
+    private void run(String jobId, InMemoryMultipartFile upload, Locale locale) {
+        try {
+            update(jobId, STATUS_RUNNING, AnalysisStage.EXTRACTING);
+            String fileContent = documentExtractionService.extract(upload);
+
+            AiAnalysisResultVo result = aiAnalysisOrchestrator.analyse(fileContent, locale,
+                    stage -> update(jobId, STATUS_RUNNING, stage));
+
+            Map<String, Object> fields = new HashMap<>();
+            boolean partial = Boolean.TRUE.equals(result.getPartial());
+            fields.put("status", partial ? STATUS_PARTIAL : STATUS_SUCCESS);
+            fields.put("stage", AnalysisStage.DONE.name());
+            if (partial) {
+                fields.put("message", messageSource.getMessage("warn.analysis.partial", null, locale));
+            }
+            fields.put("result", JSON.toJSONString(result));
+            fields.put("updateTime", System.currentTimeMillis());
+            redisCache.setCacheMap(jobKey(jobId), fields);
+            log.info("分析任务完成: {}，状态: {}", jobId, fields.get("status"));
+        } catch (Exception e) {
+            log.error("分析任务失败: {}", jobId, e);
+            Map<String, Object> fields = new HashMap<>();
+            fields.put("status", STATUS_FAILED);
+            fields.put("stage", AnalysisStage.DONE.name());
+            fields.put("message", messageSource.getMessage("error.analysis.failed", new Object[]{e.getMessage()}, locale));
+            fields.put("updateTime", System.currentTimeMillis());
+            redisCache.setCacheMap(jobKey(jobId), fields);
+        }
+    }
+
+    private void update(String jobId, String status, AnalysisStage stage) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("status", status);
+        fields.put("stage", stage.name());
+        fields.put("updateTime", System.currentTimeMillis());
+        redisCache.setCacheMap(jobKey(jobId), fields);
+    }
+
+    private String jobKey(String jobId) {
+        return properties.getJob().getKeyPrefix() + jobId;
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.sunnyday.lychat.service;
+
+import dev.langchain4j.service.Result;
+import dev.langchain4j.service.SystemMessage;
+import dev.langchain4j.service.TokenStream;
+import dev.langchain4j.service.UserMessage;
+import dev.langchain4j.service.V;
+import dev.langchain4j.service.spring.AiService;
+import dev.langchain4j.service.spring.AiServiceWiringMode;
+
+/**
+ * 文档分析专用的无状态大模型服务
+ * 不配置会话记忆：每次分析都是一次性调用，不会为每个请求创建并长期保留一份会话记忆。
+ * 固定指令（系统提示词 + 语言要求）作为系统消息在前、文档内容作为用户消息在后，
+ * 同一语言的请求前缀逐字节相同，可以命中模型供应商的提示词前缀缓存；返回值保留token用量（含缓存命中的token数）
+ */
+@AiService(
+        wiringMode = AiServiceWiringMode.EXPLICIT,
+        chatModel = "guardedAnalysisChatModel",
+        streamingChatModel = "guardedAnalysisStreamingChatModel"
+)
+public interface AiAnalysisModelService {
+
+    @SystemMessage("{{instructions}}")
+    Result<String> analyse(@V("instructions") String instructions, @UserMessage String document);
+
+    @SystemMessage("{{instructions}}")
+    TokenStream analyseStream(@V("instructions") String instructions, @UserMessage String document);
+}
@@ -0,0 +1,292 @@
+package com.sunnyday.lychat.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.ruoyi.common.exception.ServiceException;
+import com.sunnyday.lychat.config.LyChatProperties;
+import com.sunnyday.lychat.entity.AiAnalysisResultVo;
+import dev.langchain4j.service.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * 文档分析编排服务
+ * 文本提取完成后，大模型分析和本地AI痕迹评分互不依赖，在分析线程池中并行执行后再合并结果：
+ * 1、本地评分是必需分支，失败时整体失败
+ * 2、大模型分支失败或超时时降级为部分结果（只包含aiScore和aiDimensions），不再整体报错
+ * 大模型分支可配置为拆分模式（lychat.analysis.mode=split），评分、修改建议、改写三个子请求并行执行，见 AiSplitAnalysisService
+ * 完整结果写入按内容寻址的结果缓存，同一文档再次分析时直接返回缓存结果；同一文档并发分析时只调用一次大模型（见 AiSingleFlight）
+ */
+@Slf4j
+@Service
+public class AiAnalysisOrchestrator {
+
+    private static final String MODE_SPLIT = "split";
+
+    @Autowired
+    private AiAnalysisModelService aiAnalysisModelService;
+
+    @Autowired
+    private AiSplitAnalysisService aiSplitAnalysisService;
+
+    @Autowired
+    private AiTextAnalysisService aiTextAnalysisService;
+
+    @Autowired
+    private AiPromptService aiPromptService;
+
+    @Autowired
+    private AiResultCache aiResultCache;
+
+    @Autowired
+    private AiSingleFlight aiSingleFlight;
+
+    @Autowired
+    private AiModelUsageRecorder usageRecorder;
+
+    @Autowired
+    private LyChatProperties properties;
+
+    @Autowired
+    @Qualifier("lychatAnalysisExecutor")
+    private AsyncTaskExecutor executor;
+
+    /**
+     * 分析文档内容
+     *
+     * @param fileContent 提取出的文档文本
+     * @param locale 语言环境
+     * @return 合并后的分析结果（大模型分支失败时 partial=true）
+     */
+    public AiAnalysisResultVo analyse(String fileContent, Locale locale) {
+        return analyse(fileContent, locale, stage -> { });
+    }
+
+    /**
+     * 分析文档内容，并在进入各阶段时回调进度
+     *
+     * @param fileContent 提取出的文档文本
+     * @param locale 语言环境
+     * @param progress 阶段回调（在分析线程中调用，需线程安全）
+     * @return 合并后的分析结果（大模型分支失败时 partial=true）
+     */
+    public AiAnalysisResultVo analyse(String fileContent, Locale locale, Consumer<AnalysisStage> progress) {
+        return analyse(fileContent, locale, progress, () -> aiTextAnalysisService.analyzeWithScore(fileContent, locale), true);
+    }
+
+    /**
+     * 分析文档内容，本地AI痕迹评分由调用方提供（如草稿的增量评分，见 AiDraftService）
+     * 调用方的评分不生成热力图，与整篇分析的结果不完全相同：只读取结果缓存，不写入，命中时也不生成热力图
+     *
+     * @param fileContent 提取出的文档文本
+     * @param locale 语言环境
+     * @param progress 阶段回调（在分析线程中调用，需线程安全）
+     * @param scorer 本地评分分支，在分析线程池中与大模型分支并行执行；命中结果缓存时不调用
+     * @return 合并后的分析结果（大模型分支失败时 partial=true）
+     */
+    public AiAnalysisResultVo analyse(String fileContent, Locale locale, Consumer<AnalysisStage> progress,
+                                      Callable<AiTextAnalysisService.AnalysisResult> scorer) {
+        return analyse(fileContent, locale, progress, scorer, false);
+    }
+
+    /**
+     * @param fullScoring 本地评分是否为整篇分析（结果写入缓存，命中缓存时按原文生成热力图）
+     */
+    private AiAnalysisResultVo analyse(String fileContent, Locale locale, Consumer<AnalysisStage> progress,
+                                       Callable<AiTextAnalysisService.AnalysisResult> scorer, boolean fullScoring) {
+        LyChatProperties.Analysis config = properties.getAnalysis();
+        long start = System.nanoTime();
+
+        // 0. 查询结果缓存，命中时不调用大模型
+        AiPromptRegistry.AnalysisPrompt prompt = aiPromptService.getAnalysisPrompt(locale);
+        AiPromptRegistry.SplitAnalysisPrompt splitPrompt = null;
+        if (MODE_SPLIT.equals(config.getMode())) {
+            splitPrompt = aiPromptService.getSplitAnalysisPrompt(locale);
+            if (splitPrompt == null) {
+                log.warn("缺少拆分模式提示词，使用单请求模式");
+            }
+        }
+        String cacheKey = null;
+        if (aiResultCache.isEnabled()) {
+            String promptVersion = splitPrompt != null ? splitPrompt.getVersion() : prompt.getVersion();
+            cacheKey = aiResultCache.key(fileContent, locale, promptVersion);
+            AiAnalysisResultVo cached = aiResultCache.get(cacheKey);
+            if (cached != null) {
+                // 缓存不保存热力图（偏移随原文空白变化），按本次原文重新生成
+                if (fullScoring) {
+                    cached.setAiHeatmap(aiTextAnalysisService.heatmap(fileContent, locale));
+                    cached.setAiHeatmapText(cached.getAiHeatmap() == null ? null : fileContent);
+                }
+                log.info("命中分析结果缓存，耗时: {}ms", (System.nanoTime() - start) / 1_000_000);
+                return cached;
+            }
+        }
+
+        // 相同文档正在分析时，合并到进行中的大模型调用
+        AiSingleFlight.Flight flight = null;
+        if (aiSingleFlight.isEnabled()) {
+            String promptVersion = splitPrompt != null ? splitPrompt.getVersion() : prompt.getVersion();
+            flight = aiSingleFlight.join(cacheKey != null ? cacheKey : aiResultCache.key(fileContent, locale, promptVersion));
+        }
+        AiAnalysisResultVo result = null;
+        Throwable failure = null;
+        try {
+            result = analyseUncached(fileContent, prompt, splitPrompt, fullScoring ? cacheKey : null, flight, start, progress, scorer);
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            // 无论以何种方式结束都要发布结果并移出进行中的合并，否则之后相同文档的请求会一直等待这次调用
+            if (flight != null && flight.isLeader()) {
+                if (failure != null) {
+                    flight.fail(failure);
+                } else {
+                    flight.complete(result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 缓存未命中时的分析：本地评分与大模型分支并行执行后合并
+     */
+    private AiAnalysisResultVo analyseUncached(String fileContent, AiPromptRegistry.AnalysisPrompt prompt,
+                                               AiPromptRegistry.SplitAnalysisPrompt splitPrompt, String cacheKey,
+                                               AiSingleFlight.Flight flight, long start, Consumer<AnalysisStage> progress,
+                                               Callable<AiTextAnalysisService.AnalysisResult> scorer) {
+        LyChatProperties.Analysis config = properties.getAnalysis();
+
+        // 1. 并行启动两个分支
+        Callable<AiTextAnalysisService.AnalysisResult> scoringTask = () -> {
+            progress.accept(AnalysisStage.SCORING);
+            return scorer.call();
+        };
+        Future<AiTextAnalysisService.AnalysisResult> scoring;
+        try {
+            scoring = executor.submit(scoringTask);
+        } catch (TaskRejectedException e) {
+            // 本地评分是必需分支且只需几毫秒，线程池已满时在当前线程执行
+            FutureTask<AiTextAnalysisService.AnalysisResult> inline = new FutureTask<>(scoringTask);
+            inline.run();
+            scoring = inline;
+        }
+        Future<AiAnalysisResultVo> llm;
+        try {
+            llm = startLlm(fileContent, prompt, splitPrompt, flight, start, progress);
+        } catch (RuntimeException e) {
+            // 包括线程池已满（TaskRejectedException），按大模型分支失败处理，降级为部分结果
+            llm = CompletableFuture.failedFuture(e);
+        }
+
+        // 2. 等待本地评分（必需分支）
+        AiTextAnalysisService.AnalysisResult analysisResult;
+        try {
+            analysisResult = await(scoring, start, config.getScoringTimeoutSeconds());
+        } catch (Exception e) {
+            llm.cancel(true);
+            throw new ServiceException("本地AI痕迹评分失败: " + rootMessage(e));
+        }
+
+        // 3. 等待大模型分析（可降级分支）
+        AiAnalysisResultVo result;
+        try {
+            result = await(llm, start, config.getLlmTimeoutSeconds());
+            // 拆分模式下部分子请求失败时已标记为部分结果
+            result.setPartial(Boolean.TRUE.equals(result.getPartial()));
+        } catch (Exception e) {
+            llm.cancel(true);
+            log.warn("大模型分析失败，降级返回本地AI痕迹分析结果: {}", rootMessage(e));
+            result = new AiAnalysisResultVo();
+            result.setPartial(true);
+        }
+
+        // 4. 合并AI痕迹分析结果
+        result.setAiDimensions(analysisResult.getDimensions());
+        result.setAiScore(analysisResult.getAiScore());
+        result.setAiHeatmap(analysisResult.getHeatmap());
+        result.setAiHeatmapText(analysisResult.getHeatmap() == null ? null : fileContent);
+        if (cacheKey != null && !result.getPartial()) {
+            aiResultCache.put(cacheKey, result);
+        }
+        log.info("文档分析完成，耗时: {}ms，partial: {}", (System.nanoTime() - start) / 1_000_000, result.getPartial());
+        return result;
+    }
+
+    /**
+     * 启动大模型分支
+     * 本节点已有相同文档在分析时等待其结果；其他节点正在分析时等待其写入结果缓存；否则自行调用大模型
+     */
+    private Future<AiAnalysisResultVo> startLlm(String fileContent, AiPromptRegistry.AnalysisPrompt prompt,
+                                                AiPromptRegistry.SplitAnalysisPrompt splitPrompt, AiSingleFlight.Flight flight,
+                                                long start, Consumer<AnalysisStage> progress) {
+        if (flight != null && !flight.isLeader()) {
+            log.info("相同文档正在分析，等待进行中的大模型调用");
+            progress.accept(AnalysisStage.LLM);
+            return flight.result();
+        }
+        if (flight != null) {
+            long deadline = start + TimeUnit.SECONDS.toNanos(properties.getAnalysis().getLlmTimeoutSeconds());
+            AiAnalysisResultVo remote = flight.acquireOrAwaitRemote(deadline);
+            if (remote != null) {
+                return CompletableFuture.completedFuture(remote);
+            }
+        }
+        // 拆分模式下三个子请求直接提交到线程池，由当前线程等待，避免分析任务在同一线程池中嵌套阻塞
+        return splitPrompt != null
+                ? aiSplitAnalysisService.submit(fileContent, splitPrompt, progress)
+                : executor.submit(() -> analyseWithLlm(fileContent, prompt, progress));
+    }
+
+    /**
+     * 大模型分支：构建提示词 -> 调用模型 -> 解析JSON
+     */
+    private AiAnalysisResultVo analyseWithLlm(String fileContent, AiPromptRegistry.AnalysisPrompt prompt,
+                                             Consumer<AnalysisStage> progress) {
+        // 固定指令作为系统消息，文档内容作为用户消息放在最后（前缀缓存友好）
+        String userMessage = prompt.userMessage(fileContent);
+
+        // 无状态一次性调用，不创建会话记忆
+        progress.accept(AnalysisStage.LLM);
+        long llmStart = System.nanoTime();
+        Result<String> response = aiAnalysisModelService.analyse(prompt.getInstructions(), userMessage);
+        usageRecorder.record(response.tokenUsage(), System.nanoTime() - llmStart);
+        String aiResult = response.content();
+        log.info("AI分析結果: " + aiResult);
+
+        // 将aiResult的json数据转换为AiAnalysisResultVo对象
+        progress.accept(AnalysisStage.PARSING);
+        AiAnalysisResultVo result = JSON.parseObject(aiResult, AiAnalysisResultVo.class);
+        if (result == null) {
+            throw new IllegalStateException("大模型返回内容为空");
+        }
+        return result;
+    }
+
+    private <T> T await(Future<T> future, long startNanos, int timeoutSeconds)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long remaining = TimeUnit.SECONDS.toNanos(timeoutSeconds) - (System.nanoTime() - startNanos);
+        return future.get(Math.max(0L, remaining), TimeUnit.NANOSECONDS);
+    }
+
+    private String rootMessage(Throwable e) {
+        if (e instanceof TimeoutException) {
+            return "超时";
+        }
+        Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+        return cause.getClass().getSimpleName() + ": " + cause.getMessage();
+    }
+}
@@ -0,0 +1,198 @@
+package com.sunnyday.lychat.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sunnyday.lychat.analysis.DraftDocument;
+import com.sunnyday.lychat.analysis.LexiconMatcher;
+import com.sunnyday.lychat.analysis.TemplateIndex;
+import com.sunnyday.lychat.config.LyChatProperties;
+import com.sunnyday.lychat.entity.AiAnalysisResultVo;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 草稿增量分析服务
+ * 学生反复修改同一篇文书时，每个草稿在进程内保存上一版的按段落统计量（见 DraftDocument），
+ * 再次上传时按段落比对，只重新分析新增或修改过的段落，再合并出6个维度与AI率。
+ * 大模型分支与普通分析相同（见 AiAnalysisOrchestrator），全文未变化时命中结果缓存；草稿的评分结果不写入缓存。
+ * 以下情况重建草稿（整篇分析）：草稿不存在或已过期、语言环境变化、模板库或词库重新加载。
+ */
+@Slf4j
+@Service
+public class AiDraftService {
+
+    @Autowired
+    private AiAnalysisOrchestrator aiAnalysisOrchestrator;
+
+    @Autowired
+    private AiTextAnalysisService aiTextAnalysisService;
+
+    @Autowired
+    private AiTemplateLibrary templateLibrary;
+
+    @Autowired
+    private AiLexiconRegistry lexiconRegistry;
+
+    @Autowired
+    private LyChatProperties properties;
+
+    private Cache<String, DraftSession> sessions;
+
+    private final LongAdder incrementalScorings = new LongAdder();
+    private final LongAdder fullScorings = new LongAdder();
+    private final LongAdder analysedParagraphs = new LongAdder();
+    private final LongAdder reusedParagraphs = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        LyChatProperties.Draft config = properties.getDraft();
+        sessions = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSessions())
+                .expireAfterAccess(Duration.ofMinutes(config.getIdleTtlMinutes()))
+                .build();
+    }
+
+    /**
+     * 分析草稿的一个版本
+     *
+     * @param draftId 上一版返回的草稿ID，为空或已过期时新建草稿
+     * @param fileContent 提取出的文档文本
+     * @param locale 语言环境
+     * @return 分析结果与草稿版本信息
+     */
+    public DraftAnalysis analyse(String draftId, String fileContent, Locale locale) {
+        DraftSession session = draftId == null || draftId.isEmpty() ? null : sessions.getIfPresent(draftId);
+        if (session == null) {
+            draftId = UUID.randomUUID().toString();
+            session = sessions.get(draftId, key -> new DraftSession());
+        }
+        DraftSession current = session;
+        AtomicReference<DraftScoring> scoring = new AtomicReference<>();
+        AiAnalysisResultVo result = aiAnalysisOrchestrator.analyse(fileContent, locale, stage -> { }, () -> {
+            DraftScoring draftScoring = score(current, fileContent, locale);
+            scoring.set(draftScoring);
+            return draftScoring.result;
+        });
+        return new DraftAnalysis(draftId, result, scoring.get());
+    }
+
+    /**
+     * 本地AI痕迹评分：草稿状态可用时只分析修改过的段落，否则重建草稿
+     */
+    private DraftScoring score(DraftSession session, String fileContent, Locale locale) {
+        synchronized (session) {
+            session.revision++;
+            LexiconMatcher lexicon = lexiconRegistry.matcherFor(locale);
+            TemplateIndex templates = templateLibrary.current();
+            if (session.document == null || session.document.lexicon() != lexicon || session.document.templates() != templates) {
+                session.document = new DraftDocument(lexicon, templates);
+            }
+            boolean incremental = session.document.revision() > 0;
+            DraftDocument.Revision revision = session.document.update(fileContent);
+            (incremental ? incrementalScorings : fullScorings).increment();
+            analysedParagraphs.add(revision.getChangedParagraphs().length);
+            reusedParagraphs.add(revision.getParagraphs() - revision.getChangedParagraphs().length);
+            log.info("草稿第{}版：共{}段，重新分析{}段，删除{}段", session.revision, revision.getParagraphs(),
+                    revision.getChangedParagraphs().length, revision.getRemovedParagraphs());
+            return new DraftScoring(session.revision, revision, incremental,
+                    aiTextAnalysisService.analyzeWithScore(session.document.statistics(templateLibrary.topK()), locale));
+        }
+    }
+
+    /**
+     * 草稿统计：当前草稿数、增量/整篇评分次数、重新分析与复用的段落数
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", sessions.estimatedSize());
+        stats.put("incrementalScorings", incrementalScorings.sum());
+        stats.put("fullScorings", fullScorings.sum());
+        stats.put("analysedParagraphs", analysedParagraphs.sum());
+        stats.put("reusedParagraphs", reusedParagraphs.sum());
+        return stats;
+    }
+
+    /**
+     * 一个草稿的分析状态（按草稿加锁）
+     */
+    private static class DraftSession {
+        /** 为空表示尚未分析过 */
+        DraftDocument document;
+        int revision;
+    }
+
+    /**
+     * 一次本地评分的结果
+     */
+    private static class DraftScoring {
+        final int revision;
+        final DraftDocument.Revision paragraphs;
+        final boolean incremental;
+        final AiTextAnalysisService.AnalysisResult result;
+
+        DraftScoring(int revision, DraftDocument.Revision paragraphs, boolean incremental,
+                     AiTextAnalysisService.AnalysisResult result) {
+            this.revision = revision;
+            this.paragraphs = paragraphs;
+            this.incremental = incremental;
+            this.result = result;
+        }
+    }
+
+    /**
+     * 草稿分析结果
+     */
+    public static class DraftAnalysis {
+        private final String draftId;
+        private final AiAnalysisResultVo result;
+        private final DraftScoring scoring;
+
+        DraftAnalysis(String draftId, AiAnalysisResultVo result, DraftScoring scoring) {
+            this.draftId = draftId;
+            this.result = result;
+            this.scoring = scoring;
+        }
+
+        /**
+         * 草稿ID，下一版上传时传回
+         */
+        public String getDraftId() {
+            return draftId;
+        }
+
+        public AiAnalysisResultVo getResult() {
+            return result;
+        }
+
+        /**
+         * 草稿版本号；全文与之前分析过的文档相同、命中结果缓存时没有重新评分，返回null
+         */
+        public Integer getRevision() {
+            return scoring == null ? null : scoring.revision;
+        }
+
+        /**
+         * 是否基于上一版增量评分
+         */
+        public boolean isIncremental() {
+            return scoring != null && scoring.incremental;
+        }
+
+        /**
+         * 本次重新分析的段落序号（从0开始）；未重新评分时返回null
+         */
+        public int[] getChangedParagraphs() {
+            return scoring == null ? null : scoring.paragraphs.getChangedParagraphs();
+        }
+    }
+}
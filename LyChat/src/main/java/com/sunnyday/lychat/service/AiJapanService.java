@@ -9,8 +9,8 @@ import reactor.core.publisher.Flux;
 
 @AiService(
         wiringMode = AiServiceWiringMode.EXPLICIT,
-        chatModel = "openAiChatModel",
-//        streamingChatModel = "openAiStreamingChatModel",
+        chatModel = "guardedChatModel",
+//        streamingChatModel = "guardedStreamingChatModel",
         chatMemoryProvider = "chatMemoryProvider"//配置会话记忆提供者对象
 )
 public interface AiJapanService {
@@ -20,6 +20,7 @@ public interface AiJapanService {
 
     // 新增方法：不使用@SystemMessage，允许动态传递完整的提示词
     // 这样可以在用户消息中包含系统提示词和语言要求
+    // 文档分析已改用无状态的 AiAnalysisModelService（本方法每个memoryId都会保留一份会话记忆）
     String chatWithoutSystemMessage(@MemoryId String memoryId, @UserMessage String fullPrompt);
 
     @SystemMessage(fromResource = "aiSystemPrompt.txt")
@@ -0,0 +1,69 @@
+package com.sunnyday.lychat.service;
+
+import com.sunnyday.lychat.analysis.LexiconLoader;
+import com.sunnyday.lychat.analysis.LexiconMatcher;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * AI痕迹分析词库注册表
+ * 启动时加载 classpath 下全部 lexicon/lexicon_{locale}.txt 并编译为多模式匹配器
+ * 未提供对应语言词库时回退到日文词库（志望理由书正文为日文）
+ */
+@Slf4j
+@Service
+public class AiLexiconRegistry {
+
+    private static final String LOCATION_PATTERN = "classpath*:lexicon/lexicon_*.txt";
+
+    private static final String DEFAULT_LOCALE = "ja_JP";
+
+    private final Map<String, LexiconMatcher> matchers = new HashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(LOCATION_PATTERN);
+        for (Resource resource : resources) {
+            String fileName = resource.getFilename();
+            if (fileName == null) {
+                continue;
+            }
+            String locale = fileName.substring("lexicon_".length(), fileName.length() - ".txt".length());
+            try (InputStream in = resource.getInputStream()) {
+                LexiconMatcher matcher = LexiconLoader.load(in, fileName);
+                matchers.put(locale, matcher);
+                log.info("词库加载完成: {}，词条数: {}", fileName, matcher.patternCount());
+            }
+        }
+        if (!matchers.containsKey(DEFAULT_LOCALE)) {
+            throw new IllegalStateException("缺少默认词库 lexicon/lexicon_" + DEFAULT_LOCALE + ".txt");
+        }
+    }
+
+    /**
+     * 获取语言环境对应的匹配器：先精确匹配 ja_JP，再按语言 ja 匹配，最后回退默认日文词库
+     */
+    public LexiconMatcher matcherFor(Locale locale) {
+        if (locale != null) {
+            LexiconMatcher matcher = matchers.get(locale.toString());
+            if (matcher != null) {
+                return matcher;
+            }
+            for (Map.Entry<String, LexiconMatcher> e : matchers.entrySet()) {
+                if (e.getKey().startsWith(locale.getLanguage() + "_") || e.getKey().equals(locale.getLanguage())) {
+                    return e.getValue();
+                }
+            }
+        }
+        return matchers.get(DEFAULT_LOCALE);
+    }
+}
@@ -0,0 +1,89 @@
+package com.sunnyday.lychat.service;
+
+import dev.langchain4j.model.openai.OpenAiTokenUsage;
+import dev.langchain4j.model.output.TokenUsage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 大模型token用量统计
+ * 记录每次文档分析调用的输入/输出token数，以及供应商前缀缓存命中的输入token数（OpenAI兼容接口 usage.prompt_tokens_details.cached_tokens），
+ * 并按是否命中前缀缓存分别统计耗时，用于确认固定前缀的提示词布局是否带来了延迟收益
+ */
+@Slf4j
+@Component
+public class AiModelUsageRecorder {
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder inputTokens = new LongAdder();
+    private final LongAdder cachedInputTokens = new LongAdder();
+    private final LongAdder outputTokens = new LongAdder();
+    private final LongAdder cachedCalls = new LongAdder();
+    private final LongAdder cachedNanos = new LongAdder();
+    private final LongAdder uncachedCalls = new LongAdder();
+    private final LongAdder uncachedNanos = new LongAdder();
+    private final LongAdder missingUsage = new LongAdder();
+
+    /**
+     * 记录一次调用
+     *
+     * @param usage 响应中的token用量（供应商未返回时为null）
+     * @param elapsedNanos 调用耗时
+     */
+    public void record(TokenUsage usage, long elapsedNanos) {
+        calls.increment();
+        if (usage == null) {
+            missingUsage.increment();
+            return;
+        }
+        int input = usage.inputTokenCount() != null ? usage.inputTokenCount() : 0;
+        int output = usage.outputTokenCount() != null ? usage.outputTokenCount() : 0;
+        int cached = cachedTokens(usage);
+        inputTokens.add(input);
+        outputTokens.add(output);
+        cachedInputTokens.add(cached);
+        if (cached > 0) {
+            cachedCalls.increment();
+            cachedNanos.add(elapsedNanos);
+        } else {
+            uncachedCalls.increment();
+            uncachedNanos.add(elapsedNanos);
+        }
+        log.info("大模型调用token用量，输入: {}（前缀缓存命中: {}），输出: {}，耗时: {}ms",
+                input, cached, output, elapsedNanos / 1_000_000);
+    }
+
+    public Map<String, Object> stats() {
+        long input = inputTokens.sum();
+        long cached = cachedInputTokens.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("calls", calls.sum());
+        stats.put("inputTokens", input);
+        stats.put("cachedInputTokens", cached);
+        stats.put("cachedInputRatio", input == 0 ? 0.0 : (double) cached / input);
+        stats.put("outputTokens", outputTokens.sum());
+        stats.put("cachedCalls", cachedCalls.sum());
+        stats.put("cachedAvgMillis", averageMillis(cachedNanos.sum(), cachedCalls.sum()));
+        stats.put("uncachedCalls", uncachedCalls.sum());
+        stats.put("uncachedAvgMillis", averageMillis(uncachedNanos.sum(), uncachedCalls.sum()));
+        stats.put("missingUsage", missingUsage.sum());
+        return stats;
+    }
+
+    private static int cachedTokens(TokenUsage usage) {
+        if (usage instanceof OpenAiTokenUsage openAiUsage
+                && openAiUsage.inputTokensDetails() != null
+                && openAiUsage.inputTokensDetails().cachedTokens() != null) {
+            return openAiUsage.inputTokensDetails().cachedTokens();
+        }
+        return 0;
+    }
+
+    private static long averageMillis(long nanos, long count) {
+        return count == 0 ? 0L : nanos / count / 1_000_000;
+    }
+}
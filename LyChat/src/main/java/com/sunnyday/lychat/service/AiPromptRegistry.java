@@ -0,0 +1,386 @@
+package com.sunnyday.lychat.service;
+
+import com.sunnyday.lychat.config.LyChatProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 提示词注册表
+ * 启动时一次性加载全部提示词文件，每个提示词按内容计算版本（SHA-256前12位），
+ * 并为每种语言预先拼好文档分析的固定指令（系统提示词 + 语言要求，作为系统消息），请求时用户消息只需在引导语后追加一次文档内容。
+ * 同一语言的系统消息逐字节不变、可变的文档内容放在最后，便于模型供应商的提示词前缀缓存命中。
+ * 配置外部目录后，目录中的同名文件覆盖内置文件，文件变化时在下一次检查时自动重新加载，加载期间请求继续使用旧版本。
+ *
+ * 提示词文件（classpath根目录或外部目录）：
+ * aiSystemPrompt_{locale}.txt        文档分析系统提示词
+ * languageRequirement_{locale}.txt   返回语言要求
+ * aiSystemPrompt.txt                 缺少对应语言提示词时的默认提示词
+ * memorySummaryPrompt.txt            会话摘要提示词
+ * analysisQualityPrompt_{locale}.txt、analysisRecommendationPrompt_{locale}.txt、analysisRewritePrompt_{locale}.txt
+ *                                    拆分模式下评分、修改建议、改写三个子请求的提示词
+ */
+@Slf4j
+@Service
+public class AiPromptRegistry {
+
+    public static final String MEMORY_SUMMARY = "memorySummaryPrompt";
+
+    private static final String SYSTEM_PROMPT = "aiSystemPrompt";
+    private static final String LANGUAGE_REQUIREMENT = "languageRequirement";
+    private static final String DEFAULT_LOCALE = "ja_JP";
+    private static final String CONTENT_LEAD = "请分析以下文档内容：\n";
+
+    @Autowired
+    private LyChatProperties properties;
+
+    private volatile Snapshot snapshot;
+
+    private volatile long externalFingerprint = -1L;
+
+    private volatile long nextCheckAt;
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    @PostConstruct
+    public void init() {
+        reload();
+        if (snapshot == null) {
+            throw new IllegalStateException("提示词加载失败");
+        }
+    }
+
+    /**
+     * 获取语言环境对应的文档分析提示词（简体中文使用 zh_CN，其余默认日文）
+     */
+    public AnalysisPrompt analysisPrompt(Locale locale) {
+        String key = Locale.SIMPLIFIED_CHINESE.equals(locale) ? "zh_CN" : DEFAULT_LOCALE;
+        Map<String, AnalysisPrompt> prompts = current().analysisPrompts;
+        AnalysisPrompt prompt = prompts.get(key);
+        return prompt != null ? prompt : prompts.get(DEFAULT_LOCALE);
+    }
+
+    /**
+     * 获取指定名称的提示词（文件名去掉 .txt）
+     */
+    public PromptText text(String name) {
+        PromptText text = current().texts.get(name);
+        if (text == null) {
+            throw new IllegalArgumentException("提示词不存在: " + name);
+        }
+        return text;
+    }
+
+    /**
+     * 获取语言环境对应的拆分模式提示词（评分、修改建议、改写），缺少拆分提示词时返回null
+     */
+    public SplitAnalysisPrompt splitAnalysisPrompt(Locale locale) {
+        String key = Locale.SIMPLIFIED_CHINESE.equals(locale) ? "zh_CN" : DEFAULT_LOCALE;
+        Map<String, SplitAnalysisPrompt> prompts = current().splitPrompts;
+        SplitAnalysisPrompt prompt = prompts.get(key);
+        return prompt != null ? prompt : prompts.get(DEFAULT_LOCALE);
+    }
+
+    private Snapshot current() {
+        if (properties.getPrompt().getExternalDir() != null && System.currentTimeMillis() >= nextCheckAt) {
+            reloadIfChanged();
+        }
+        return snapshot;
+    }
+
+    /**
+     * 重新加载全部提示词
+     */
+    public void reload() {
+        reloadLock.lock();
+        try {
+            LyChatProperties.Prompt config = properties.getPrompt();
+            Path externalDir = config.getExternalDir() != null ? Paths.get(config.getExternalDir()) : null;
+
+            List<String> names = new ArrayList<>();
+            names.add(SYSTEM_PROMPT);
+            names.add(MEMORY_SUMMARY);
+            for (String locale : config.getLocales()) {
+                names.add(SYSTEM_PROMPT + "_" + locale);
+                names.add(LANGUAGE_REQUIREMENT + "_" + locale);
+                for (SplitPart part : SplitPart.values()) {
+                    names.add(part.getPromptName() + "_" + locale);
+                }
+            }
+
+            Map<String, PromptText> texts = new HashMap<>();
+            for (String name : names) {
+                String text = read(externalDir, name + ".txt");
+                if (text != null) {
+                    texts.put(name, new PromptText(name, text));
+                }
+            }
+
+            Map<String, AnalysisPrompt> analysisPrompts = new HashMap<>();
+            for (String locale : config.getLocales()) {
+                PromptText systemPrompt = texts.getOrDefault(SYSTEM_PROMPT + "_" + locale, texts.get(SYSTEM_PROMPT));
+                PromptText requirement = texts.get(LANGUAGE_REQUIREMENT + "_" + locale);
+                if (systemPrompt == null || requirement == null) {
+                    log.warn("语言 {} 的提示词不完整，将使用默认语言提示词", locale);
+                    continue;
+                }
+                analysisPrompts.put(locale, new AnalysisPrompt(systemPrompt.getText(), requirement.getText()));
+            }
+            if (!analysisPrompts.containsKey(DEFAULT_LOCALE)) {
+                throw new IllegalStateException("缺少默认语言 " + DEFAULT_LOCALE + " 的文档分析提示词");
+            }
+
+            Map<String, SplitAnalysisPrompt> splitPrompts = new HashMap<>();
+            for (String locale : config.getLocales()) {
+                PromptText requirement = texts.get(LANGUAGE_REQUIREMENT + "_" + locale);
+                Map<SplitPart, AnalysisPrompt> parts = new EnumMap<>(SplitPart.class);
+                for (SplitPart part : SplitPart.values()) {
+                    PromptText partPrompt = texts.get(part.getPromptName() + "_" + locale);
+                    if (partPrompt != null && requirement != null) {
+                        parts.put(part, new AnalysisPrompt(partPrompt.getText(), requirement.getText()));
+                    }
+                }
+                if (parts.size() == SplitPart.values().length) {
+                    splitPrompts.put(locale, new SplitAnalysisPrompt(parts));
+                } else {
+                    log.warn("语言 {} 的拆分模式提示词不完整，将使用默认语言提示词", locale);
+                }
+            }
+
+            snapshot = new Snapshot(Collections.unmodifiableMap(texts), Collections.unmodifiableMap(analysisPrompts),
+                    Collections.unmodifiableMap(splitPrompts));
+            externalFingerprint = fingerprint(externalDir);
+            analysisPrompts.forEach((locale, prompt) ->
+                    log.info("提示词加载完成: {}，版本: {}，指令长度: {}", locale, prompt.getVersion(), prompt.getInstructions().length()));
+        } catch (IOException | RuntimeException e) {
+            // 重新加载失败时保留旧版本
+            log.error("提示词加载失败，继续使用旧版本", e);
+        } finally {
+            nextCheckAt = System.currentTimeMillis() + properties.getPrompt().getReloadCheckSeconds() * 1000L;
+            reloadLock.unlock();
+        }
+    }
+
+    private void reloadIfChanged() {
+        // 已有线程在检查/加载时直接使用旧版本，不阻塞请求
+        if (!reloadLock.tryLock()) {
+            return;
+        }
+        try {
+            if (System.currentTimeMillis() < nextCheckAt) {
+                return;
+            }
+            Path dir = Paths.get(properties.getPrompt().getExternalDir());
+            if (fingerprint(dir) != externalFingerprint) {
+                log.info("检测到外部提示词目录变化，重新加载提示词: {}", dir);
+                reload();
+            } else {
+                nextCheckAt = System.currentTimeMillis() + properties.getPrompt().getReloadCheckSeconds() * 1000L;
+            }
+        } catch (IOException e) {
+            log.warn("检查外部提示词目录失败: {}", e.getMessage());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * 外部目录优先，其次classpath；都不存在时返回null
+     */
+    private String read(Path externalDir, String fileName) throws IOException {
+        if (externalDir != null) {
+            Path path = externalDir.resolve(fileName);
+            if (Files.isRegularFile(path)) {
+                return Files.readString(path, StandardCharsets.UTF_8);
+            }
+        }
+        ClassPathResource resource = new ClassPathResource(fileName);
+        if (!resource.exists()) {
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 外部目录中 .txt 文件的名称与修改时间指纹（目录不存在时为-1）
+     */
+    private static long fingerprint(Path dir) throws IOException {
+        if (dir == null || !Files.isDirectory(dir)) {
+            return -1L;
+        }
+        long fingerprint = 17L;
+        try (var files = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) files.sorted()::iterator) {
+                if (path.getFileName().toString().endsWith(".txt")) {
+                    fingerprint = fingerprint * 31 + path.getFileName().toString().hashCode();
+                    fingerprint = fingerprint * 31 + Files.getLastModifiedTime(path).toMillis();
+                }
+            }
+        }
+        return fingerprint;
+    }
+
+    static String version(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    private static final class Snapshot {
+        private final Map<String, PromptText> texts;
+        private final Map<String, AnalysisPrompt> analysisPrompts;
+        private final Map<String, SplitAnalysisPrompt> splitPrompts;
+
+        private Snapshot(Map<String, PromptText> texts, Map<String, AnalysisPrompt> analysisPrompts,
+                         Map<String, SplitAnalysisPrompt> splitPrompts) {
+            this.texts = texts;
+            this.analysisPrompts = analysisPrompts;
+            this.splitPrompts = splitPrompts;
+        }
+    }
+
+    /**
+     * 单个提示词及其内容版本
+     */
+    public static final class PromptText {
+        private final String name;
+        private final String text;
+        private final String version;
+
+        PromptText(String name, String text) {
+            this.name = name;
+            this.text = text;
+            this.version = version(text);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * 文档分析提示词：预先拼好的固定指令（系统消息）及其版本
+     */
+    public static final class AnalysisPrompt {
+        private final String systemPrompt;
+        private final String languageRequirement;
+        private final String instructions;
+        private final String version;
+
+        AnalysisPrompt(String systemPrompt, String languageRequirement) {
+            this.systemPrompt = systemPrompt;
+            this.languageRequirement = "\n\n" + languageRequirement;
+            this.instructions = systemPrompt + this.languageRequirement;
+            this.version = version(instructions + CONTENT_LEAD);
+        }
+
+        public String getSystemPrompt() {
+            return systemPrompt;
+        }
+
+        /**
+         * 语言要求（含前导空行，与系统提示词直接拼接）
+         */
+        public String getLanguageRequirement() {
+            return languageRequirement;
+        }
+
+        /**
+         * 固定指令：系统提示词 + 语言要求，作为系统消息发送，同一语言、同一版本逐字节相同
+         */
+        public String getInstructions() {
+            return instructions;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * 拼接用户消息：引导语 + 文档内容
+         */
+        public String userMessage(String fileContent) {
+            return new StringBuilder(CONTENT_LEAD.length() + fileContent.length()).append(CONTENT_LEAD).append(fileContent).toString();
+        }
+    }
+
+    /**
+     * 拆分模式的子请求
+     */
+    public enum SplitPart {
+        /** 六大质量维度评分与评语 */
+        QUALITY("analysisQualityPrompt"),
+        /** 完整的修改建议 */
+        RECOMMENDATION("analysisRecommendationPrompt"),
+        /** 修改后的完整材料 */
+        REWRITE("analysisRewritePrompt");
+
+        private final String promptName;
+
+        SplitPart(String promptName) {
+            this.promptName = promptName;
+        }
+
+        public String getPromptName() {
+            return promptName;
+        }
+    }
+
+    /**
+     * 拆分模式提示词：每个子请求各自的固定指令，版本由三个子请求的版本合成（与单请求模式的缓存互不混用）
+     */
+    public static final class SplitAnalysisPrompt {
+        private final Map<SplitPart, AnalysisPrompt> parts;
+        private final String version;
+
+        SplitAnalysisPrompt(Map<SplitPart, AnalysisPrompt> parts) {
+            this.parts = parts;
+            StringBuilder versions = new StringBuilder("split");
+            for (AnalysisPrompt prompt : parts.values()) {
+                versions.append(':').append(prompt.getVersion());
+            }
+            this.version = version(versions.toString());
+        }
+
+        public AnalysisPrompt get(SplitPart part) {
+            return parts.get(part);
+        }
+
+        public String getVersion() {
+            return version;
+        }
+    }
+}
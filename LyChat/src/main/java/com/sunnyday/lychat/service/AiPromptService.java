@@ -1,20 +1,20 @@
 package com.sunnyday.lychat.service;
 
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.Locale;
 
 /**
  * AI提示词服务
- * 根据语言环境加载对应的提示词文件
+ * 根据语言环境获取对应的提示词（提示词由 AiPromptRegistry 启动时预加载）
  */
 @Service
 public class AiPromptService {
 
+    @Autowired
+    private AiPromptRegistry promptRegistry;
+
     /**
      * 根据语言环境获取系统提示词
      * 
@@ -22,31 +22,48 @@ public class AiPromptService {
      * @return 系统提示词内容
      */
     public String getSystemPrompt(Locale locale) {
-        String resourceName;
-        
-        if (Locale.SIMPLIFIED_CHINESE.equals(locale)) {
-            resourceName = "aiSystemPrompt_zh_CN.txt";
-        } else {
-            // 默认日文
-            resourceName = "aiSystemPrompt_ja_JP.txt";
-        }
-        
-        try {
-            ClassPathResource resource = new ClassPathResource(resourceName);
-            InputStream inputStream = resource.getInputStream();
-            byte[] bytes = inputStream.readAllBytes();
-            return new String(bytes, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            // 如果读取失败，返回默认的日文提示词
-            try {
-                ClassPathResource defaultResource = new ClassPathResource("aiSystemPrompt.txt");
-                InputStream inputStream = defaultResource.getInputStream();
-                byte[] bytes = inputStream.readAllBytes();
-                return new String(bytes, StandardCharsets.UTF_8);
-            } catch (IOException ex) {
-                throw new RuntimeException("无法加载AI提示词文件", ex);
-            }
-        }
+        return promptRegistry.analysisPrompt(locale).getSystemPrompt();
+    }
+
+    /**
+     * 根据语言环境获取返回语言要求（追加在系统提示词之后，防止模型使用其他语言返回）
+     *
+     * @param locale 语言环境
+     * @return 语言要求文本
+     */
+    public String getLanguageRequirement(Locale locale) {
+        return promptRegistry.analysisPrompt(locale).getLanguageRequirement();
+    }
+
+    /**
+     * 获取文档分析提示词：固定指令（系统提示词 + 语言要求）作为系统消息，文档内容作为用户消息放在最后
+     * 同一次分析的缓存键版本与发送的提示词应取自同一个对象，避免提示词重新加载时两者不一致
+     *
+     * @param locale 语言环境
+     * @return 文档分析提示词
+     */
+    public AiPromptRegistry.AnalysisPrompt getAnalysisPrompt(Locale locale) {
+        return promptRegistry.analysisPrompt(locale);
+    }
+
+    /**
+     * 获取拆分模式提示词（评分、修改建议、改写三个子请求），缺少拆分提示词时返回null
+     *
+     * @param locale 语言环境
+     * @return 拆分模式提示词
+     */
+    public AiPromptRegistry.SplitAnalysisPrompt getSplitAnalysisPrompt(Locale locale) {
+        return promptRegistry.splitAnalysisPrompt(locale);
     }
-}
 
+    /**
+     * 获取提示词版本：固定指令（系统提示词 + 语言要求）与引导语内容的摘要（前12位十六进制）
+     * 提示词文件修改后版本随之变化，依赖该版本的缓存自然失效
+     *
+     * @param locale 语言环境
+     * @return 提示词版本
+     */
+    public String getPromptVersion(Locale locale) {
+        return promptRegistry.analysisPrompt(locale).getVersion();
+    }
+}
@@ -0,0 +1,181 @@
+package com.sunnyday.lychat.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ruoyi.common.core.redis.RedisCache;
+import com.sunnyday.lychat.analysis.TextNormalizer;
+import com.sunnyday.lychat.config.LyChatProperties;
+import com.sunnyday.lychat.entity.AiAnalysisResultVo;
+import com.sunnyday.lychat.entity.AiDimensionVo;
+import com.sunnyday.lychat.entity.QualityDimensionVo;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 文档分析结果缓存（按内容寻址）
+ * 两级缓存：进程内 Caffeine（W-TinyLFU，按条数限制）在前，Redis 在后。
+ * 缓存键 = SHA-256(归一化文本) + 语言环境 + 提示词版本 + 线上评分模型版本，同一文档重复上传时直接返回结果，不再调用大模型；
+ * 切换线上评分版本后旧版本的分数自然失效，不会在TTL内继续返回。
+ * Redis 中以JSON字符串保存（RedisTemplate的反序列化白名单只包含 com.ruoyi），Redis异常只记录日志、不影响分析。
+ * 本地缓存中的对象被所有命中的请求共享，读写都使用副本，调用方修改返回的结果不会影响缓存。
+ * 逐句热力图的偏移指向上传的原文，而空白不同的两次上传共用同一个键，所以热力图不进入缓存，命中后由调用方按本次原文重新生成。
+ */
+@Slf4j
+@Service
+public class AiResultCache {
+
+    @Autowired
+    private RedisCache redisCache;
+
+    @Autowired
+    private LyChatProperties properties;
+
+    @Autowired
+    private AiScorerRegistry scorerRegistry;
+
+    private Cache<String, AiAnalysisResultVo> localCache;
+
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        LyChatProperties.Cache config = properties.getCache();
+        localCache = Caffeine.newBuilder()
+                .maximumSize(config.getLocalMaxEntries())
+                .expireAfterWrite(Duration.ofMinutes(config.getLocalTtlMinutes()))
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return properties.getCache().isEnabled();
+    }
+
+    /**
+     * 计算缓存键
+     *
+     * @param text 提取出的文档文本（内部先归一化空白）
+     * @param locale 语言环境
+     * @param promptVersion 提示词版本（线上评分模型版本由本类从 AiScorerRegistry 读取）
+     */
+    public String key(String text, Locale locale, String promptVersion) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(TextNormalizer.normalize(text).getBytes(StandardCharsets.UTF_8));
+            return properties.getCache().getKeyPrefix() + locale + ":" + promptVersion + ":"
+                    + scorerRegistry.production().version() + ":" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    /**
+     * 查询缓存：先查本地，未命中再查Redis，Redis命中后回填本地
+     *
+     * @return 命中结果的副本，未命中返回null
+     */
+    public AiAnalysisResultVo get(String key) {
+        AiAnalysisResultVo result = localCache.getIfPresent(key);
+        if (result != null) {
+            return copy(result);
+        }
+        try {
+            String json = redisCache.getCacheObject(key);
+            if (json == null) {
+                redisMisses.increment();
+                return null;
+            }
+            redisHits.increment();
+            result = JSON.parseObject(json, AiAnalysisResultVo.class);
+            localCache.put(key, result);
+            return copy(result);
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.warn("读取Redis分析结果缓存失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 写入两级缓存（调用方保证只写入完整结果，部分结果不缓存；热力图不写入）
+     */
+    public void put(String key, AiAnalysisResultVo result) {
+        AiAnalysisResultVo stored = copy(result);
+        localCache.put(key, stored);
+        try {
+            redisCache.setCacheObject(key, JSON.toJSONString(stored), properties.getCache().getRedisTtlHours(), TimeUnit.HOURS);
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.warn("写入Redis分析结果缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 复制结果（包括列表中的各维度对象，不包括热力图）
+     */
+    private static AiAnalysisResultVo copy(AiAnalysisResultVo source) {
+        AiAnalysisResultVo copy = new AiAnalysisResultVo();
+        copy.setAiScore(source.getAiScore());
+        if (source.getAiDimensions() != null) {
+            List<AiDimensionVo> aiDimensions = new ArrayList<>(source.getAiDimensions().size());
+            for (AiDimensionVo dimension : source.getAiDimensions()) {
+                AiDimensionVo dimensionCopy = new AiDimensionVo();
+                dimensionCopy.setName(dimension.getName());
+                dimensionCopy.setLevel(dimension.getLevel());
+                dimensionCopy.setEvaluation(dimension.getEvaluation());
+                aiDimensions.add(dimensionCopy);
+            }
+            copy.setAiDimensions(aiDimensions);
+        }
+        if (source.getQualityDimensions() != null) {
+            List<QualityDimensionVo> qualityDimensions = new ArrayList<>(source.getQualityDimensions().size());
+            for (QualityDimensionVo dimension : source.getQualityDimensions()) {
+                QualityDimensionVo dimensionCopy = new QualityDimensionVo();
+                dimensionCopy.setName(dimension.getName());
+                dimensionCopy.setScore(dimension.getScore());
+                dimensionCopy.setEvaluation(dimension.getEvaluation());
+                qualityDimensions.add(dimensionCopy);
+            }
+            copy.setQualityDimensions(qualityDimensions);
+        }
+        copy.setRecommendations(source.getRecommendations() == null ? null : new ArrayList<>(source.getRecommendations()));
+        copy.setPartial(source.getPartial());
+        return copy;
+    }
+
+    /**
+     * 缓存统计：本地命中/未命中/淘汰次数，Redis命中/未命中/异常次数
+     */
+    public Map<String, Object> stats() {
+        CacheStats local = localCache.stats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localSize", localCache.estimatedSize());
+        stats.put("localHits", local.hitCount());
+        stats.put("localMisses", local.missCount());
+        stats.put("localEvictions", local.evictionCount());
+        stats.put("localHitRate", local.hitRate());
+        stats.put("redisHits", redisHits.sum());
+        stats.put("redisMisses", redisMisses.sum());
+        stats.put("redisErrors", redisErrors.sum());
+        return stats;
+    }
+}
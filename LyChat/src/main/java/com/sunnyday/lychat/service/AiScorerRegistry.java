@@ -0,0 +1,203 @@
+package com.sunnyday.lychat.service;
+
+import com.sunnyday.lychat.analysis.AiScoreCard;
+import com.sunnyday.lychat.analysis.AiScorer;
+import com.sunnyday.lychat.analysis.AiScorers;
+import com.sunnyday.lychat.analysis.TextStatistics;
+import com.sunnyday.lychat.config.LyChatProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AI痕迹评分模型注册表
+ * 线上版本（lychat.scoring.production-version）的结果返回给用户；影子版本（shadow-versions）在低优先级线程池中
+ * 对同一份文本统计量打分，只记录AI率和各维度与线上版本的差值，用于在真实流量上评估新的映射曲线和权重。
+ * 影子评分不重新扫描文本，队列满时直接丢弃，不增加请求耗时。
+ */
+@Slf4j
+@Service
+public class AiScorerRegistry {
+
+    @Autowired
+    private LyChatProperties properties;
+
+    @Autowired
+    @Qualifier("lychatShadowExecutor")
+    private AsyncTaskExecutor shadowExecutor;
+
+    private final Map<String, AiScorer> scorers = new LinkedHashMap<>();
+
+    private AiScorer production;
+
+    /** 影子版本及其统计，按配置顺序 */
+    private final Map<String, ShadowStats> shadows = new LinkedHashMap<>();
+
+    private final LongAdder dropped = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        for (AiScorer scorer : AiScorers.builtIn()) {
+            scorers.put(scorer.version(), scorer);
+        }
+        LyChatProperties.Scoring config = properties.getScoring();
+        production = scorer(config.getProductionVersion());
+        for (String version : config.getShadowVersions()) {
+            String name = version.trim();
+            if (name.isEmpty() || name.equals(production.version())) {
+                continue;
+            }
+            shadows.put(name, new ShadowStats(scorer(name)));
+        }
+        log.info("AI痕迹评分模型：线上版本 {}，影子版本 {}", production.version(), shadows.keySet());
+    }
+
+    /**
+     * 线上评分模型
+     */
+    public AiScorer production() {
+        return production;
+    }
+
+    /**
+     * 已注册的版本名
+     */
+    public List<String> versions() {
+        return new ArrayList<>(scorers.keySet());
+    }
+
+    /**
+     * 提交影子评分（不等待结果）
+     *
+     * @param statistics 线上评分使用的文本统计量
+     * @param productionScore 线上版本的评分结果
+     */
+    public void shadow(TextStatistics statistics, AiScoreCard productionScore) {
+        if (shadows.isEmpty()) {
+            return;
+        }
+        try {
+            shadowExecutor.execute(() -> compare(statistics, productionScore));
+        } catch (TaskRejectedException e) {
+            dropped.increment();
+        }
+    }
+
+    private void compare(TextStatistics statistics, AiScoreCard productionScore) {
+        int logMinDelta = properties.getScoring().getShadowLogMinDelta();
+        double[] productionDimensions = productionScore.dimensions();
+        for (ShadowStats shadow : shadows.values()) {
+            AiScoreCard candidate;
+            try {
+                candidate = shadow.scorer.score(statistics);
+            } catch (RuntimeException e) {
+                shadow.errors.increment();
+                log.warn("影子评分 {} 失败: {}", shadow.scorer.version(), e.getMessage());
+                continue;
+            }
+            int delta = candidate.aiScore() - productionScore.aiScore();
+            double[] dimensions = candidate.dimensions();
+            double[] dimensionDeltas = new double[dimensions.length];
+            for (int i = 0; i < dimensions.length; i++) {
+                dimensionDeltas[i] = dimensions[i] - productionDimensions[i];
+            }
+            shadow.record(delta, dimensionDeltas);
+            if (Math.abs(delta) >= logMinDelta) {
+                log.info("影子评分 {} -> {}：AI率 {} -> {}（{}{}），维度差值 {}", production.version(), shadow.scorer.version(),
+                        productionScore.aiScore(), candidate.aiScore(), delta >= 0 ? "+" : "", delta, format(dimensionDeltas));
+            }
+        }
+    }
+
+    /**
+     * 影子评分统计：每个影子版本的对比次数、AI率差值的均值/绝对值均值/最大绝对值、各维度差值均值，以及丢弃次数
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("production", production.version());
+        stats.put("dropped", dropped.sum());
+        Map<String, Object> versions = new LinkedHashMap<>();
+        for (Map.Entry<String, ShadowStats> entry : shadows.entrySet()) {
+            versions.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        stats.put("shadows", versions);
+        return stats;
+    }
+
+    private AiScorer scorer(String version) {
+        AiScorer scorer = scorers.get(version == null ? null : version.trim());
+        if (scorer == null) {
+            throw new IllegalStateException("未知的AI痕迹评分模型版本: " + version + "，可选: " + scorers.keySet());
+        }
+        return scorer;
+    }
+
+    private static String format(double[] deltas) {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < deltas.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(AiScorers.DIMENSIONS.get(i)).append('=').append(String.format("%+.3f", deltas[i]));
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * 一个影子版本的累计差值
+     */
+    private static class ShadowStats {
+        final AiScorer scorer;
+        final LongAdder compared = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder deltaSum = new LongAdder();
+        final LongAdder absDeltaSum = new LongAdder();
+        final LongAccumulator maxAbsDelta = new LongAccumulator(Math::max, 0);
+        final DoubleAdder[] dimensionDeltaSums = new DoubleAdder[AiScorers.DIMENSIONS.size()];
+
+        ShadowStats(AiScorer scorer) {
+            this.scorer = scorer;
+            for (int i = 0; i < dimensionDeltaSums.length; i++) {
+                dimensionDeltaSums[i] = new DoubleAdder();
+            }
+        }
+
+        void record(int delta, double[] dimensionDeltas) {
+            compared.increment();
+            deltaSum.add(delta);
+            absDeltaSum.add(Math.abs(delta));
+            maxAbsDelta.accumulate(Math.abs(delta));
+            for (int i = 0; i < dimensionDeltas.length; i++) {
+                dimensionDeltaSums[i].add(dimensionDeltas[i]);
+            }
+        }
+
+        Map<String, Object> snapshot() {
+            long n = compared.sum();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("compared", n);
+            stats.put("errors", errors.sum());
+            stats.put("meanDelta", n == 0 ? 0.0 : (double) deltaSum.sum() / n);
+            stats.put("meanAbsDelta", n == 0 ? 0.0 : (double) absDeltaSum.sum() / n);
+            stats.put("maxAbsDelta", maxAbsDelta.get());
+            Map<String, Object> dimensions = new LinkedHashMap<>();
+            for (int i = 0; i < dimensionDeltaSums.length; i++) {
+                dimensions.put(AiScorers.DIMENSIONS.get(i), n == 0 ? 0.0 : dimensionDeltaSums[i].sum() / n);
+            }
+            stats.put("meanDimensionDelta", dimensions);
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.sunnyday.lychat.service;
+
+import com.ruoyi.common.exception.ServiceException;
+import com.sunnyday.lychat.config.LyChatProperties;
+import com.sunnyday.lychat.entity.AiAnalysisResultVo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 相同文档并发分析的合并（single-flight）
+ * 以结果缓存键（文本摘要 + 语言 + 提示词版本 + 评分模型版本）为键，保证同一时刻每个键只有一次大模型调用：
+ * 1、本节点：第一个请求成为leader执行大模型分支，之后到达的相同请求挂在leader的 CompletableFuture 上等待同一结果
+ * 2、多节点：leader调用大模型前用 Redis SET NX 抢占 {lockKeyPrefix}{缓存键}，抢占失败说明其他节点正在计算，
+ *    此时轮询结果缓存直到对方写入结果；对方释放锁但没有写入（失败或部分结果）时重新抢占并自行计算
+ * 锁带过期时间（大模型超时 + 余量），持有节点异常退出时自动释放；释放时校验持有者，避免误删其他节点重新抢到的锁。
+ */
+@Slf4j
+@Service
+public class AiSingleFlight {
+
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private AiResultCache aiResultCache;
+
+    @Autowired
+    private LyChatProperties properties;
+
+    private final Map<String, Flight> inflight = new ConcurrentHashMap<>();
+
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder localJoins = new LongAdder();
+    private final LongAdder remoteJoins = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+
+    public boolean isEnabled() {
+        return properties.getSingleFlight().isEnabled();
+    }
+
+    /**
+     * 加入键对应的计算：没有进行中的计算时成为leader（isLeader()=true），否则成为等待者
+     * leader必须在结束时调用 complete() 或 fail()
+     */
+    public Flight join(String key) {
+        Flight created = new Flight(key);
+        Flight existing = inflight.putIfAbsent(key, created);
+        if (existing != null) {
+            localJoins.increment();
+            return existing.follower();
+        }
+        leaders.increment();
+        return created;
+    }
+
+    /**
+     * 本节点的一次计算
+     */
+    public final class Flight {
+        private final String key;
+        private final CompletableFuture<AiAnalysisResultVo> future;
+        private final boolean leader;
+        private String lockToken;
+
+        private Flight(String key) {
+            this.key = key;
+            this.future = new CompletableFuture<>();
+            this.leader = true;
+        }
+
+        private Flight(Flight leaderFlight) {
+            this.key = leaderFlight.key;
+            this.future = leaderFlight.future;
+            this.leader = false;
+        }
+
+        private Flight follower() {
+            return new Flight(this);
+        }
+
+        public boolean isLeader() {
+            return leader;
+        }
+
+        /**
+         * 等待者：leader的大模型分支结果（每个等待者得到各自的副本，可以自由合并本地评分）
+         */
+        public CompletableFuture<AiAnalysisResultVo> result() {
+            return future.thenApply(AiSingleFlight::copyLlmPart);
+        }
+
+        /**
+         * leader：调用大模型前确认其他节点没有在计算同一文档
+         * 其他节点正在计算时阻塞轮询结果缓存，拿到结果后返回其大模型分支部分的副本；抢占到锁（或Redis不可用）时返回null，由调用方自行计算
+         *
+         * @param deadlineNanos 等待截止时间（System.nanoTime）
+         */
+        public AiAnalysisResultVo acquireOrAwaitRemote(long deadlineNanos) {
+            LyChatProperties.SingleFlight config = properties.getSingleFlight();
+            if (!leader || !config.isDistributed() || !aiResultCache.isEnabled()) {
+                return null;
+            }
+            String lockKey = config.getLockKeyPrefix() + key;
+            String token = UUID.randomUUID().toString();
+            Duration lockTtl = Duration.ofSeconds(properties.getAnalysis().getLlmTimeoutSeconds() + config.getLockExtraSeconds());
+            boolean counted = false;
+            while (true) {
+                try {
+                    if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey, token, lockTtl))) {
+                        lockToken = token;
+                        return null;
+                    }
+                } catch (Exception e) {
+                    // Redis不可用时退化为只在本节点合并
+                    redisErrors.increment();
+                    log.warn("抢占分析锁失败，跳过跨节点合并: {}", e.getMessage());
+                    return null;
+                }
+                if (!counted) {
+                    remoteJoins.increment();
+                    counted = true;
+                    log.info("其他节点正在分析相同文档，等待其结果: {}", key);
+                }
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new ServiceException("等待其他节点的分析结果超时");
+                }
+                try {
+                    Thread.sleep(Math.min(TimeUnit.NANOSECONDS.toMillis(remaining) + 1, config.getPollIntervalMillis()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ServiceException("等待其他节点的分析结果时被中断");
+                }
+                AiAnalysisResultVo remote = aiResultCache.get(key);
+                if (remote != null) {
+                    // 缓存中的对象是共享的，返回副本
+                    return copyLlmPart(remote);
+                }
+            }
+        }
+
+        /**
+         * leader：发布大模型分支结果（部分结果同样发布给本节点的等待者，但不会进入缓存），释放跨节点锁
+         * 调用前应已把完整结果写入结果缓存，其他节点才能在锁释放前后读到
+         */
+        public void complete(AiAnalysisResultVo llmResult) {
+            finish();
+            future.complete(copyLlmPart(llmResult));
+        }
+
+        /**
+         * leader：计算失败，等待者各自降级
+         */
+        public void fail(Throwable error) {
+            finish();
+            future.completeExceptionally(error);
+        }
+
+        private void finish() {
+            inflight.remove(key, this);
+            if (lockToken != null) {
+                try {
+                    redisTemplate.execute(RELEASE_SCRIPT, List.of(properties.getSingleFlight().getLockKeyPrefix() + key), lockToken);
+                } catch (Exception e) {
+                    redisErrors.increment();
+                    log.warn("释放分析锁失败（将按过期时间自动释放）: {}", e.getMessage());
+                }
+                lockToken = null;
+            }
+        }
+    }
+
+    /**
+     * 统计：成为leader的次数、在本节点/其他节点合并的请求数
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inflight", inflight.size());
+        stats.put("leaders", leaders.sum());
+        stats.put("localJoins", localJoins.sum());
+        stats.put("remoteJoins", remoteJoins.sum());
+        stats.put("redisErrors", redisErrors.sum());
+        return stats;
+    }
+
+    /**
+     * 复制大模型分支的结果（质量维度、修改建议、是否部分结果），每个请求再各自合并本地评分
+     */
+    private static AiAnalysisResultVo copyLlmPart(AiAnalysisResultVo source) {
+        AiAnalysisResultVo copy = new AiAnalysisResultVo();
+        if (source != null) {
+            copy.setQualityDimensions(source.getQualityDimensions());
+            copy.setRecommendations(source.getRecommendations());
+            copy.setPartial(source.getPartial());
+        }
+        return copy;
+    }
+}
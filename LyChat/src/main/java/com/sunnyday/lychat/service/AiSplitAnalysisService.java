@@ -0,0 +1,250 @@
+package com.sunnyday.lychat.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.sunnyday.lychat.config.LyChatProperties;
+import com.sunnyday.lychat.entity.AiAnalysisResultVo;
+import com.sunnyday.lychat.entity.QualityDimensionVo;
+import com.sunnyday.lychat.llm.GuardedChatModel;
+import com.sunnyday.lychat.llm.ModelGuard;
+import dev.langchain4j.service.AiServices;
+import dev.langchain4j.service.Result;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 拆分模式的大模型分析
+ * 把一次长输出的分析拆成三个互不依赖的子请求，在分析线程池中并行执行：
+ * 1、QUALITY：六大质量维度评分与评语
+ * 2、RECOMMENDATION：完整的修改建议
+ * 3、REWRITE：修改后的完整材料（纯文本输出，不做JSON转义）
+ * 每个子请求使用各自较短的提示词和独立超时，合并后与单请求模式的结果结构一致（recommendations 最后一条为改写全文）。
+ * 大模型分支的耗时从三段输出之和变为最慢的一个子请求。部分子请求失败时返回部分结果（partial=true），全部失败时整体失败。
+ * 三个子请求的输出长度相差很大，各自作为独立的调用类别（split-quality 等）判断是否变慢，见 ModelGuard。
+ */
+@Slf4j
+@Service
+public class AiSplitAnalysisService {
+
+    @Autowired
+    @Qualifier("guardedAnalysisChatModel")
+    private GuardedChatModel analysisChatModel;
+
+    /** 每个子请求一个无状态模型服务，共享调用保护，调用类别各自独立 */
+    private final Map<AiPromptRegistry.SplitPart, AiAnalysisModelService> partServices =
+            new EnumMap<>(AiPromptRegistry.SplitPart.class);
+
+    @Autowired
+    private AiModelUsageRecorder usageRecorder;
+
+    @Autowired
+    private LyChatProperties properties;
+
+    @Autowired
+    @Qualifier("lychatAnalysisExecutor")
+    private AsyncTaskExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        for (AiPromptRegistry.SplitPart part : AiPromptRegistry.SplitPart.values()) {
+            String callClass = ModelGuard.CALL_SPLIT_PREFIX + part.name().toLowerCase(Locale.ROOT);
+            partServices.put(part, AiServices.builder(AiAnalysisModelService.class)
+                    .chatModel(analysisChatModel.withCallClass(callClass))
+                    .build());
+        }
+    }
+
+    /**
+     * 提交三个并行子请求，立即返回；通过返回的Future等待合并结果
+     *
+     * @param fileContent 提取出的文档文本
+     * @param prompt 拆分模式提示词
+     * @param progress 阶段回调
+     * @return 合并结果的Future，get(timeout) 在各子请求自身超时与整体超时中取较早者
+     */
+    public Future<AiAnalysisResultVo> submit(String fileContent, AiPromptRegistry.SplitAnalysisPrompt prompt,
+                                             Consumer<AnalysisStage> progress) {
+        LyChatProperties.Analysis config = properties.getAnalysis();
+        progress.accept(AnalysisStage.LLM);
+        long start = System.nanoTime();
+        Branch<List<QualityDimensionVo>> quality = branch(AiPromptRegistry.SplitPart.QUALITY, prompt, fileContent,
+                config.getQualityTimeoutSeconds(), start,
+                text -> JSON.parseObject(text, AiAnalysisResultVo.class).getQualityDimensions());
+        Branch<List<String>> recommendation = branch(AiPromptRegistry.SplitPart.RECOMMENDATION, prompt, fileContent,
+                config.getRecommendationTimeoutSeconds(), start,
+                text -> JSON.parseObject(text, AiAnalysisResultVo.class).getRecommendations());
+        Branch<String> rewrite = branch(AiPromptRegistry.SplitPart.REWRITE, prompt, fileContent,
+                config.getRewriteTimeoutSeconds(), start, AiSplitAnalysisService::stripCodeFence);
+        return new SplitFuture(quality, recommendation, rewrite, progress);
+    }
+
+    private <T> Branch<T> branch(AiPromptRegistry.SplitPart part, AiPromptRegistry.SplitAnalysisPrompt prompt,
+                                 String fileContent, int timeoutSeconds, long start, Function<String, T> parser) {
+        AiPromptRegistry.AnalysisPrompt partPrompt = prompt.get(part);
+        String userMessage = partPrompt.userMessage(fileContent);
+        Callable<T> call = () -> {
+            long callStart = System.nanoTime();
+            Result<String> response = partServices.get(part).analyse(partPrompt.getInstructions(), userMessage);
+            usageRecorder.record(response.tokenUsage(), System.nanoTime() - callStart);
+            T value = response.content() != null ? parser.apply(response.content()) : null;
+            if (value == null || value instanceof List<?> list && list.isEmpty()) {
+                throw new IllegalStateException("大模型返回内容为空");
+            }
+            log.info("拆分子请求 {} 完成，耗时: {}ms", part, (System.nanoTime() - start) / 1_000_000);
+            return value;
+        };
+        Future<T> future;
+        try {
+            future = executor.submit(call);
+        } catch (TaskRejectedException e) {
+            // 线程池已满时该子请求按失败处理，其余子请求照常合并为部分结果
+            log.warn("分析线程池已满，拆分子请求 {} 未执行", part);
+            future = CompletableFuture.failedFuture(e);
+        }
+        return new Branch<>(part, future, start + TimeUnit.SECONDS.toNanos(timeoutSeconds));
+    }
+
+    /**
+     * 去掉模型偶尔包在正文外的 ``` 代码块标记
+     */
+    private static String stripCodeFence(String text) {
+        String stripped = text.strip();
+        if (stripped.startsWith("```")) {
+            int firstLineEnd = stripped.indexOf('\n');
+            stripped = firstLineEnd < 0 ? "" : stripped.substring(firstLineEnd + 1);
+            if (stripped.endsWith("```")) {
+                stripped = stripped.substring(0, stripped.length() - 3);
+            }
+            stripped = stripped.strip();
+        }
+        return stripped.isEmpty() ? null : stripped;
+    }
+
+    /**
+     * 单个子请求及其截止时间
+     */
+    private static final class Branch<T> {
+        private final AiPromptRegistry.SplitPart part;
+        private final Future<T> future;
+        private final long deadlineNanos;
+
+        private Branch(AiPromptRegistry.SplitPart part, Future<T> future, long deadlineNanos) {
+            this.part = part;
+            this.future = future;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * 在子请求截止时间与整体截止时间中较早者之前等待结果，失败或超时返回null
+         */
+        private T await(long outerDeadlineNanos) {
+            long remaining = Math.min(deadlineNanos, outerDeadlineNanos) - System.nanoTime();
+            try {
+                return future.get(Math.max(0L, remaining), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                log.warn("拆分子请求 {} 超时", part);
+                return null;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.warn("拆分子请求 {} 失败: {}", part, cause.getClass().getSimpleName() + ": " + cause.getMessage());
+                return null;
+            } catch (RuntimeException e) {
+                log.warn("拆分子请求 {} 失败: {}", part, e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 三个子请求的合并结果
+     */
+    private static final class SplitFuture implements Future<AiAnalysisResultVo> {
+        private final Branch<List<QualityDimensionVo>> quality;
+        private final Branch<List<String>> recommendation;
+        private final Branch<String> rewrite;
+        private final Consumer<AnalysisStage> progress;
+
+        private SplitFuture(Branch<List<QualityDimensionVo>> quality, Branch<List<String>> recommendation,
+                            Branch<String> rewrite, Consumer<AnalysisStage> progress) {
+            this.quality = quality;
+            this.recommendation = recommendation;
+            this.rewrite = rewrite;
+            this.progress = progress;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = quality.future.cancel(mayInterruptIfRunning);
+            cancelled |= recommendation.future.cancel(mayInterruptIfRunning);
+            cancelled |= rewrite.future.cancel(mayInterruptIfRunning);
+            return cancelled;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return quality.future.isCancelled() && recommendation.future.isCancelled() && rewrite.future.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return quality.future.isDone() && recommendation.future.isDone() && rewrite.future.isDone();
+        }
+
+        @Override
+        public AiAnalysisResultVo get() throws ExecutionException {
+            return merge(Long.MAX_VALUE);
+        }
+
+        @Override
+        public AiAnalysisResultVo get(long timeout, TimeUnit unit) throws ExecutionException {
+            return merge(System.nanoTime() + unit.toNanos(timeout));
+        }
+
+        private AiAnalysisResultVo merge(long outerDeadlineNanos) throws ExecutionException {
+            // 三个子请求并行执行，依次等待的总耗时即最慢的一个
+            List<QualityDimensionVo> qualityDimensions = quality.await(outerDeadlineNanos);
+            List<String> recommendations = recommendation.await(outerDeadlineNanos);
+            String rewritten = rewrite.await(outerDeadlineNanos);
+            if (qualityDimensions == null && recommendations == null && rewritten == null) {
+                throw new ExecutionException(new IllegalStateException("拆分模式的子请求全部失败"));
+            }
+
+            progress.accept(AnalysisStage.PARSING);
+            List<String> merged = new ArrayList<>();
+            if (recommendations != null) {
+                merged.addAll(recommendations);
+            }
+            if (rewritten != null) {
+                merged.add(rewritten);
+            }
+            AiAnalysisResultVo result = new AiAnalysisResultVo();
+            result.setQualityDimensions(qualityDimensions);
+            result.setRecommendations(merged.isEmpty() ? null : merged);
+            result.setPartial(qualityDimensions == null || recommendations == null || rewritten == null);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.sunnyday.lychat.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.ruoyi.common.exception.ServiceException;
+import com.sunnyday.lychat.config.LyChatProperties;
+import com.sunnyday.lychat.entity.AiAnalysisResultVo;
+import com.sunnyday.lychat.entity.AiDimensionVo;
+import com.sunnyday.lychat.entity.QualityDimensionVo;
+import com.sunnyday.lychat.llm.IncrementalJsonParser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.MessageSource;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 流式文档分析服务
+ * 使用流式大模型输出，边接收边用增量JSON解析器切出完整的数组元素，以SSE事件推送给前端：
+ * aiTrace（本地AI痕迹评分，通常最先到达）、qualityDimension（每个质量维度）、recommendation（每条修改建议）、
+ * result（合并后的完整结果，与同步接口一致）、error（失败原因）
+ * 与同步接口共用 AiSingleFlight：相同文档正在分析时不再调用大模型，等待进行中的结果后按同样的事件回放
+ */
+@Slf4j
+@Service
+public class AiStreamingAnalysisService {
+
+    public static final String EVENT_AI_TRACE = "aiTrace";
+    public static final String EVENT_QUALITY_DIMENSION = "qualityDimension";
+    public static final String EVENT_RECOMMENDATION = "recommendation";
+    public static final String EVENT_RESULT = "result";
+    public static final String EVENT_ERROR = "error";
+
+    private static final String FIELD_QUALITY_DIMENSIONS = "qualityDimensions";
+    private static final String FIELD_RECOMMENDATIONS = "recommendations";
+
+    @Autowired
+    private AiAnalysisModelService aiAnalysisModelService;
+
+    @Autowired
+    private AiTextAnalysisService aiTextAnalysisService;
+
+    @Autowired
+    private AiPromptService aiPromptService;
+
+    @Autowired
+    private AiResultCache aiResultCache;
+
+    @Autowired
+    private AiSingleFlight aiSingleFlight;
+
+    @Autowired
+    private AiModelUsageRecorder usageRecorder;
+
+    @Autowired
+    private MessageSource messageSource;
+
+    @Autowired
+    private LyChatProperties properties;
+
+    @Autowired
+    @Qualifier("lychatAnalysisExecutor")
+    private AsyncTaskExecutor executor;
+
+    /**
+     * 流式分析文档内容
+     *
+     * @param fileContent 提取出的文档文本
+     * @param locale 语言环境
+     * @return SSE事件流，以 result 或 error 事件结束
+     */
+    public Flux<ServerSentEvent<Object>> analyse(String fileContent, Locale locale) {
+        return Flux.<ServerSentEvent<Object>>create(sink -> start(fileContent, locale, sink))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private void start(String fileContent, Locale locale, FluxSink<ServerSentEvent<Object>> sink) {
+        long start = System.nanoTime();
+        LyChatProperties.Analysis config = properties.getAnalysis();
+
+        // 1. 命中结果缓存时按同样的事件顺序回放
+        AiPromptRegistry.AnalysisPrompt prompt = aiPromptService.getAnalysisPrompt(locale);
+        String cacheKey = null;
+        if (aiResultCache.isEnabled()) {
+            cacheKey = aiResultCache.key(fileContent, locale, prompt.getVersion());
+            AiAnalysisResultVo cached = aiResultCache.get(cacheKey);
+            if (cached != null) {
+                // 缓存不保存热力图（偏移随原文空白变化），按本次原文重新生成
+                cached.setAiHeatmap(aiTextAnalysisService.heatmap(fileContent, locale));
+                cached.setAiHeatmapText(cached.getAiHeatmap() == null ? null : fileContent);
+                replay(cached, sink);
+                return;
+            }
+        }
+
+        // 2. 本地AI痕迹评分并行执行，完成后立即推送
+        Callable<AiTextAnalysisService.AnalysisResult> scoringTask = () -> {
+            AiTextAnalysisService.AnalysisResult analysisResult = aiTextAnalysisService.analyzeWithScore(fileContent, locale);
+            sink.next(event(EVENT_AI_TRACE, null, aiTrace(analysisResult.getAiScore(), analysisResult.getDimensions(),
+                    analysisResult.getHeatmap(), fileContent)));
+            return analysisResult;
+        };
+        Future<AiTextAnalysisService.AnalysisResult> scoring;
+        try {
+            scoring = executor.submit(scoringTask);
+        } catch (TaskRejectedException e) {
+            // 线程池已满时在当前线程（boundedElastic）执行，本地评分只需几毫秒
+            FutureTask<AiTextAnalysisService.AnalysisResult> inline = new FutureTask<>(scoringTask);
+            inline.run();
+            scoring = inline;
+        }
+
+        // 3. 相同文档正在分析时（本节点或其他节点）等待其大模型结果并按元素回放，否则自己流式调用大模型
+        AiSingleFlight.Flight flight = null;
+        if (aiSingleFlight.isEnabled()) {
+            flight = aiSingleFlight.join(cacheKey != null ? cacheKey : aiResultCache.key(fileContent, locale, prompt.getVersion()));
+        }
+        long deadline = start + TimeUnit.SECONDS.toNanos(config.getLlmTimeoutSeconds());
+        if (flight != null && !flight.isLeader()) {
+            log.info("相同文档正在流式分析，等待进行中的大模型调用");
+            awaitShared(flight.result(), deadline, scoring, start, fileContent, locale, sink);
+            return;
+        }
+        if (flight != null) {
+            AiAnalysisResultVo remote;
+            try {
+                remote = flight.acquireOrAwaitRemote(deadline);
+            } catch (RuntimeException e) {
+                flight.fail(e);
+                finish(null, e, List.of(), List.of(), scoring, start, null, null, fileContent, locale, sink);
+                return;
+            }
+            if (remote != null) {
+                flight.complete(remote);
+                awaitShared(CompletableFuture.completedFuture(remote), deadline, scoring, start, fileContent, locale, sink);
+                return;
+            }
+        }
+        try {
+            streamLlm(prompt, fileContent, scoring, start, cacheKey, flight, locale, sink);
+        } catch (RuntimeException | Error e) {
+            if (flight != null) {
+                flight.fail(e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 流式调用大模型，每个完整的质量维度/修改建议立即推送
+     * 作为leader时在结束时发布结果；客户端提前断开时大模型订阅随之取消，等待同一结果的请求各自降级
+     */
+    private void streamLlm(AiPromptRegistry.AnalysisPrompt prompt, String fileContent,
+                           Future<AiTextAnalysisService.AnalysisResult> scoring, long start, String cacheKey,
+                           AiSingleFlight.Flight flight, Locale locale, FluxSink<ServerSentEvent<Object>> sink) {
+        List<QualityDimensionVo> qualityDimensions = new ArrayList<>();
+        List<String> recommendations = new ArrayList<>();
+        IncrementalJsonParser parser = new IncrementalJsonParser(Set.of(FIELD_QUALITY_DIMENSIONS, FIELD_RECOMMENDATIONS),
+                (field, index, json) -> {
+                    try {
+                        if (FIELD_QUALITY_DIMENSIONS.equals(field)) {
+                            QualityDimensionVo dimension = JSON.parseObject(json, QualityDimensionVo.class);
+                            qualityDimensions.add(dimension);
+                            sink.next(event(EVENT_QUALITY_DIMENSION, index, dimension));
+                        } else {
+                            String recommendation = String.valueOf(JSON.parse(json));
+                            recommendations.add(recommendation);
+                            sink.next(event(EVENT_RECOMMENDATION, index, recommendation));
+                        }
+                    } catch (Exception e) {
+                        log.warn("流式输出元素解析失败（{}[{}]）: {}", field, index, e.getMessage());
+                    }
+                });
+
+        AtomicBoolean timedOut = new AtomicBoolean();
+        Mono<Long> deadline = Mono.delay(Duration.ofSeconds(properties.getAnalysis().getLlmTimeoutSeconds()))
+                .doOnNext(tick -> timedOut.set(true));
+        Disposable llm = tokens(prompt.getInstructions(), prompt.userMessage(fileContent))
+                .takeUntilOther(deadline)
+                // 结束时需要阻塞等待本地评分结果，不能占用模型客户端的回调线程
+                .publishOn(Schedulers.boundedElastic())
+                .subscribe(parser::accept,
+                        error -> finish(parsed(parser, error), error, qualityDimensions, recommendations,
+                                scoring, start, cacheKey, flight, fileContent, locale, sink),
+                        () -> {
+                            Throwable failure = timedOut.get() ? new TimeoutException("大模型流式输出超时") : null;
+                            AiAnalysisResultVo result = parsed(parser, failure);
+                            if (result == null && failure == null) {
+                                failure = new IllegalStateException("大模型输出中没有完整的JSON对象");
+                            }
+                            finish(result, failure, qualityDimensions, recommendations,
+                                    scoring, start, cacheKey, flight, fileContent, locale, sink);
+                        });
+        sink.onDispose(() -> {
+            llm.dispose();
+            // 正常结束时已经发布过结果，这里不再生效
+            if (flight != null) {
+                flight.fail(new ServiceException("发起相同分析的请求已断开"));
+            }
+        });
+    }
+
+    /**
+     * 等待leader（本节点或其他节点）的大模型结果，按元素回放质量维度和修改建议后合并本地评分
+     * 结果缓存由leader写入，这里不再写入
+     */
+    private void awaitShared(CompletableFuture<AiAnalysisResultVo> shared, long deadline,
+                             Future<AiTextAnalysisService.AnalysisResult> scoring, long start, String fileContent,
+                             Locale locale, FluxSink<ServerSentEvent<Object>> sink) {
+        sink.onDispose(Mono.fromFuture(shared)
+                .timeout(Duration.ofNanos(Math.max(0L, deadline - System.nanoTime())))
+                .publishOn(Schedulers.boundedElastic())
+                .subscribe(result -> {
+                            if (result.getQualityDimensions() != null) {
+                                for (int i = 0; i < result.getQualityDimensions().size(); i++) {
+                                    sink.next(event(EVENT_QUALITY_DIMENSION, i, result.getQualityDimensions().get(i)));
+                                }
+                            }
+                            if (result.getRecommendations() != null) {
+                                for (int i = 0; i < result.getRecommendations().size(); i++) {
+                                    sink.next(event(EVENT_RECOMMENDATION, i, result.getRecommendations().get(i)));
+                                }
+                            }
+                            finish(result, null, List.of(), List.of(), scoring, start, null, null, fileContent, locale, sink);
+                        },
+                        error -> finish(null, error, List.of(), List.of(), scoring, start, null, null, fileContent, locale, sink)));
+    }
+
+    /**
+     * 解析大模型输出的根对象，调用失败、超时、没有完整JSON或JSON不合法时返回null
+     * 只解析根对象，模型在JSON前后输出的代码块标记或说明文字不影响结果
+     */
+    private static AiAnalysisResultVo parsed(IncrementalJsonParser parser, Throwable failure) {
+        if (failure != null) {
+            return null;
+        }
+        String json = parser.json();
+        if (json == null) {
+            return null;
+        }
+        try {
+            return JSON.parseObject(json, AiAnalysisResultVo.class);
+        } catch (Exception e) {
+            log.warn("大模型流式输出JSON解析失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 合并大模型结果与本地评分结果并结束事件流；作为leader时把大模型结果发布给等待同一文档的请求
+     *
+     * @param llmResult 大模型结果，失败时为null（用已经推送过的元素组成部分结果）
+     * @param failure 大模型失败、超时的原因
+     * @param cacheKey 需要写入结果缓存时非空（只有leader写入）
+     * @param flight leader的合并计算，非leader时为null
+     */
+    private void finish(AiAnalysisResultVo llmResult, Throwable failure,
+                        List<QualityDimensionVo> qualityDimensions, List<String> recommendations,
+                        Future<AiTextAnalysisService.AnalysisResult> scoring, long start, String cacheKey,
+                        AiSingleFlight.Flight flight, String fileContent, Locale locale,
+                        FluxSink<ServerSentEvent<Object>> sink) {
+        AiAnalysisResultVo result = llmResult;
+        if (result == null) {
+            // 大模型失败、超时或整体JSON不合法：保留已经推送过的元素，标记为部分结果
+            log.warn("大模型流式分析未完整完成，降级返回部分结果: {}",
+                    failure != null ? failure.getMessage() : "大模型返回内容为空");
+            result = new AiAnalysisResultVo();
+            result.setQualityDimensions(qualityDimensions.isEmpty() ? null : new ArrayList<>(qualityDimensions));
+            result.setRecommendations(recommendations.isEmpty() ? null : new ArrayList<>(recommendations));
+            result.setPartial(true);
+        } else {
+            result.setPartial(Boolean.TRUE.equals(result.getPartial()));
+        }
+
+        AiTextAnalysisService.AnalysisResult analysisResult;
+        try {
+            long remaining = TimeUnit.SECONDS.toNanos(properties.getAnalysis().getScoringTimeoutSeconds())
+                    - (System.nanoTime() - start);
+            analysisResult = scoring.get(Math.max(0L, remaining), TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            scoring.cancel(true);
+            // 大模型结果与本地评分无关，照常发布给等待者
+            if (flight != null) {
+                flight.complete(result);
+            }
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            log.error("本地AI痕迹评分失败", cause);
+            sink.next(event(EVENT_ERROR, null, messageSource.getMessage("error.analysis.failed",
+                    new Object[]{cause.getMessage()}, locale)));
+            sink.complete();
+            return;
+        }
+
+        result.setAiDimensions(analysisResult.getDimensions());
+        result.setAiScore(analysisResult.getAiScore());
+        result.setAiHeatmap(analysisResult.getHeatmap());
+        result.setAiHeatmapText(analysisResult.getHeatmap() == null ? null : fileContent);
+        if (cacheKey != null && !result.getPartial()) {
+            aiResultCache.put(cacheKey, result);
+        }
+        // 先写缓存再发布：其他节点在锁释放后从缓存读取结果
+        if (flight != null) {
+            flight.complete(result);
+        }
+        log.info("流式文档分析完成，耗时: {}ms，partial: {}", (System.nanoTime() - start) / 1_000_000, result.getPartial());
+        sink.next(event(EVENT_RESULT, null, result));
+        sink.complete();
+    }
+
+    /**
+     * 把 TokenStream 适配为 Flux（Flux 返回类型拿不到最终响应中的token用量），完成时记录token用量
+     * 并发许可由 GuardedStreamingChatModel 从调用开始持有到 TokenStream 完成或出错：超时或客户端断开只是取消订阅，模型仍在生成，许可不会提前归还
+     */
+    private Flux<String> tokens(String instructions, String userMessage) {
+        return Flux.create(tokenSink -> {
+            long llmStart = System.nanoTime();
+            try {
+                aiAnalysisModelService.analyseStream(instructions, userMessage)
+                        .onPartialResponse(tokenSink::next)
+                        .onCompleteResponse(response -> {
+                            usageRecorder.record(response.tokenUsage(), System.nanoTime() - llmStart);
+                            tokenSink.complete();
+                        })
+                        .onError(tokenSink::error)
+                        .start();
+            } catch (RuntimeException e) {
+                tokenSink.error(e);
+            }
+        });
+    }
+
+    private void replay(AiAnalysisResultVo cached, FluxSink<ServerSentEvent<Object>> sink) {
+        sink.next(event(EVENT_AI_TRACE, null, aiTrace(cached.getAiScore(), cached.getAiDimensions(),
+                cached.getAiHeatmap(), cached.getAiHeatmapText())));
+        if (cached.getQualityDimensions() != null) {
+            for (int i = 0; i < cached.getQualityDimensions().size(); i++) {
+                sink.next(event(EVENT_QUALITY_DIMENSION, i, cached.getQualityDimensions().get(i)));
+            }
+        }
+        if (cached.getRecommendations() != null) {
+            for (int i = 0; i < cached.getRecommendations().size(); i++) {
+                sink.next(event(EVENT_RECOMMENDATION, i, cached.getRecommendations().get(i)));
+            }
+        }
+        sink.next(event(EVENT_RESULT, null, cached));
+        sink.complete();
+    }
+
+    /**
+     * ai_trace 事件：开启热力图时同时带上偏移所指向的提取文本
+     */
+    private Map<String, Object> aiTrace(Integer aiScore, List<AiDimensionVo> aiDimensions, int[] aiHeatmap, String text) {
+        Map<String, Object> aiTrace = new LinkedHashMap<>();
+        aiTrace.put("aiScore", aiScore);
+        aiTrace.put("aiDimensions", aiDimensions);
+        if (aiHeatmap != null) {
+            aiTrace.put("aiHeatmap", aiHeatmap);
+            aiTrace.put("aiHeatmapText", text);
+        }
+        return aiTrace;
+    }
+
+    private ServerSentEvent<Object> event(String name, Integer index, Object data) {
+        ServerSentEvent.Builder<Object> builder = ServerSentEvent.builder(data).event(name);
+        if (index != null) {
+            builder.id(String.valueOf(index));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,164 @@
+package com.sunnyday.lychat.service;
+
+import com.sunnyday.lychat.analysis.TemplateIndex;
+import com.sunnyday.lychat.config.LyChatProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AI模板库
+ * 启动时加载内置模板（以及可选的外部模板文件）并构建模板索引。
+ * 配置了外部模板文件时，后台线程每 reloadCheckSeconds 秒检查一次文件是否变化，变化后在后台重建索引；
+ * 请求线程只读取当前索引，不做文件检查和重建，重建期间继续使用旧索引
+ */
+@Slf4j
+@Service
+public class AiTemplateLibrary {
+
+    @Autowired
+    private LyChatProperties properties;
+
+    private volatile TemplateIndex index = TemplateIndex.empty();
+
+    private volatile long externalLastModified = -1L;
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private ScheduledExecutorService reloadScheduler;
+
+    @PostConstruct
+    public void init() {
+        reload();
+        LyChatProperties.Template config = properties.getTemplate();
+        if (config.getExternalFile() != null) {
+            reloadScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "lychat-template-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = Math.max(1, config.getReloadCheckSeconds());
+            reloadScheduler.scheduleWithFixedDelay(this::reloadIfChanged, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (reloadScheduler != null) {
+            reloadScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 获取当前模板索引
+     */
+    public TemplateIndex current() {
+        return index;
+    }
+
+    /**
+     * 返回的最相似模板个数
+     */
+    public int topK() {
+        return properties.getTemplate().getTopK();
+    }
+
+    /**
+     * 重新加载全部模板并重建索引
+     */
+    public void reload() {
+        reloadLock.lock();
+        try {
+            LyChatProperties.Template config = properties.getTemplate();
+            List<String> ids = new ArrayList<>();
+            List<String> texts = new ArrayList<>();
+
+            ClassPathResource resource = new ClassPathResource(config.getResource());
+            if (resource.exists()) {
+                try (InputStream in = resource.getInputStream()) {
+                    readTemplates(in, config.getResource(), ids, texts);
+                }
+            }
+
+            long lastModified = -1L;
+            if (config.getExternalFile() != null) {
+                Path path = Paths.get(config.getExternalFile());
+                if (Files.isRegularFile(path)) {
+                    lastModified = Files.getLastModifiedTime(path).toMillis();
+                    try (InputStream in = Files.newInputStream(path)) {
+                        readTemplates(in, path.getFileName().toString(), ids, texts);
+                    }
+                } else {
+                    log.warn("外部模板文件不存在: {}", path);
+                }
+            }
+
+            long start = System.nanoTime();
+            index = TemplateIndex.build(ids, texts, config.getMaxPostingLength());
+            externalLastModified = lastModified;
+            log.info("模板索引构建完成，模板数: {}，耗时: {}ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            // 重建失败时保留旧索引
+            log.error("模板库加载失败，继续使用旧索引", e);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * 后台检查外部模板文件，修改时间变化时重建索引（由 reloadScheduler 定期调用）
+     */
+    private void reloadIfChanged() {
+        try {
+            Path path = Paths.get(properties.getTemplate().getExternalFile());
+            long lastModified = Files.isRegularFile(path) ? Files.getLastModifiedTime(path).toMillis() : -1L;
+            if (lastModified != externalLastModified) {
+                log.info("检测到外部模板文件变化，重新构建模板索引: {}", path);
+                reload();
+            }
+        } catch (IOException | RuntimeException e) {
+            // 异常不能抛出定时任务，否则之后的检查都不再执行
+            log.warn("检查外部模板文件失败: {}", e.getMessage());
+        }
+    }
+
+    private void readTemplates(InputStream in, String source, List<String> ids, List<String> texts) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        int lineNo = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int tab = line.indexOf('\t');
+            if (tab > 0) {
+                ids.add(line.substring(0, tab).trim());
+                texts.add(line.substring(tab + 1).trim());
+            } else {
+                // 未写ID的行使用 来源:行号 作为ID
+                ids.add(source + ":" + lineNo);
+                texts.add(line);
+            }
+        }
+    }
+}
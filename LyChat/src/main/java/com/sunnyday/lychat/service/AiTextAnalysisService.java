@@ -1,12 +1,15 @@
 package com.sunnyday.lychat.service;
 
+import com.sunnyday.lychat.analysis.AiScoreCard;
+import com.sunnyday.lychat.analysis.StreamingTextAnalyzer;
+import com.sunnyday.lychat.analysis.TextStatistics;
+import com.sunnyday.lychat.config.LyChatProperties;
 import com.sunnyday.lychat.entity.AiDimensionVo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * AI文本分析服务
@@ -18,29 +21,18 @@ public class AiTextAnalysisService {
     @Autowired
     private MessageSource messageSource;
 
-    // ====== 日文情绪词库（轻量） ======
-    private static final String[] JP_POSITIVE = {
-            "嬉し", "楽", "感謝", "満足", "充実", "希望", "期待",
-            "尊敬", "光栄", "誇り", "喜び"
-    };
-
-    private static final String[] JP_NEGATIVE = {
-            "不安", "心配", "悩", "困難", "問題", "挫折",
-            "恐れ", "怒り", "失敗", "悲し"
-    };
-
-    private static final String[] LOGIC_WORDS = {
-            "しかし", "だが", "一方で", "そのため", "なので",
-            "もし", "そして", "さらに", "つまり", "したがって"
-    };
-
-    // 模板库（可自己扩展）
-    private final List<String> templateTexts = List.of(
-            "本志望理由書では、私が貴学を志望する理由と、将来の研究計画について述べたいと思います。",
-            "私は幼い頃から日本の文化と社会に強い関心を抱いてきました。",
-            "これまでの学習と経験を通じて、私はデータサイエンスの分野で専門性を高めていきたいと考えています。",
-            "貴学の教育理念に共感し、より深い専門性を身につけたいと考えています。"
-    );
+    @Autowired
+    private AiTemplateLibrary templateLibrary;
+
+    // 情绪词、逻辑词词库见 resources/lexicon/lexicon_{locale}.txt
+    @Autowired
+    private AiLexiconRegistry lexiconRegistry;
+
+    @Autowired
+    private LyChatProperties properties;
+
+    @Autowired
+    private AiScorerRegistry scorerRegistry;
 
     /**
      * 内部结果类：保存6个维度的原始计算值
@@ -53,30 +45,92 @@ public class AiTextAnalysisService {
         double emotionVariance;
         double templateSimilarityAiLike;
         double templateHumanScore;
+        List<String> matchedTemplateIds;
+        int[] heatmap;
+        int aiScore;
     }
 
     /**
      * 一次性计算所有6个维度的原始值（避免重复计算）
      * 
      * @param rawText 原始文本内容
+     * @param locale 语言环境（用于选择词库）
+     * @param withHeatmap 是否同时生成逐句热力图
      * @return 维度值对象
      */
-    private DimensionValues computeAllDimensions(String rawText) {
-        String text = normalize(rawText);
-        List<String> sentences = splitToSentences(text);
+    private DimensionValues computeAllDimensions(String rawText, Locale locale, boolean withHeatmap) {
+        // 模板向量与倒排表在启动时预构建，匹配时只访问与文档共享3-gram的模板
+        StreamingTextAnalyzer analyzer = new StreamingTextAnalyzer(lexiconRegistry.matcherFor(locale),
+                templateLibrary.current(), templateLibrary.topK(), rawText == null ? 0 : rawText.length());
+        if (withHeatmap) {
+            analyzer.withHeatmap();
+        }
+        if (rawText != null) {
+            analyzer.accept(rawText);
+        }
+        return computeAllDimensions(analyzer.finish());
+    }
 
+    /**
+     * 由文本统计量计算6个维度的原始值
+     * 归一化、断句、n-gram、词库扫描和模板匹配都在 StreamingTextAnalyzer（或草稿的 DraftDocument）中完成，这里不再持有全文
+     */
+    private DimensionValues computeAllDimensions(TextStatistics statistics) {
         DimensionValues values = new DimensionValues();
-        values.languageComplexity = computeLanguageComplexity(text);
-        values.burstiness = computeBurstiness(sentences);
-        values.topicEntropy = computeTopicEntropy(text);
-        values.reasoningComplexity = computeReasoningComplexity(sentences);
-        values.emotionVariance = computeEmotionVariance(sentences);
-        values.templateSimilarityAiLike = computeTemplateSimilarity(text);
+        // 维度映射与权重由线上评分模型计算（见 AiScorerRegistry），影子版本对同一份统计量在后台打分
+        AiScoreCard score = scorerRegistry.production().score(statistics);
+        scorerRegistry.shadow(statistics, score);
+        values.languageComplexity = score.languageComplexity();
+        values.burstiness = score.burstiness();
+        values.topicEntropy = score.topicEntropy();
+        values.reasoningComplexity = score.reasoningComplexity();
+        values.emotionVariance = score.emotionVariance();
+        values.templateSimilarityAiLike = score.templateSimilarity(); // 越高越像 AI 模板
+        values.matchedTemplateIds = statistics.templateMatch().getTemplateIds();
         values.templateHumanScore = 1.0 - values.templateSimilarityAiLike; // 用户看到的是"越高越人类"
+        values.aiScore = score.aiScore();
+        if (statistics.heatmap() != null) {
+            values.heatmap = statistics.heatmap().spans(properties.getAnalysis().getHeatmapWindow());
+        }
 
         return values;
     }
 
+    /**
+     * 创建增量分析器：文本可以逐页、逐段输入，不需要先拼成完整字符串，
+     * 输入结束后用 finish() 的结果调用 analyzeWithScore(TextStatistics, Locale)；按配置同时生成逐句热力图。
+     * 线上接口不使用这条路径：上传分析、异步任务、草稿和对话都需要完整文本（大模型提示词、结果缓存键与合并键、草稿的段落比对、对话上下文），
+     * 提取出的字符串本来就要保留，本地评分直接用 analyzeWithScore(String, Locale)；
+     * 只需要本地评分的场合（离线批量评分 BatchScoringRunner）把提取器的逐段输出（DocumentExtractor.extract(File, Predicate)）直接喂给本分析器
+     *
+     * @param locale 语言环境（用于选择词库）
+     */
+    public StreamingTextAnalyzer newAnalyzer(Locale locale) {
+        StreamingTextAnalyzer analyzer = new StreamingTextAnalyzer(lexiconRegistry.matcherFor(locale),
+                templateLibrary.current(), templateLibrary.topK());
+        if (properties.getAnalysis().isHeatmapEnabled()) {
+            analyzer.withHeatmap();
+        }
+        return analyzer;
+    }
+
+    /**
+     * 计算原文的逐句热力图（未开启热力图时返回null）
+     * 热力图偏移指向本次上传的原文；结果缓存按归一化文本寻址、不保存热力图，命中缓存时用本方法重新生成
+     *
+     * @param rawText 原始文本内容
+     * @param locale 语言环境（用于选择词库）
+     */
+    public int[] heatmap(String rawText, Locale locale) {
+        if (!properties.getAnalysis().isHeatmapEnabled() || rawText == null) {
+            return null;
+        }
+        StreamingTextAnalyzer analyzer = new StreamingTextAnalyzer(lexiconRegistry.matcherFor(locale),
+                templateLibrary.current(), templateLibrary.topK(), rawText.length()).withHeatmap();
+        analyzer.accept(rawText);
+        return analyzer.finish().heatmap().spans(properties.getAnalysis().getHeatmapWindow());
+    }
+
     /**
      * 分析文本，返回AI生成痕迹的6个维度
      * 
@@ -86,7 +140,7 @@ public class AiTextAnalysisService {
      */
     public List<AiDimensionVo> analyzeAiDimensions(String rawText, Locale locale) {
         // 一次性计算所有维度值
-        DimensionValues values = computeAllDimensions(rawText);
+        DimensionValues values = computeAllDimensions(rawText, locale, false);
 
         // 封装为AiDimensionVo列表（6个维度）
         List<AiDimensionVo> dimensions = new ArrayList<>();
@@ -145,21 +199,10 @@ public class AiTextAnalysisService {
      */
     public Integer calculateAiScore(String rawText) {
         // 一次性计算所有维度值
-        DimensionValues values = computeAllDimensions(rawText);
-
-        // AI率权重计算（2025优化版）- 基于已计算的维度值
-        double aiLike =
-                0.30 * (1 - values.languageComplexity) +     // 语言复杂度（强指标）
-                0.25 * (1 - values.topicEntropy) +          // 主题熵（强指标）
-                0.20 * (1 - values.burstiness) +            // 句式波动（中强）
-                0.15 * (values.templateSimilarityAiLike) +  // 模板相似度（中）
-                0.05 * (1 - values.reasoningComplexity) +   // 逻辑（弱）
-                0.05 * (1 - values.emotionVariance);        // 情绪（弱）
-
-        aiLike = clamp(aiLike);
-        
-        // 转换为0-100的整数分数
-        return (int) Math.round(aiLike * 100.0);
+        DimensionValues values = computeAllDimensions(rawText, null, false);
+
+        // AI率权重由线上评分模型决定（见 AiScorers）
+        return values.aiScore;
     }
 
     /**
@@ -171,7 +214,21 @@ public class AiTextAnalysisService {
      */
     public AnalysisResult analyzeWithScore(String rawText, Locale locale) {
         // 一次性计算所有维度值
-        DimensionValues values = computeAllDimensions(rawText);
+        return toAnalysisResult(computeAllDimensions(rawText, locale, properties.getAnalysis().isHeatmapEnabled()), locale);
+    }
+
+    /**
+     * 由增量分析器的统计结果分析6个维度和计算AI率，与传入完整文本的结果一致
+     * 
+     * @param statistics newAnalyzer(locale) 输入全部文本后 finish() 的结果
+     * @param locale 语言环境
+     * @return 包含6个维度列表和AI率的分析结果对象
+     */
+    public AnalysisResult analyzeWithScore(TextStatistics statistics, Locale locale) {
+        return toAnalysisResult(computeAllDimensions(statistics), locale);
+    }
+
+    private AnalysisResult toAnalysisResult(DimensionValues values, Locale locale) {
 
         // 封装为AiDimensionVo列表（6个维度）
         List<AiDimensionVo> dimensions = new ArrayList<>();
@@ -218,18 +275,7 @@ public class AiTextAnalysisService {
         dim6.setEvaluation(explainTemplateSimilarity(values.templateHumanScore, locale));
         dimensions.add(dim6);
 
-        // 计算AI率
-        double aiLike =
-                0.30 * (1 - values.languageComplexity) +
-                0.25 * (1 - values.topicEntropy) +
-                0.20 * (1 - values.burstiness) +
-                0.15 * (values.templateSimilarityAiLike) +
-                0.05 * (1 - values.reasoningComplexity) +
-                0.05 * (1 - values.emotionVariance);
-        aiLike = clamp(aiLike);
-        Integer aiScore = (int) Math.round(aiLike * 100.0);
-
-        return new AnalysisResult(dimensions, aiScore);
+        return new AnalysisResult(dimensions, values.aiScore, values.matchedTemplateIds, values.heatmap);
     }
 
     /**
@@ -238,10 +284,23 @@ public class AiTextAnalysisService {
     public static class AnalysisResult {
         private final List<AiDimensionVo> dimensions;
         private final Integer aiScore;
+        private final List<String> matchedTemplateIds;
+        private final int[] heatmap;
 
         public AnalysisResult(List<AiDimensionVo> dimensions, Integer aiScore) {
+            this(dimensions, aiScore, Collections.emptyList());
+        }
+
+        public AnalysisResult(List<AiDimensionVo> dimensions, Integer aiScore, List<String> matchedTemplateIds) {
+            this(dimensions, aiScore, matchedTemplateIds, null);
+        }
+
+        public AnalysisResult(List<AiDimensionVo> dimensions, Integer aiScore, List<String> matchedTemplateIds,
+                              int[] heatmap) {
             this.dimensions = dimensions;
             this.aiScore = aiScore;
+            this.matchedTemplateIds = matchedTemplateIds;
+            this.heatmap = heatmap;
         }
 
         public List<AiDimensionVo> getDimensions() {
@@ -251,33 +310,23 @@ public class AiTextAnalysisService {
         public Integer getAiScore() {
             return aiScore;
         }
-    }
-
-    // ============================ 工具函数 ============================
-
-    private String normalize(String s) {
-        if (s == null) return "";
-        return s.replaceAll("\\s+", " ").trim();
-    }
 
-    private List<String> splitToSentences(String text) {
-        if (text.isEmpty()) return Collections.emptyList();
-        String[] arr = text.split("[。！？!?.\\n]");
-        return Arrays.stream(arr).map(String::trim).filter(t -> !t.isEmpty()).collect(Collectors.toList());
-    }
-
-    private double clamp(double v) {
-        return Math.min(1.0, Math.max(0.0, v));
-    }
+        /**
+         * 最相似的模板ID（按相似度降序）
+         */
+        public List<String> getMatchedTemplateIds() {
+            return matchedTemplateIds;
+        }
 
-    private double smoothRatio(double x, double c) {
-        if (x <= 0) return 0.0;
-        return x / (x + c);
+        /**
+         * 逐句热力图（每句3个整数：原文起始偏移、结束偏移、AI痕迹分0-100），未开启时为null
+         */
+        public int[] getHeatmap() {
+            return heatmap;
+        }
     }
 
-    private double logistic(double x, double mid, double k) {
-        return 1.0 / (1.0 + Math.exp(-k * (x - mid)));
-    }
+    // ============================ 工具函数 ============================
 
     /**
      * 保留1位小数
@@ -290,28 +339,6 @@ public class AiTextAnalysisService {
 
     // ====================== ① 语言复杂度（4-gram 熵） ======================
 
-    private double computeLanguageComplexity(String text) {
-        if (text.length() < 12) return 0.5;
-
-        Map<String, Integer> freq = new HashMap<>();
-        int n = 4;
-        int total = 0;
-
-        for (int i = 0; i <= text.length() - n; i++) {
-            String g = text.substring(i, i + n);
-            freq.merge(g, 1, Integer::sum);
-            total++;
-        }
-
-        double entropy = 0.0;
-        for (int c : freq.values()) {
-            double p = (double) c / total;
-            entropy += -p * Math.log(p);
-        }
-
-        return clamp(logistic(entropy, 2.8, 1.0));
-    }
-
     private String explainLanguageComplexity(double s, Locale locale) {
         String key;
         if (s < 0.3) {
@@ -326,20 +353,6 @@ public class AiTextAnalysisService {
 
     // ====================== ② 句式波动 ======================
 
-    private double computeBurstiness(List<String> sentences) {
-        if (sentences.isEmpty()) return 0.5;
-
-        List<Integer> lens = sentences.stream().map(String::length).collect(Collectors.toList());
-        double mean = lens.stream().mapToDouble(i -> i).average().orElse(0.0);
-        double var = lens.stream().mapToDouble(i -> (i - mean) * (i - mean)).average().orElse(0.0);
-        double std = Math.sqrt(var);
-
-        if (mean <= 0) return 0.5;
-
-        double ratio = std / mean;
-        return clamp(smoothRatio(ratio, 0.5));
-    }
-
     private String explainBurstiness(double s, Locale locale) {
         String key;
         if (s < 0.3) {
@@ -354,27 +367,6 @@ public class AiTextAnalysisService {
 
     // ====================== ③ 主题熵 ======================
 
-    private double computeTopicEntropy(String text) {
-        if (text.length() < 5) return 0.5;
-
-        Map<String, Integer> freq = new HashMap<>();
-        int total = 0;
-
-        for (int i = 0; i < text.length() - 1; i++) {
-            String bg = text.substring(i, i + 2);
-            freq.merge(bg, 1, Integer::sum);
-            total++;
-        }
-
-        double entropy = 0.0;
-        for (int c : freq.values()) {
-            double p = (double) c / total;
-            entropy += -p * Math.log(p);
-        }
-
-        return clamp(logistic(entropy, 1.8, 1.2));
-    }
-
     private String explainTopicEntropy(double s, Locale locale) {
         String key;
         if (s < 0.3) {
@@ -389,32 +381,6 @@ public class AiTextAnalysisService {
 
     // ====================== ④ 推理复杂度 ======================
 
-    private double computeReasoningComplexity(List<String> sentences) {
-        if (sentences.isEmpty()) return 0.45; // 给一个中性偏上的默认值
-
-        int totalChars = 0;
-        int logicCount = 0;
-
-        for (String s : sentences) {
-            totalChars += s.length();
-            for (String w : LOGIC_WORDS) {
-                int idx = s.indexOf(w);
-                while (idx >= 0) {
-                    logicCount++;
-                    idx = s.indexOf(w, idx + w.length());
-                }
-            }
-        }
-
-        if (totalChars == 0) return 0.45;
-
-        double density = (double) logicCount / totalChars;
-
-        // 日语文书逻辑词本来就少，因此我们让分数区间偏高一点
-        double score = 0.4 + 0.6 * smoothRatio(density, 0.003);
-        return clamp(score);
-    }
-
     private String explainReasoningComplexity(double s, Locale locale) {
         String key;
         if (s < 0.45) {
@@ -429,26 +395,6 @@ public class AiTextAnalysisService {
 
     // ====================== ⑤ 情绪起伏 ======================
 
-    private double computeEmotionVariance(List<String> sentences) {
-        if (sentences.isEmpty()) return 0.45;
-
-        List<Double> emoScores = new ArrayList<>();
-
-        for (String s : sentences) {
-            int pos = 0, neg = 0;
-            for (String w : JP_POSITIVE) if (s.contains(w)) pos++;
-            for (String w : JP_NEGATIVE) if (s.contains(w)) neg++;
-            emoScores.add((double) (pos - neg));
-        }
-
-        double mean = emoScores.stream().mapToDouble(i -> i).average().orElse(0.0);
-        double var = emoScores.stream().mapToDouble(i -> (i - mean) * (i - mean)).average().orElse(0.0);
-
-        // 志望理由书本身情绪平稳 → 给中性偏上的基准分
-        double score = 0.4 + 0.6 * smoothRatio(var, 0.8);
-        return clamp(score);
-    }
-
     private String explainEmotionVariance(double s, Locale locale) {
         String key;
         if (s < 0.45) {
@@ -463,48 +409,6 @@ public class AiTextAnalysisService {
 
     // ====================== ⑥ 模板相似度（AI-like） ======================
 
-    private double computeTemplateSimilarity(String text) {
-        Map<String, Integer> docVec = buildCharNgramVector(text, 3);
-        if (docVec.isEmpty()) return 0.0;
-
-        double maxSim = 0.0;
-        for (String tpl : templateTexts) {
-            Map<String, Integer> tplVec = buildCharNgramVector(tpl, 3);
-            maxSim = Math.max(maxSim, cosineSimilarity(docVec, tplVec));
-        }
-
-        return clamp(maxSim); // 越高越像 AI 模板
-    }
-
-    private Map<String, Integer> buildCharNgramVector(String text, int n) {
-        Map<String, Integer> map = new HashMap<>();
-        if (text.length() < n) return map;
-
-        for (int i = 0; i <= text.length() - n; i++) {
-            String g = text.substring(i, i + n);
-            map.merge(g, 1, Integer::sum);
-        }
-        return map;
-    }
-
-    private double cosineSimilarity(Map<String, Integer> v1, Map<String, Integer> v2) {
-        Set<String> keys = new HashSet<>();
-        keys.addAll(v1.keySet());
-        keys.addAll(v2.keySet());
-
-        double dot = 0.0, n1 = 0.0, n2 = 0.0;
-
-        for (String k : keys) {
-            int a = v1.getOrDefault(k, 0);
-            int b = v2.getOrDefault(k, 0);
-            dot += a * b;
-            n1 += a * a;
-            n2 += b * b;
-        }
-        if (n1 == 0.0 || n2 == 0.0) return 0.0;
-        return dot / (Math.sqrt(n1) * Math.sqrt(n2));
-    }
-
     private String explainTemplateSimilarity(double humanScore, Locale locale) {
         String key;
         if (humanScore < 0.4) {
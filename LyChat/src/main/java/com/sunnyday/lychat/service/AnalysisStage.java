@@ -0,0 +1,20 @@
+package com.sunnyday.lychat.service;
+
+/**
+ * 文档分析阶段（异步任务进度）
+ * 本地评分与大模型调用并行执行，进度中记录的是最近进入的阶段
+ */
+public enum AnalysisStage {
+    /** 已提交，等待工作线程 */
+    QUEUED,
+    /** 提取文档文本 */
+    EXTRACTING,
+    /** 本地AI痕迹评分 */
+    SCORING,
+    /** 调用大模型 */
+    LLM,
+    /** 解析大模型返回的JSON */
+    PARSING,
+    /** 已结束 */
+    DONE
+}
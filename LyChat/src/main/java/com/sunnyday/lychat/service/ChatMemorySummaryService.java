@@ -0,0 +1,46 @@
+package com.sunnyday.lychat.service;
+
+import com.sunnyday.lychat.memory.ChatMemorySummarizer;
+import com.sunnyday.lychat.memory.MessageTexts;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 会话摘要服务：调用大模型把较早的对话合并进滚动摘要（提示词见 memorySummaryPrompt.txt）
+ */
+@Service
+public class ChatMemorySummaryService implements ChatMemorySummarizer {
+
+    @Autowired
+    @Qualifier("guardedSummaryChatModel")
+    private ChatModel chatModel;
+
+    @Autowired
+    private AiPromptRegistry promptRegistry;
+
+    @Override
+    public String summarize(String previousSummary, List<ChatMessage> turns) {
+        StringBuilder conversation = new StringBuilder();
+        for (ChatMessage message : turns) {
+            if (message instanceof UserMessage) {
+                conversation.append("学生：");
+            } else if (message instanceof AiMessage) {
+                conversation.append("顾问：");
+            } else {
+                continue;
+            }
+            conversation.append(MessageTexts.text(message)).append('\n');
+        }
+        String prompt = promptRegistry.text(AiPromptRegistry.MEMORY_SUMMARY).getText()
+                .replace("{{summary}}", previousSummary != null ? previousSummary : "（无）")
+                .replace("{{conversation}}", conversation);
+        return chatModel.chat(prompt).trim();
+    }
+}
@@ -10,7 +10,7 @@ import reactor.core.publisher.Flux;
 
 @AiService(
         wiringMode = AiServiceWiringMode.EXPLICIT,
-        streamingChatModel = "openAiStreamingChatModel",
+        streamingChatModel = "guardedStreamingChatModel",
         chatMemoryProvider = "chatMemoryProvider"//配置会话记忆提供者对象
 )
 public interface ConsultantService {
@@ -0,0 +1,119 @@
+package com.sunnyday.lychat.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 草稿增量分析：随机编辑序列的每一版，增量统计量都应与整篇一次性分析（StreamingTextAnalyzer）相同
+ */
+class DraftDocumentTest {
+
+    private static final int TOP_K = 2;
+
+    /** 段落素材：词库命中、模板片段、各种断句与空白、BMP以外的字符和孤立代理项 */
+    private static final String[] WORDS = {"しかし", "もし", "嬉し", "悲し", "楽", "本志望", "理由", "貴学", "研究",
+            "a", "b", "ab", "x", " ", "  ", "\t", "\u0001", "。", "！", "?", ".", "\n", "\n\n", "。\n", "。\n\n", "！\n ",
+            "  \n", "😀", "🎉", "𠀋", "𪚲", "\uD83D", "\uDE00", "😀😀"};
+
+    private final LexiconMatcher lexicon = LexiconMatcher.builder()
+            .add(LexiconCategory.LOGIC, "しかし")
+            .add(LexiconCategory.LOGIC, "もし")
+            .add(LexiconCategory.LOGIC, "a.")
+            .add(LexiconCategory.POSITIVE, "嬉し")
+            .add(LexiconCategory.POSITIVE, "楽")
+            .add(LexiconCategory.POSITIVE, "x ")
+            .add(LexiconCategory.NEGATIVE, "悲し")
+            .add(LexiconCategory.NEGATIVE, "b")
+            .add(LexiconCategory.NEGATIVE, "a b")
+            .build();
+
+    private final TemplateIndex templates = TemplateIndex.build(List.of("t1", "t2", "t3"), List.of(
+            "本志望理由書では、貴学を志望する理由と研究について述べたい。しかし",
+            "もし貴学で研究できれば嬉しい。理由は",
+            "私は😀が好きです。𠀋の研究をしたい。"), TOP_K);
+
+    @Test
+    void randomEditsMatchOneShotAnalysis() {
+        Random random = new Random(7);
+        for (int doc = 0; doc < 500; doc++) {
+            DraftDocument draft = new DraftDocument(lexicon, templates);
+            List<String> paragraphs = new ArrayList<>();
+            int initial = random.nextInt(10);
+            for (int i = 0; i < initial; i++) {
+                paragraphs.add(paragraph(random));
+            }
+            for (int revision = 0; revision < 8; revision++) {
+                if (revision > 0) {
+                    edit(paragraphs, random);
+                }
+                String rawText = String.join("", paragraphs);
+                draft.update(rawText);
+                assertSameStatistics(rawText, draft.statistics(TOP_K),
+                        new StreamingTextAnalyzer(lexicon, templates, TOP_K).accept(rawText).finish());
+            }
+        }
+    }
+
+    @Test
+    void unchangedParagraphsAreReused() {
+        DraftDocument draft = new DraftDocument(lexicon, templates);
+        draft.update("しかし嬉しい。\n\n理由は研究です。\n\nもし😀なら楽しい。\n");
+        DraftDocument.Revision revision = draft.update("しかし嬉しい。\n\n理由は𠀋の研究です。\n\nもし😀なら楽しい。\n");
+        assertEquals(3, revision.getParagraphs());
+        assertArrayEquals(new int[]{1}, revision.getChangedParagraphs());
+        assertEquals(1, revision.getRemovedParagraphs());
+    }
+
+    /**
+     * 1~3次随机编辑：插入、删除、替换段落，或复制已有段落到任意位置
+     */
+    private static void edit(List<String> paragraphs, Random random) {
+        int edits = 1 + random.nextInt(3);
+        for (int e = 0; e < edits; e++) {
+            int op = random.nextInt(4);
+            if (op == 0 || paragraphs.isEmpty()) {
+                paragraphs.add(random.nextInt(paragraphs.size() + 1), paragraph(random));
+            } else if (op == 1) {
+                paragraphs.remove(random.nextInt(paragraphs.size()));
+            } else if (op == 2) {
+                paragraphs.set(random.nextInt(paragraphs.size()), paragraph(random));
+            } else {
+                String copy = paragraphs.get(random.nextInt(paragraphs.size()));
+                paragraphs.add(random.nextInt(paragraphs.size() + 1), copy);
+            }
+        }
+    }
+
+    private static String paragraph(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int words = random.nextInt(12);
+        for (int i = 0; i < words; i++) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        if (random.nextInt(4) > 0) {
+            sb.append(random.nextBoolean() ? "。\n" : "!\n  ");
+        }
+        return sb.toString();
+    }
+
+    private static void assertSameStatistics(String rawText, TextStatistics draft, TextStatistics oneShot) {
+        String message = "文本: " + rawText.replace("\n", "\\n");
+        assertEquals(oneShot.codePointCount(), draft.codePointCount(), message);
+        assertEquals(oneShot.normalizedLength(), draft.normalizedLength(), message);
+        assertEquals(oneShot.sentenceCount(), draft.sentenceCount(), message);
+        assertEquals(oneShot.sentenceChars(), draft.sentenceChars(), message);
+        assertEquals(oneShot.sentenceLengthVariance(), draft.sentenceLengthVariance(), message);
+        assertEquals(oneShot.logicCount(), draft.logicCount(), message);
+        assertEquals(oneShot.emotionVariance(), draft.emotionVariance(), message);
+        assertEquals(oneShot.bigramEntropy(), draft.bigramEntropy(), 1e-9, message);
+        assertEquals(oneShot.fourgramEntropy(), draft.fourgramEntropy(), 1e-9, message);
+        assertEquals(oneShot.templateMatch().getTemplateIds(), draft.templateMatch().getTemplateIds(), message);
+        assertEquals(oneShot.templateMatch().getMaxSimilarity(), draft.templateMatch().getMaxSimilarity(), 1e-9, message);
+    }
+}
@@ -0,0 +1,112 @@
+package com.sunnyday.lychat.analysis;
+
+import com.sunnyday.lychat.document.TxtTextExtractor;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 分段输入与原来的整篇流程（先提取完整字符串，再一次性 accept）结果一致
+ */
+class StreamingTextAnalyzerTest {
+
+    private static final int TOP_K = 2;
+
+    private static final int HEATMAP_WINDOW = 3;
+
+    /** 文本素材：词库命中、模板片段、各种断句与空白（含CRLF）、BMP以外的字符 */
+    private static final String[] WORDS = {"しかし", "もし", "嬉し", "悲し", "楽", "本志望", "理由", "貴学", "研究",
+            "a", "b", "ab", "x", " ", "  ", "\t", "\r\n", "。", "！", "?", ".", "\n", "\n\n", "。\r\n", "😀", "🎉", "𠀋", "𪚲"};
+
+    private final LexiconMatcher lexicon = LexiconMatcher.builder()
+            .add(LexiconCategory.LOGIC, "しかし")
+            .add(LexiconCategory.LOGIC, "もし")
+            .add(LexiconCategory.POSITIVE, "嬉し")
+            .add(LexiconCategory.POSITIVE, "楽")
+            .add(LexiconCategory.NEGATIVE, "悲し")
+            .add(LexiconCategory.NEGATIVE, "a b")
+            .build();
+
+    private final TemplateIndex templates = TemplateIndex.build(List.of("t1", "t2", "t3"), List.of(
+            "本志望理由書では、貴学を志望する理由と研究について述べたい。しかし",
+            "もし貴学で研究できれば嬉しい。理由は",
+            "私は😀が好きです。𠀋の研究をしたい。"), TOP_K);
+
+    @Test
+    void randomChunksMatchSingleAccept() {
+        Random random = new Random(11);
+        for (int doc = 0; doc < 300; doc++) {
+            String rawText = text(random, random.nextInt(400));
+            StreamingTextAnalyzer chunked = analyzer(0);
+            int from = 0;
+            while (from < rawText.length()) {
+                // 分段边界随机，会把代理对、CRLF和词库词条拆在两段之间
+                int to = Math.min(rawText.length(), from + 1 + random.nextInt(16));
+                chunked.accept(rawText.subSequence(from, to));
+                from = to;
+            }
+            assertSameStatistics(rawText, analyzer(rawText.length()).accept(rawText).finish(), chunked.finish());
+        }
+    }
+
+    @Test
+    void extractorSinkMatchesExtractedString() throws IOException {
+        Random random = new Random(13);
+        TxtTextExtractor extractor = new TxtTextExtractor(Integer.MAX_VALUE);
+        Path file = Files.createTempFile("lychat-test-", ".txt");
+        try {
+            for (int doc = 0; doc < 20; doc++) {
+                // 超过8K字符，提取器分多段输出；开头带BOM
+                String content = "\uFEFF" + text(random, 4000 + random.nextInt(4000));
+                Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+                String rawText = extractor.extract(file.toFile());
+                TextStatistics previous = analyzer(rawText.length()).accept(rawText).finish();
+                StreamingTextAnalyzer streaming = analyzer(0);
+                extractor.extract(file.toFile(), part -> {
+                    streaming.accept(part);
+                    return true;
+                });
+                assertSameStatistics(rawText, previous, streaming.finish());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private StreamingTextAnalyzer analyzer(int expectedChars) {
+        return new StreamingTextAnalyzer(lexicon, templates, TOP_K, expectedChars).withHeatmap();
+    }
+
+    private static String text(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static void assertSameStatistics(String rawText, TextStatistics expected, TextStatistics actual) {
+        String message = "文本: " + (rawText.length() > 200 ? rawText.substring(0, 200) + "…" : rawText).replace("\n", "\\n");
+        assertEquals(expected.codePointCount(), actual.codePointCount(), message);
+        assertEquals(expected.normalizedLength(), actual.normalizedLength(), message);
+        assertEquals(expected.sentenceCount(), actual.sentenceCount(), message);
+        assertEquals(expected.sentenceChars(), actual.sentenceChars(), message);
+        assertEquals(expected.sentenceLengthVariance(), actual.sentenceLengthVariance(), message);
+        assertEquals(expected.logicCount(), actual.logicCount(), message);
+        assertEquals(expected.emotionVariance(), actual.emotionVariance(), message);
+        assertEquals(expected.bigramEntropy(), actual.bigramEntropy(), 1e-9, message);
+        assertEquals(expected.fourgramEntropy(), actual.fourgramEntropy(), 1e-9, message);
+        assertEquals(expected.templateMatch().getTemplateIds(), actual.templateMatch().getTemplateIds(), message);
+        assertEquals(expected.templateMatch().getMaxSimilarity(), actual.templateMatch().getMaxSimilarity(), 1e-9, message);
+        assertArrayEquals(expected.heatmap().spans(HEATMAP_WINDOW), actual.heatmap().spans(HEATMAP_WINDOW), message);
+    }
+}
@@ -0,0 +1,78 @@
+package com.sunnyday.lychat.llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 自适应并发上限：混合的短调用和长调用不会把上限压到下限，同一类别真正变慢时上限仍然收缩
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final int INITIAL_LIMIT = 16;
+
+    private static final int MIN_LIMIT = 2;
+
+    @Test
+    void mixedShortAndLongCallsKeepLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        Random random = new Random(17);
+        saturate(limiter);
+        for (int i = 0; i < 2000; i++) {
+            // 约七成是几秒的咨询对话，其余是一分钟左右的整篇分析和长度不一的拆分子请求
+            int kind = random.nextInt(10);
+            if (kind < 7) {
+                limiter.release(ModelGuard.CALL_CHAT, seconds(1.5 + random.nextDouble() * 1.5), false);
+            } else if (kind < 9) {
+                limiter.release(ModelGuard.CALL_ANALYSIS, seconds(50 + random.nextDouble() * 30), false);
+            } else {
+                limiter.release(ModelGuard.CALL_SPLIT_PREFIX + "quality", seconds(8 + random.nextDouble() * 4), false);
+            }
+            limiter.acquire();
+        }
+        assertEquals(0, limiter.getDecreases());
+        assertTrue(limiter.getLimit() >= INITIAL_LIMIT, "limit=" + limiter.getLimit());
+    }
+
+    @Test
+    void slowdownWithinOneClassShrinksLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        saturate(limiter);
+        for (int i = 0; i < 100; i++) {
+            limiter.release(ModelGuard.CALL_ANALYSIS, seconds(60), false);
+            limiter.acquire();
+        }
+        int before = limiter.getLimit();
+        for (int i = 0; i < 20; i++) {
+            // 咨询对话从2秒变为10秒，整篇分析的基线不影响判断
+            limiter.release(ModelGuard.CALL_CHAT, seconds(2), false);
+            limiter.acquire();
+        }
+        for (int i = 0; i < 10; i++) {
+            limiter.release(ModelGuard.CALL_CHAT, seconds(10), false);
+        }
+        assertTrue(limiter.getLimit() < before, "before=" + before + ", after=" + limiter.getLimit());
+        assertTrue(limiter.getLimit() >= MIN_LIMIT);
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter() {
+        return new AdaptiveConcurrencyLimiter(INITIAL_LIMIT, MIN_LIMIT, 64, 0.8, 90000, 2.0, 50, 32, 2000);
+    }
+
+    /**
+     * 占满当前上限，之后每归还一个许可立即再取一个，每次归还都处于用满状态
+     */
+    private static void saturate(AdaptiveConcurrencyLimiter limiter) {
+        for (int i = 0; i < INITIAL_LIMIT; i++) {
+            limiter.acquire();
+        }
+    }
+
+    private static long seconds(double seconds) {
+        return (long) (seconds * TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,46 @@
+package com.sunnyday.lychat.benchmark;
+
+import com.sunnyday.lychat.config.LyChatDocumentConfig;
+import com.sunnyday.lychat.config.LyChatExecutorConfig;
+import com.sunnyday.lychat.config.LyChatI18nConfig;
+import com.sunnyday.lychat.config.LyChatProperties;
+import com.sunnyday.lychat.service.AiLexiconRegistry;
+import com.sunnyday.lychat.service.AiScorerRegistry;
+import com.sunnyday.lychat.service.AiTemplateLibrary;
+import com.sunnyday.lychat.service.AiTextAnalysisService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * 只包含本地评分所需Bean的最小Spring上下文（不连接模型、Redis）
+ */
+public final class AnalysisContext {
+
+    private AnalysisContext() {
+    }
+
+    public static AnnotationConfigApplicationContext create() {
+        return new AnnotationConfigApplicationContext(
+                LyChatI18nConfig.class,
+                LyChatProperties.class,
+                LyChatExecutorConfig.class,
+                AiScorerRegistry.class,
+                AiTemplateLibrary.class,
+                AiLexiconRegistry.class,
+                AiTextAnalysisService.class);
+    }
+
+    /**
+     * 在本地评分所需Bean之外再加上线上的文档提取器（LyChatDocumentConfig），用于离线批量评分
+     */
+    public static AnnotationConfigApplicationContext createWithExtraction() {
+        return new AnnotationConfigApplicationContext(
+                LyChatI18nConfig.class,
+                LyChatProperties.class,
+                LyChatExecutorConfig.class,
+                LyChatDocumentConfig.class,
+                AiScorerRegistry.class,
+                AiTemplateLibrary.class,
+                AiLexiconRegistry.class,
+                AiTextAnalysisService.class);
+    }
+}
@@ -0,0 +1,483 @@
+package com.sunnyday.lychat.benchmark;
+
+import com.alibaba.fastjson2.JSON;
+import com.sunnyday.lychat.analysis.AiScoreCard;
+import com.sunnyday.lychat.analysis.AiScorer;
+import com.sunnyday.lychat.analysis.AiScorers;
+import com.sunnyday.lychat.analysis.LexiconMatcher;
+import com.sunnyday.lychat.analysis.StreamingTextAnalyzer;
+import com.sunnyday.lychat.analysis.TemplateIndex;
+import com.sunnyday.lychat.analysis.TextStatistics;
+import com.sunnyday.lychat.config.LyChatProperties;
+import com.sunnyday.lychat.document.DocumentExtractor;
+import com.sunnyday.lychat.document.DocumentType;
+import com.sunnyday.lychat.service.AiLexiconRegistry;
+import com.sunnyday.lychat.service.AiScorerRegistry;
+import com.sunnyday.lychat.service.AiTemplateLibrary;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 离线批量评分工具：对目录树或zip中的全部文书做本地AI痕迹评分
+ *
+ * 文本提取使用线上的 DocumentExtractor（LyChatDocumentConfig 中声明的提取器，按文件头识别类型，不依赖扩展名），
+ * 提取结果逐段输入 StreamingTextAnalyzer，同一份统计量由各版本评分模型（AiScorers）分别打分，
+ * 超过 lychat.extraction.max-chars 的部分与线上一样截断。文件列表在 ForkJoinPool 中按区间递归拆分并行处理，
+ * 每个文件输出一行：统计量原始值、各版本的6个维度原始值（0~1）与AI率、提取和评分耗时；
+ * 单个文件失败只记录在该行的 error 列，不中断整批。结束时输出吞吐量，并按标签汇总线上版本（未选中时为第一个选中版本）的平均AI率。
+ * 标签取相对输入根目录的第一级目录名（如 corpus/human/xxx.docx 的标签为 human），便于直接对比有标注的语料。
+ *
+ * java -Dinput=/data/essays.zip -Dout=scores.ndjson \
+ *   -cp lychat-benchmarks.jar com.sunnyday.lychat.benchmark.BatchScoringRunner
+ *
+ * 参数（系统属性）：
+ * input        输入目录或zip文件（必填）
+ * out          结果文件，默认 batch-scores.csv；扩展名为 .ndjson / .jsonl 时输出NDJSON，否则输出CSV
+ * parallelism  并行度，默认 CPU核数
+ * locale       语言环境（选择词库），默认 ja-JP
+ * versions     评分模型版本，逗号分隔，默认全部内置版本
+ * zipCharset   zip条目名编码，默认 UTF-8（Windows自带压缩生成的日文文件名一般为 MS932）
+ * summary      汇总CSV（每次运行追加一行），默认 batch-summary.csv
+ */
+public final class BatchScoringRunner {
+
+    /** 递归拆分到多少个文件以内时在当前线程顺序处理 */
+    private static final int BATCH_SIZE = 16;
+
+    private static final int PROGRESS_INTERVAL = 10000;
+
+    private static final List<String> STATISTICS = List.of("codePoints", "bigramEntropy", "fourgramEntropy",
+            "templateMaxSimilarity", "normalizedLength", "sentenceCount", "sentenceLengthMean", "sentenceLengthVariance",
+            "logicCount", "emotionVariance");
+
+    private BatchScoringRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String input = System.getProperty("input");
+        if (input == null) {
+            System.err.println("缺少参数 -Dinput=<目录或zip文件>");
+            System.exit(2);
+        }
+        Path root = Paths.get(input);
+        Path out = Paths.get(System.getProperty("out", "batch-scores.csv"));
+        String outName = out.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean ndjson = outName.endsWith(".ndjson") || outName.endsWith(".jsonl");
+        int parallelism = Integer.getInteger("parallelism", Runtime.getRuntime().availableProcessors());
+        Locale locale = Locale.forLanguageTag(System.getProperty("locale", "ja-JP"));
+        Charset zipCharset = Charset.forName(System.getProperty("zipCharset", "UTF-8"));
+        Path summary = Paths.get(System.getProperty("summary", "batch-summary.csv"));
+
+        try (AnnotationConfigApplicationContext context = AnalysisContext.createWithExtraction();
+             Corpus corpus = Files.isDirectory(root) ? Corpus.directory(root) : Corpus.zip(root, zipCharset);
+             Writer writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            Map<DocumentType, DocumentExtractor> extractors = new EnumMap<>(DocumentType.class);
+            for (DocumentExtractor extractor : context.getBeansOfType(DocumentExtractor.class).values()) {
+                extractors.put(extractor.getType(), extractor);
+            }
+            AiTemplateLibrary templateLibrary = context.getBean(AiTemplateLibrary.class);
+            List<AiScorer> scorers = scorers(System.getProperty("versions"));
+            // 按标签汇总的AI率取线上版本，未选中线上版本时取第一个选中的版本
+            String online = context.getBean(AiScorerRegistry.class).production().version();
+            String production = scorers.stream().anyMatch(scorer -> scorer.version().equals(online))
+                    ? online : scorers.get(0).version();
+            Scoring scoring = new Scoring(extractors,
+                    context.getBean(AiLexiconRegistry.class).matcherFor(locale), templateLibrary.current(),
+                    templateLibrary.topK(), context.getBean(LyChatProperties.class).getExtraction().getMaxChars(),
+                    scorers, production, ndjson, writer);
+
+            System.out.printf("输入 %s：%d 个文件，并行度 %d，汇总版本 %s，评分版本 %s%n", root, corpus.size(), parallelism,
+                    production, scoring.versions());
+            if (!ndjson) {
+                writer.write(scoring.csvHeader());
+            }
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            long start = System.nanoTime();
+            try {
+                pool.invoke(new ScoreRange(corpus, scoring, 0, corpus.size()));
+            } finally {
+                pool.shutdown();
+            }
+            long elapsed = System.nanoTime() - start;
+            writer.flush();
+            scoring.report(root, out, parallelism, elapsed, summary);
+        }
+    }
+
+    private static List<AiScorer> scorers(String versions) {
+        List<AiScorer> builtIn = AiScorers.builtIn();
+        if (versions == null || versions.isBlank()) {
+            return builtIn;
+        }
+        List<AiScorer> selected = new ArrayList<>();
+        for (String version : versions.split(",")) {
+            AiScorer scorer = builtIn.stream().filter(s -> s.version().equals(version.trim())).findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("未知的评分模型版本: " + version + "，可选: "
+                            + builtIn.stream().map(AiScorer::version).collect(Collectors.toList())));
+            selected.add(scorer);
+        }
+        return selected;
+    }
+
+    /**
+     * 文件区间 [from, to)，超过 BATCH_SIZE 时对半拆分
+     */
+    private static class ScoreRange extends RecursiveAction {
+        private final Corpus corpus;
+        private final Scoring scoring;
+        private final int from;
+        private final int to;
+
+        ScoreRange(Corpus corpus, Scoring scoring, int from, int to) {
+            this.corpus = corpus;
+            this.scoring = scoring;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_SIZE) {
+                for (int i = from; i < to; i++) {
+                    scoring.score(corpus, i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ScoreRange(corpus, scoring, from, mid), new ScoreRange(corpus, scoring, mid, to));
+        }
+    }
+
+    /**
+     * 单个文件的提取、评分和结果输出，以及全程计数（各线程共享，线程安全）
+     */
+    private static class Scoring {
+        private final Map<DocumentType, DocumentExtractor> extractors;
+        private final LexiconMatcher lexicon;
+        private final TemplateIndex templates;
+        private final int topK;
+        private final int maxChars;
+        private final List<AiScorer> scorers;
+        private final String production;
+        private final boolean ndjson;
+        private final Writer writer;
+
+        private final List<String> columns;
+
+        private final AtomicLong processed = new AtomicLong();
+        private final LongAdder scored = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder chars = new LongAdder();
+        private final LongAdder extractNanos = new LongAdder();
+        private final LongAdder scoreNanos = new LongAdder();
+        private final Map<String, LongAdder> types = new ConcurrentHashMap<>();
+        /** 标签 -> [文件数, 线上版本AI率之和] */
+        private final Map<String, LongAdder[]> labels = new ConcurrentHashMap<>();
+
+        Scoring(Map<DocumentType, DocumentExtractor> extractors, LexiconMatcher lexicon, TemplateIndex templates, int topK,
+                int maxChars, List<AiScorer> scorers, String production, boolean ndjson, Writer writer) {
+            this.extractors = extractors;
+            this.lexicon = lexicon;
+            this.templates = templates;
+            this.topK = topK;
+            this.maxChars = maxChars;
+            this.scorers = scorers;
+            this.production = production;
+            this.ndjson = ndjson;
+            this.writer = writer;
+            this.columns = columns();
+        }
+
+        List<String> versions() {
+            return scorers.stream().map(AiScorer::version).collect(Collectors.toList());
+        }
+
+        void score(Corpus corpus, int index) {
+            String name = corpus.name(index);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("path", name);
+            row.put("label", label(name));
+            row.put("type", "");
+            long extractTime = 0L;
+            long scoreTime = 0L;
+            String error = "";
+            try {
+                Path file = corpus.file(index);
+                bytes.add(Files.size(file));
+                byte[] header = new byte[DocumentType.HEADER_BYTES];
+                int headerLength;
+                try (InputStream in = Files.newInputStream(file)) {
+                    headerLength = in.readNBytes(header, 0, header.length);
+                }
+                DocumentType detected = DocumentType.detect(header, headerLength, file);
+                DocumentExtractor extractor = detected == null ? null : extractors.get(detected);
+                if (extractor == null) {
+                    throw new IOException("不支持的文件类型");
+                }
+                row.put("type", detected.name());
+
+                long start = System.nanoTime();
+                StreamingTextAnalyzer analyzer = new StreamingTextAnalyzer(lexicon, templates, topK);
+                int[] remaining = {maxChars};
+                extractor.extract(file.toFile(), part -> {
+                    if (part.length() >= remaining[0]) {
+                        analyzer.accept(part.subSequence(0, remaining[0]));
+                        remaining[0] = 0;
+                        return false;
+                    }
+                    analyzer.accept(part);
+                    remaining[0] -= part.length();
+                    return true;
+                });
+                TextStatistics statistics = analyzer.finish();
+                long extracted = System.nanoTime();
+                extractTime = extracted - start;
+
+                putStatistics(row, statistics);
+                for (AiScorer scorer : scorers) {
+                    AiScoreCard card = scorer.score(statistics);
+                    double[] dimensions = card.dimensions();
+                    for (int i = 0; i < dimensions.length; i++) {
+                        row.put(scorer.version() + "." + AiScorers.DIMENSIONS.get(i), dimensions[i]);
+                    }
+                    row.put(scorer.version() + ".aiLike", card.aiLike());
+                    row.put(scorer.version() + ".aiScore", card.aiScore());
+                    if (scorer.version().equals(production)) {
+                        LongAdder[] label = labels.computeIfAbsent((String) row.get("label"),
+                                key -> new LongAdder[]{new LongAdder(), new LongAdder()});
+                        label[0].increment();
+                        label[1].add(card.aiScore());
+                    }
+                }
+                scoreTime = System.nanoTime() - extracted;
+                scored.increment();
+                chars.add(maxChars - remaining[0]);
+                extractNanos.add(extractTime);
+                scoreNanos.add(scoreTime);
+            } catch (IOException | RuntimeException e) {
+                failed.increment();
+                error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            }
+            row.put("extractMs", extractTime / 1_000_000.0);
+            row.put("scoreMs", scoreTime / 1_000_000.0);
+            row.put("error", error);
+            String type = (String) row.get("type");
+            types.computeIfAbsent(type.isEmpty() ? "UNKNOWN" : type, key -> new LongAdder()).increment();
+            write(row);
+
+            long done = processed.incrementAndGet();
+            if (done % PROGRESS_INTERVAL == 0) {
+                System.out.printf("已处理 %d / %d%n", done, corpus.size());
+            }
+        }
+
+        private void putStatistics(Map<String, Object> row, TextStatistics statistics) {
+            row.put("codePoints", statistics.codePointCount());
+            row.put("bigramEntropy", statistics.bigramEntropy());
+            row.put("fourgramEntropy", statistics.fourgramEntropy());
+            row.put("templateMaxSimilarity", statistics.templateMatch().getMaxSimilarity());
+            row.put("normalizedLength", statistics.normalizedLength());
+            row.put("sentenceCount", statistics.sentenceCount());
+            row.put("sentenceLengthMean", statistics.sentenceLengthMean());
+            row.put("sentenceLengthVariance", statistics.sentenceLengthVariance());
+            row.put("logicCount", statistics.logicCount());
+            row.put("emotionVariance", statistics.emotionVariance());
+        }
+
+        private void write(Map<String, Object> row) {
+            String line = ndjson ? JSON.toJSONString(row) + "\n" : csvRow(row);
+            try {
+                synchronized (writer) {
+                    writer.write(line);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private List<String> columns() {
+            List<String> columns = new ArrayList<>(List.of("path", "label", "type"));
+            columns.addAll(STATISTICS);
+            for (AiScorer scorer : scorers) {
+                for (String dimension : AiScorers.DIMENSIONS) {
+                    columns.add(scorer.version() + "." + dimension);
+                }
+                columns.add(scorer.version() + ".aiLike");
+                columns.add(scorer.version() + ".aiScore");
+            }
+            columns.addAll(List.of("extractMs", "scoreMs", "error"));
+            return columns;
+        }
+
+        String csvHeader() {
+            return String.join(",", columns) + "\n";
+        }
+
+        private String csvRow(Map<String, Object> row) {
+            StringBuilder sb = new StringBuilder();
+            for (String column : columns) {
+                if (sb.length() > 0) {
+                    sb.append(',');
+                }
+                Object value = row.get(column);
+                if (value instanceof String) {
+                    sb.append(csvEscape((String) value));
+                } else if (value != null) {
+                    sb.append(value);
+                }
+            }
+            return sb.append('\n').toString();
+        }
+
+        private static String csvEscape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        private static String label(String name) {
+            int slash = name.indexOf('/');
+            return slash < 0 ? "" : name.substring(0, slash);
+        }
+
+        void report(Path root, Path out, int parallelism, long elapsedNanos, Path summary) throws IOException {
+            long files = scored.sum() + failed.sum();
+            double seconds = elapsedNanos / 1e9;
+            System.out.printf("完成：%d 个文件（成功 %d，失败 %d），耗时 %.1fs，%.0f 文件/s，%.0f 字符/s，%.1f MB/s%n",
+                    files, scored.sum(), failed.sum(), seconds, files / seconds, chars.sum() / seconds,
+                    bytes.sum() / 1048576.0 / seconds);
+            System.out.printf("线程累计耗时：提取+分析 %.1fs，评分 %.1fs；按类型 %s%n", extractNanos.sum() / 1e9,
+                    scoreNanos.sum() / 1e9, new TreeMap<>(types));
+            System.out.println("按标签（" + production + "）：");
+            labels.entrySet().stream().sorted(Map.Entry.comparingByKey(Comparator.naturalOrder())).forEach(entry -> {
+                long n = entry.getValue()[0].sum();
+                System.out.printf("  %-20s %8d 篇，平均AI率 %.2f%n", entry.getKey().isEmpty() ? "(根目录)" : entry.getKey(),
+                        n, (double) entry.getValue()[1].sum() / n);
+            });
+            System.out.println("结果已写入 " + out.toAbsolutePath());
+
+            boolean newFile = !Files.exists(summary);
+            try (BufferedWriter writer = Files.newBufferedWriter(summary, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                if (newFile) {
+                    writer.write("input,parallelism,files,scored,failed,seconds,filesPerSecond,charsPerSecond,mbPerSecond\n");
+                }
+                writer.write(String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%.1f,%.0f,%.0f,%.1f%n", csvEscape(root.toString()),
+                        parallelism, files, scored.sum(), failed.sum(), seconds, files / seconds, chars.sum() / seconds,
+                        bytes.sum() / 1048576.0 / seconds));
+            }
+        }
+    }
+
+    /**
+     * 输入语料：目录树中的普通文件，或zip中的文件条目（按需落到当前线程的临时文件，提取器只处理落盘的文件）
+     */
+    private abstract static class Corpus implements AutoCloseable {
+
+        /** 文件数 */
+        abstract int size();
+
+        /** 相对输入根目录的路径，分隔符统一为 / */
+        abstract String name(int index);
+
+        /** 可交给提取器的本地文件 */
+        abstract Path file(int index) throws IOException;
+
+        @Override
+        public void close() throws IOException {
+        }
+
+        static Corpus directory(Path root) throws IOException {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(root)) {
+                files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            return new Corpus() {
+                @Override
+                int size() {
+                    return files.size();
+                }
+
+                @Override
+                String name(int index) {
+                    return root.relativize(files.get(index)).toString().replace('\\', '/');
+                }
+
+                @Override
+                Path file(int index) {
+                    return files.get(index);
+                }
+            };
+        }
+
+        static Corpus zip(Path path, Charset charset) throws IOException {
+            ZipFile zip = new ZipFile(path.toFile(), charset);
+            List<ZipEntry> entries = zip.stream().filter(entry -> !entry.isDirectory()).collect(Collectors.toList());
+            Path spoolDir = Files.createTempDirectory("lychat-batch-");
+            // 每个工作线程复用一个临时文件
+            ThreadLocal<Path> spool = ThreadLocal.withInitial(() -> spoolDir.resolve(Thread.currentThread().getName()));
+            return new Corpus() {
+                @Override
+                int size() {
+                    return entries.size();
+                }
+
+                @Override
+                String name(int index) {
+                    return entries.get(index).getName();
+                }
+
+                @Override
+                Path file(int index) throws IOException {
+                    Path file = spool.get();
+                    try (InputStream in = zip.getInputStream(entries.get(index))) {
+                        Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    return file;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    zip.close();
+                    try (Stream<Path> files = Files.list(spoolDir)) {
+                        for (Path file : files.collect(Collectors.toList())) {
+                            Files.deleteIfExists(file);
+                        }
+                    }
+                    Files.deleteIfExists(spoolDir);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.sunnyday.lychat.benchmark;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.util.Units;
+import org.apache.poi.xwpf.usermodel.Document;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 可复现的基准测试语料
+ *
+ * 从固定的句子库中按固定随机种子抽取句子拼成文档，同一规模每次生成的内容完全相同。
+ * PDF需要CJK字体才能写入日文：通过 -Dlychat.bench.font=/path/to/font.ttf 指定（如 NotoSansJP-Regular.ttf），
+ * 未指定时PDF使用等长的英文语料（同样的页数与版面），其余格式始终使用日文语料。
+ *
+ * 导出语料供人工检查：java -cp lychat-benchmarks.jar com.sunnyday.lychat.benchmark.BenchmarkCorpus ./bench-corpus
+ */
+public final class BenchmarkCorpus {
+
+    private static final long SEED = 20250101L;
+
+    private static final int CJK_CHARS_PER_LINE = 40;
+    private static final int LATIN_CHARS_PER_LINE = 90;
+    private static final int LINES_PER_PAGE = 45;
+
+    private static final String[] JA_SENTENCES = {
+            "本志望理由書では、私が貴学を志望する理由と、将来の研究計画について述べたいと思います。",
+            "私は幼い頃から日本の文化と社会に強い関心を抱いてきました。",
+            "高校二年生の夏、地元の図書館でボランティアをした経験が、教育格差について考えるきっかけになりました。",
+            "しかし、当時の私には問題の構造を説明するだけの知識がありませんでした。",
+            "そのため、統計学とデータ分析を独学で学び始めました。",
+            "一方で、数字だけでは見えない人々の声にも耳を傾ける必要があると感じています。",
+            "貴学の経済学部では、実証分析と政策研究を両立できるカリキュラムが用意されています。",
+            "特に地域経済のゼミに参加し、地方自治体と協力したフィールドワークに取り組みたいです。",
+            "入学後の一年目は基礎理論を固め、二年目からは計量経済学の演習に重点を置く予定です。",
+            "さらに、留学生との共同プロジェクトを通じて、多様な視点から課題を捉える力を養いたいと考えています。",
+            "失敗を恐れずに挑戦し続けた結果、英語ディベート大会で準優勝することができました。",
+            "この経験は大きな自信と喜びにつながりました。",
+            "つまり、私にとって学ぶことは、社会に対する責任を果たすための手段なのです。",
+            "将来は政策立案に携わる研究者として、根拠に基づく制度設計に貢献したいと考えています。",
+            "もし貴学で学ぶ機会をいただけるなら、私は誰よりも積極的に議論に参加するつもりです。",
+            "正直に言えば、慣れない環境での生活に不安を感じることもあります。",
+            "それでも、支えてくれた家族と先生方への感謝を忘れず、努力を続けたいです。",
+            "これまでの学習と経験を通じて、私はデータサイエンスの分野で専門性を高めていきたいと考えています。",
+            "卒業論文では、地方の人口減少と教育投資の関係を定量的に検証したいと思います。",
+            "したがって、貴学の充実した研究環境こそが、私の目標を実現するために最も適した場所だと確信しています。",
+            "部活動では部長として後輩の指導にあたり、チームをまとめる難しさを学びました。",
+            "だが、意見の対立を乗り越えたときの充実感は何にも代えがたいものでした。",
+            "貴学の教育理念に共感し、より深い専門性を身につけたいと考えています。",
+            "以上の理由から、私は貴学を強く志望いたします。"
+    };
+
+    private static final String[] EN_SENTENCES = {
+            "In this statement I describe why I wish to study at your university and outline my research plan.",
+            "I have been interested in Japanese culture and society since I was a child.",
+            "Volunteering at a local library made me think seriously about inequality in education.",
+            "However, at that time I lacked the knowledge needed to explain the structure of the problem.",
+            "For that reason I started to teach myself statistics and data analysis.",
+            "On the other hand, I feel it is also necessary to listen to voices that numbers cannot capture.",
+            "The faculty offers a curriculum that combines empirical analysis with policy research.",
+            "In my first year I will build a foundation in theory and then focus on econometrics.",
+            "I would like to contribute to evidence based institutional design as a policy researcher.",
+            "For these reasons I strongly wish to be admitted to your university."
+    };
+
+    private static final Map<DocSize, String> JA_TEXT = new EnumMap<>(DocSize.class);
+    private static final Map<DocSize, String> EN_TEXT = new EnumMap<>(DocSize.class);
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * 日文纯文本语料
+     */
+    public static synchronized String text(DocSize size) {
+        return JA_TEXT.computeIfAbsent(size, s -> generate(JA_SENTENCES, s.getChars()));
+    }
+
+    /**
+     * 英文纯文本语料（与日文语料版面行数相同，用于无CJK字体时生成PDF）
+     */
+    private static synchronized String englishText(DocSize size) {
+        return EN_TEXT.computeIfAbsent(size,
+                s -> generate(EN_SENTENCES, s.getChars() * LATIN_CHARS_PER_LINE / CJK_CHARS_PER_LINE));
+    }
+
+    /**
+     * 指定格式的文件内容
+     */
+    public static byte[] bytes(DocSize size, DocFormat format) {
+        try {
+            switch (format) {
+                case TXT:
+                    return text(size).getBytes(StandardCharsets.UTF_8);
+                case PDF:
+                    return pdf(size);
+                case DOCX:
+                    return docx(text(size), 0);
+                default:
+                    throw new IllegalArgumentException("不支持的格式: " + format);
+            }
+        } catch (IOException | InvalidFormatException e) {
+            throw new IllegalStateException("生成基准测试语料失败", e);
+        }
+    }
+
+    /**
+     * 带图片的DOCX：正文与 bytes(size, DOCX) 相同，均匀插入 images 张 512x512 噪声PNG（几乎不可压缩，每张约0.75MB）
+     */
+    public static byte[] docxWithImages(DocSize size, int images) {
+        try {
+            return docx(text(size), images);
+        } catch (IOException | InvalidFormatException e) {
+            throw new IllegalStateException("生成基准测试语料失败", e);
+        }
+    }
+
+    public static BytesMultipartFile file(DocSize size, DocFormat format) {
+        return new BytesMultipartFile("bench-" + size.name().toLowerCase() + format.getExtension(), bytes(size, format));
+    }
+
+    private static String generate(String[] bank, int chars) {
+        Random random = new Random(SEED);
+        StringBuilder sb = new StringBuilder(chars + 200);
+        int sentencesInParagraph = 0;
+        while (sb.length() < chars) {
+            sb.append(bank[random.nextInt(bank.length)]);
+            if (++sentencesInParagraph >= 4 + random.nextInt(4)) {
+                sb.append('\n');
+                sentencesInParagraph = 0;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static byte[] docx(String text, int images) throws IOException, InvalidFormatException {
+        String[] paragraphs = text.split("\n");
+        int imageEvery = images > 0 ? Math.max(1, paragraphs.length / images) : Integer.MAX_VALUE;
+        Random random = new Random(SEED);
+        int inserted = 0;
+        try (XWPFDocument doc = new XWPFDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int i = 0; i < paragraphs.length; i++) {
+                doc.createParagraph().createRun().setText(paragraphs[i]);
+                if (inserted < images && (i + 1) % imageEvery == 0) {
+                    XWPFRun run = doc.createParagraph().createRun();
+                    run.addPicture(new ByteArrayInputStream(noisePng(random)), Document.PICTURE_TYPE_PNG,
+                            "image" + (++inserted) + ".png", Units.toEMU(200), Units.toEMU(200));
+                }
+            }
+            doc.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] noisePng(Random random) throws IOException {
+        BufferedImage image = new BufferedImage(512, 512, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static byte[] pdf(DocSize size) throws IOException {
+        String fontPath = System.getProperty("lychat.bench.font");
+        try (PDDocument doc = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            PDFont font;
+            List<String> lines;
+            if (fontPath != null) {
+                font = PDType0Font.load(doc, new File(fontPath));
+                lines = wrap(text(size), CJK_CHARS_PER_LINE);
+            } else {
+                font = PDType1Font.HELVETICA;
+                lines = wrap(englishText(size), LATIN_CHARS_PER_LINE);
+            }
+            for (int from = 0; from < lines.size(); from += LINES_PER_PAGE) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(font, 10);
+                    cs.setLeading(16);
+                    cs.newLineAtOffset(50, PDRectangle.A4.getHeight() - 60);
+                    for (String line : lines.subList(from, Math.min(lines.size(), from + LINES_PER_PAGE))) {
+                        cs.showText(line);
+                        cs.newLine();
+                    }
+                    cs.endText();
+                }
+            }
+            doc.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static List<String> wrap(String text, int width) {
+        List<String> lines = new ArrayList<>();
+        for (String paragraph : text.split("\n")) {
+            for (int i = 0; i < paragraph.length(); i += width) {
+                lines.add(paragraph.substring(i, Math.min(paragraph.length(), i + width)));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * 导出全部语料到目录
+     */
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "bench-corpus");
+        Files.createDirectories(dir);
+        for (DocSize size : DocSize.values()) {
+            for (DocFormat format : DocFormat.values()) {
+                Path path = dir.resolve(size.name().toLowerCase() + format.getExtension());
+                Files.write(path, bytes(size, format));
+                System.out.println(path + " (" + Files.size(path) + " bytes)");
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.sunnyday.lychat.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ *
+ * 不带参数：运行全部基准测试，附加GC分配分析（gc.alloc.rate.norm 即每次操作分配的字节数），
+ * 结果写入 jmh-result.json，可与上一次结果对比发现性能回退。
+ * 带参数：原样交给JMH命令行处理，例如只跑评分并指定参数：
+ *   java -jar lychat-benchmarks.jar TextAnalysisBenchmark -p size=TYPICAL -prof gc
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        run();
+    }
+
+    private static void run() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include("com\\.sunnyday\\.lychat\\.benchmark\\..*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
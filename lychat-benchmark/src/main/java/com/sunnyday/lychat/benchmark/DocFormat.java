@@ -0,0 +1,23 @@
+package com.sunnyday.lychat.benchmark;
+
+/**
+ * 基准测试语料格式
+ */
+public enum DocFormat {
+
+    TXT(".txt"),
+
+    PDF(".pdf"),
+
+    DOCX(".docx");
+
+    private final String extension;
+
+    DocFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
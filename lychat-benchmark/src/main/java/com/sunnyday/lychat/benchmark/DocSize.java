@@ -0,0 +1,26 @@
+package com.sunnyday.lychat.benchmark;
+
+/**
+ * 基准测试语料规模
+ */
+public enum DocSize {
+
+    /** 短文本（约1段） */
+    SHORT(400),
+
+    /** 典型志望理由书（约4000字） */
+    TYPICAL(4_000),
+
+    /** 50页长文档（A4每页约40字×45行） */
+    PAGES_50(90_000);
+
+    private final int chars;
+
+    DocSize(int chars) {
+        this.chars = chars;
+    }
+
+    public int getChars() {
+        return chars;
+    }
+}
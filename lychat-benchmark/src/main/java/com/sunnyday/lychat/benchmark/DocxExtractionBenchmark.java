@@ -0,0 +1,64 @@
+package com.sunnyday.lychat.benchmark;
+
+import com.sunnyday.lychat.document.DocxTextExtractor;
+import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DOCX文本提取：XWPFDocument + XWPFWordExtractor（原实现） 对比 StAX流式解析 word/document.xml（DocxTextExtractor）
+ *
+ * images 为插入的噪声图片数，用于观察媒体条目对耗时和分配的影响（XWPF会把全部图片读入内存，流式解析不读取媒体条目）。
+ * 两者都从上传文件（MultipartFile）开始计时，流式解析包含落临时文件的开销。分配量用 -prof gc 的 gc.alloc.rate.norm 对比。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class DocxExtractionBenchmark {
+
+    @Param({"TYPICAL", "PAGES_50"})
+    private DocSize size;
+
+    @Param({"0", "20"})
+    private int images;
+
+    private BytesMultipartFile file;
+
+    private final DocxTextExtractor streamingExtractor = new DocxTextExtractor(Integer.MAX_VALUE);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        file = new BytesMultipartFile("bench-" + size.name().toLowerCase() + ".docx",
+                BenchmarkCorpus.docxWithImages(size, images));
+    }
+
+    @Benchmark
+    public String xwpf() throws IOException {
+        try (XWPFDocument doc = new XWPFDocument(file.getInputStream());
+             XWPFWordExtractor extractor = new XWPFWordExtractor(doc)) {
+            return extractor.getText();
+        }
+    }
+
+    @Benchmark
+    public String stax() throws IOException {
+        return streamingExtractor.extract(file);
+    }
+}
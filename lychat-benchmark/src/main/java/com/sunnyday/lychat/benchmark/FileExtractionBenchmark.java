@@ -0,0 +1,66 @@
+package com.sunnyday.lychat.benchmark;
+
+import com.sunnyday.lychat.document.DocTextExtractor;
+import com.sunnyday.lychat.document.DocumentExtractionService;
+import com.sunnyday.lychat.document.DocxTextExtractor;
+import com.sunnyday.lychat.document.PdfTextExtractor;
+import com.sunnyday.lychat.document.TxtTextExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上传文件文本提取（DocumentExtractionService.extract，按文件头识别类型后分派给各提取器；关闭文本缓存，每次都实际解析）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class FileExtractionBenchmark {
+
+    @Param({"SHORT", "TYPICAL", "PAGES_50"})
+    private DocSize size;
+
+    @Param({"TXT", "PDF", "DOCX"})
+    private DocFormat format;
+
+    private BytesMultipartFile file;
+
+    private PdfTextExtractor pdfTextExtractor;
+
+    private DocumentExtractionService extractionService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        file = BenchmarkCorpus.file(size, format);
+        pdfTextExtractor = new PdfTextExtractor(4, 64, 20, Integer.MAX_VALUE, 16L * 1024 * 1024, 60_000L);
+        extractionService = new DocumentExtractionService(List.of(pdfTextExtractor,
+                new DocxTextExtractor(Integer.MAX_VALUE), new DocTextExtractor(Integer.MAX_VALUE),
+                new TxtTextExtractor(Integer.MAX_VALUE)), 0L, 0L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pdfTextExtractor.close();
+    }
+
+    @Benchmark
+    public String readFileContent() {
+        return extractionService.extract(file);
+    }
+}
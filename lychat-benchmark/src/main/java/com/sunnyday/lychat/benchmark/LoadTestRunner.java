@@ -0,0 +1,186 @@
+package com.sunnyday.lychat.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 接口压测工具：对比平台线程与虚拟线程执行模式
+ *
+ * 以固定并发向运行中的服务重复上传同一份语料，统计吞吐量、延迟分位数和状态码分布，
+ * 并把一行汇总追加到CSV，便于同一台机器上前后两次运行（VIRTUAL_THREADS_ENABLED=false / true）直接对比。
+ * 服务端需要运行在JDK 21+上：JDK 17下虚拟线程开关不生效，两次运行测的都是平台线程模式。
+ * 接口以AjaxResult返回业务错误（HTTP 200），响应体中code不为200的请求单独计为 200-error。
+ * 压测分析结果缓存未命中的路径时，服务端需设置 lychat.cache.enabled=false。
+ *
+ * java -cp lychat-benchmarks.jar com.sunnyday.lychat.benchmark.LoadTestRunner \
+ *   -Durl=http://localhost:8058/ai/contentAnalyse -Dtoken=xxx -Dconcurrency=200 -Drequests=2000 -Dlabel=platform
+ *
+ * 参数（系统属性）：
+ * url          目标接口，默认 http://localhost:8058/ai/contentAnalyse
+ * token        登录令牌（Authorization: Bearer），可选
+ * concurrency  并发数，默认 100
+ * requests     请求总数（不含预热），默认 1000
+ * warmup       预热请求数，默认 concurrency
+ * size/format  语料规模与格式，默认 TYPICAL / DOCX
+ * file         指定上传文件，设置后忽略 size/format
+ * label        本次运行标签，默认 run
+ * out          汇总CSV，默认 loadtest-result.csv
+ */
+public final class LoadTestRunner {
+
+    private static final String BOUNDARY = "----lychat-loadtest-boundary";
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("url", "http://localhost:8058/ai/contentAnalyse");
+        String token = System.getProperty("token");
+        int concurrency = Integer.getInteger("concurrency", 100);
+        int requests = Integer.getInteger("requests", 1000);
+        int warmup = Integer.getInteger("warmup", concurrency);
+        String label = System.getProperty("label", "run");
+        Path out = Paths.get(System.getProperty("out", "loadtest-result.csv"));
+
+        String fileName;
+        byte[] content;
+        String file = System.getProperty("file");
+        if (file != null) {
+            fileName = Paths.get(file).getFileName().toString();
+            content = Files.readAllBytes(Paths.get(file));
+        } else {
+            DocSize size = DocSize.valueOf(System.getProperty("size", "TYPICAL"));
+            DocFormat format = DocFormat.valueOf(System.getProperty("format", "DOCX"));
+            fileName = "loadtest-" + size.name().toLowerCase() + format.getExtension();
+            content = BenchmarkCorpus.bytes(size, format);
+        }
+        byte[] body = multipartBody(fileName, content);
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(Math.max(4, concurrency / 8)))
+                .build();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMinutes(5))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .header("Accept-Language", "ja-JP")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest request = builder.build();
+
+        System.out.printf("压测 %s：并发 %d，请求 %d（预热 %d），文件 %s（%d bytes）%n",
+                url, concurrency, requests, warmup, fileName, content.length);
+        run(client, request, concurrency, warmup, null);
+
+        long[] latencies = new long[requests];
+        Map<String, AtomicInteger> statusCounts = new ConcurrentHashMap<>();
+        long start = System.nanoTime();
+        run(client, request, concurrency, requests, new Recorder(latencies, statusCounts));
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        int ok = statusCounts.getOrDefault("200", new AtomicInteger()).get();
+        String summary = String.format("%s,%d,%d,%.2f,%.1f,%.1f,%.1f,%.1f,%d,%d",
+                label, concurrency, requests, requests / seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99),
+                latencies[latencies.length - 1] / 1e6, ok, requests - ok);
+
+        System.out.printf("吞吐量: %.2f req/s，p50 %.1fms，p95 %.1fms，p99 %.1fms，max %.1fms%n",
+                requests / seconds, percentile(latencies, 0.50), percentile(latencies, 0.95),
+                percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6);
+        System.out.println("状态码分布: " + new TreeMap<>(statusCounts));
+
+        if (!Files.exists(out)) {
+            Files.write(out, "label,concurrency,requests,throughput,p50_ms,p95_ms,p99_ms,max_ms,ok,failed\n"
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        Files.write(out, (summary + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        System.out.println("汇总已追加到 " + out.toAbsolutePath());
+        System.exit(0);
+    }
+
+    private static void run(HttpClient client, HttpRequest request, int concurrency, int total, Recorder recorder)
+            throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        AtomicInteger next = new AtomicInteger();
+        for (int w = 0; w < concurrency; w++) {
+            workers.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < total) {
+                    long begin = System.nanoTime();
+                    String status;
+                    try {
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        status = String.valueOf(response.statusCode());
+                        if (response.statusCode() == 200 && !response.body().contains("\"code\":200")) {
+                            status = "200-error";
+                        }
+                    } catch (IOException e) {
+                        status = "-1";
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (recorder != null) {
+                        recorder.record(i, System.nanoTime() - begin, status);
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.DAYS);
+    }
+
+    private static byte[] multipartBody(String fileName, byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length + 512);
+        out.write(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        out.write(content);
+        out.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * 记录每个请求的延迟和状态（-1 表示连接失败或超时）
+     */
+    private static final class Recorder {
+        private final long[] latencies;
+        private final Map<String, AtomicInteger> statusCounts;
+
+        Recorder(long[] latencies, Map<String, AtomicInteger> statusCounts) {
+            this.latencies = latencies;
+            this.statusCounts = statusCounts;
+        }
+
+        void record(int index, long nanos, String status) {
+            latencies[index] = nanos;
+            statusCounts.computeIfAbsent(status, k -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.sunnyday.lychat.benchmark;
+
+import com.alibaba.fastjson2.JSON;
+import com.sunnyday.lychat.entity.AiAnalysisResultVo;
+import com.sunnyday.lychat.entity.QualityDimensionVo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大模型输出JSON到 AiAnalysisResultVo 的映射（JSON.parseObject）
+ * 模型输出中包含改写后的全文，其长度与原文规模相当
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class ResultMappingBenchmark {
+
+    private static final String[] DIMENSIONS = {
+            "志望動機の明確性と具体性", "学習計画と未来目標の合理性", "表現力と説得力",
+            "学部専門との適合度", "文章構造と論理展開", "文法と日本語の正確性"
+    };
+
+    @Param({"SHORT", "TYPICAL", "PAGES_50"})
+    private DocSize size;
+
+    private String llmOutput;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        llmOutput = sampleOutput(size);
+    }
+
+    @Benchmark
+    public AiAnalysisResultVo parseObject() {
+        return JSON.parseObject(llmOutput, AiAnalysisResultVo.class);
+    }
+
+    /**
+     * 按提示词约定的结构构造一份模型输出
+     */
+    static String sampleOutput(DocSize size) {
+        List<QualityDimensionVo> dimensions = new ArrayList<>();
+        for (int i = 0; i < DIMENSIONS.length; i++) {
+            QualityDimensionVo dimension = new QualityDimensionVo();
+            dimension.setName(DIMENSIONS[i]);
+            dimension.setScore(70 + i * 4);
+            dimension.setEvaluation("志望動機は明確で具体的ですが、より個人的な経験や具体例を追加すると説得力が増します。"
+                    + "段落間のつながりに改善の余地があります。");
+            dimensions.add(dimension);
+        }
+        AiAnalysisResultVo vo = new AiAnalysisResultVo();
+        vo.setQualityDimensions(dimensions);
+        vo.setRecommendations(Arrays.asList(
+                "結論部分の論理展開に一貫性が不足しています。具体例を追加して説明を補強してください。",
+                BenchmarkCorpus.text(size)));
+        return JSON.toJSONString(vo);
+    }
+}
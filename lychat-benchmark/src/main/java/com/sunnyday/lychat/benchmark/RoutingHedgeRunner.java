@@ -0,0 +1,190 @@
+package com.sunnyday.lychat.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sunnyday.lychat.llm.RoutingChatModel;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.openai.OpenAiChatModel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 多供应商路由与对冲请求对比工具
+ *
+ * 在本机启动两个OpenAI兼容的HTTP替身（fast：通常较快但有一定比例的长尾；slow：稳定但较慢），
+ * 用 OpenAiChatModel 分别指向它们，组成 RoutingChatModel，依次在不对冲和对冲两种模式下以固定并发发送请求，
+ * 输出端到端耗时分位数、各供应商的路由统计，以及替身实际收到和被中途取消的请求数。
+ *
+ * java -cp lychat-benchmarks.jar com.sunnyday.lychat.benchmark.RoutingHedgeRunner -Drequests=300 -DfastTailRate=0.1
+ *
+ * 参数（系统属性）：
+ * requests         每种模式的请求数，默认 200（另有 requests/5 次预热）
+ * concurrency      并发数，默认 8
+ * fastMillis       fast替身的常规延迟，默认 300
+ * fastTailMillis   fast替身的长尾延迟，默认 3000
+ * fastTailRate     fast替身出现长尾的比例，默认 0.1
+ * slowMillis       slow替身的延迟，默认 800
+ * hedgePercentile  对冲触发分位数，默认 0.8
+ */
+public final class RoutingHedgeRunner {
+
+    private static final String RESPONSE = "{\"id\":\"chatcmpl-stub\",\"object\":\"chat.completion\",\"created\":0,"
+            + "\"model\":\"stub\",\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"ok\"},"
+            + "\"finish_reason\":\"stop\"}],\"usage\":{\"prompt_tokens\":10,\"completion_tokens\":1,\"total_tokens\":11}}";
+
+    private RoutingHedgeRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int requests = Integer.getInteger("requests", 200);
+        int concurrency = Integer.getInteger("concurrency", 8);
+        double hedgePercentile = Double.parseDouble(System.getProperty("hedgePercentile", "0.8"));
+
+        StandIn fast = new StandIn("fast", Long.getLong("fastMillis", 300L), Long.getLong("fastTailMillis", 3000L),
+                Double.parseDouble(System.getProperty("fastTailRate", "0.1")));
+        long slowMillis = Long.getLong("slowMillis", 800L);
+        StandIn slow = new StandIn("slow", slowMillis, slowMillis, 0.0);
+        try {
+            for (boolean hedge : new boolean[]{false, true}) {
+                fast.reset();
+                slow.reset();
+                long[] latencies = new long[requests];
+                double seconds;
+                Map<String, Object> stats;
+                try (RoutingChatModel model = new RoutingChatModel(
+                        List.of(new RoutingChatModel.Provider(fast.name, fast.model(), 100),
+                                new RoutingChatModel.Provider(slow.name, slow.model(), 100)),
+                        10, 0.3, 30_000L, hedge, hedgePercentile, 100L, 1000L, concurrency * 2)) {
+                    run(model, concurrency, Math.max(concurrency, requests / 5), null);
+                    long start = System.nanoTime();
+                    run(model, concurrency, requests, latencies);
+                    seconds = (System.nanoTime() - start) / 1e9;
+                    stats = model.stats();
+                }
+
+                Arrays.sort(latencies);
+                System.out.printf("%n[%s] %d 请求，%.1f req/s，p50 %.1fms，p95 %.1fms，p99 %.1fms，max %.1fms%n",
+                        hedge ? "对冲" : "不对冲", requests, requests / seconds,
+                        percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99),
+                        latencies[latencies.length - 1] / 1e6);
+                System.out.println("路由统计: " + stats);
+                System.out.printf("替身收到请求: fast %d（中途断开 %d），slow %d（中途断开 %d）%n",
+                        fast.received.sum(), fast.broken.sum(), slow.received.sum(), slow.broken.sum());
+            }
+        } finally {
+            fast.stop();
+            slow.stop();
+        }
+        System.exit(0);
+    }
+
+    private static void run(ChatModel model, int concurrency, int requests, long[] latencies) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        AtomicInteger next = new AtomicInteger();
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                int index;
+                while ((index = next.getAndIncrement()) < requests) {
+                    ChatRequest request = ChatRequest.builder()
+                            .messages(UserMessage.from("routing benchmark " + index))
+                            .build();
+                    long start = System.nanoTime();
+                    try {
+                        model.chat(request);
+                    } catch (RuntimeException e) {
+                        System.out.println("请求失败: " + e.getMessage());
+                    }
+                    if (latencies != null) {
+                        latencies[index] = System.nanoTime() - start;
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * OpenAI兼容接口的本地替身，按注入的延迟返回固定的 chat.completion 响应
+     */
+    private static final class StandIn {
+        private final String name;
+        private final long millis;
+        private final long tailMillis;
+        private final double tailRate;
+        private final HttpServer server;
+        private final LongAdder received = new LongAdder();
+        private final LongAdder broken = new LongAdder();
+
+        StandIn(String name, long millis, long tailMillis, double tailRate) throws IOException {
+            this.name = name;
+            this.millis = millis;
+            this.tailMillis = tailMillis;
+            this.tailRate = tailRate;
+            this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/v1/chat/completions", this::handle);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.start();
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            received.increment();
+            exchange.getRequestBody().readAllBytes();
+            long delay = ThreadLocalRandom.current().nextDouble() < tailRate ? tailMillis : millis;
+            try {
+                Thread.sleep(delay);
+                byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (IOException e) {
+                broken.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        }
+
+        ChatModel model() {
+            return OpenAiChatModel.builder()
+                    .baseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/v1")
+                    .apiKey("stand-in")
+                    .modelName("stub")
+                    .timeout(Duration.ofSeconds(30))
+                    .maxRetries(0)
+                    .build();
+        }
+
+        void reset() {
+            received.reset();
+            broken.reset();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.sunnyday.lychat.benchmark;
+
+import com.sunnyday.lychat.analysis.DraftDocument;
+import com.sunnyday.lychat.analysis.StreamingTextAnalyzer;
+import com.sunnyday.lychat.service.AiLexiconRegistry;
+import com.sunnyday.lychat.service.AiTemplateLibrary;
+import com.sunnyday.lychat.service.AiTextAnalysisService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.nio.CharBuffer;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地AI痕迹评分（AiTextAnalysisService.analyzeWithScore）
+ *
+ * analyzeStreaming 按页大小（约1800字符）把同一文本分段输入 StreamingTextAnalyzer，模拟逐页提取时的用法，
+ * 分段用 CharBuffer 包装原字符串，不产生子串拷贝
+ *
+ * analyzeDraftEdit 模拟修改稿重新上传：在原文与“中间一段追加一句”的修改稿之间交替更新同一个 DraftDocument，
+ * 每次只重新分析改动的一段，与 analyzeWithScore 对比可得增量评分节省的耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class TextAnalysisBenchmark {
+
+    private static final int PAGE_CHARS = 1800;
+
+    @Param({"SHORT", "TYPICAL", "PAGES_50"})
+    private DocSize size;
+
+    private AnnotationConfigApplicationContext context;
+    private AiTextAnalysisService service;
+    private String text;
+    private String editedText;
+    private DraftDocument draft;
+    private int topK;
+    private boolean edited;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = AnalysisContext.create();
+        service = context.getBean(AiTextAnalysisService.class);
+        text = BenchmarkCorpus.text(size);
+        int middle = text.indexOf('\n', text.length() / 2);
+        editedText = middle < 0 ? text + "\n私はこの経験を通じて多くのことを学びました。"
+                : text.substring(0, middle) + "私はこの経験を通じて多くのことを学びました。" + text.substring(middle);
+        AiTemplateLibrary templateLibrary = context.getBean(AiTemplateLibrary.class);
+        draft = new DraftDocument(context.getBean(AiLexiconRegistry.class).matcherFor(Locale.JAPAN), templateLibrary.current());
+        topK = templateLibrary.topK();
+        draft.update(text);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public AiTextAnalysisService.AnalysisResult analyzeWithScore() {
+        return service.analyzeWithScore(text, Locale.JAPAN);
+    }
+
+    @Benchmark
+    public AiTextAnalysisService.AnalysisResult analyzeStreaming() {
+        StreamingTextAnalyzer analyzer = service.newAnalyzer(Locale.JAPAN);
+        for (int from = 0; from < text.length(); from += PAGE_CHARS) {
+            analyzer.accept(CharBuffer.wrap(text, from, Math.min(text.length(), from + PAGE_CHARS)));
+        }
+        return service.analyzeWithScore(analyzer.finish(), Locale.JAPAN);
+    }
+
+    @Benchmark
+    public AiTextAnalysisService.AnalysisResult analyzeDraftEdit() {
+        edited = !edited;
+        draft.update(edited ? editedText : text);
+        return service.analyzeWithScore(draft.statistics(topK), Locale.JAPAN);
+    }
+}